@@ -1,14 +1,23 @@
 package obligatorio.da.sistemaPeajes;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import excepciones.PeajeException;
 import obligatorio.da.sistemaPeajes.dominio.Administrador;
 import obligatorio.da.sistemaPeajes.dominio.Categoria;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
 import obligatorio.da.sistemaPeajes.dominio.Exonerado;
 import obligatorio.da.sistemaPeajes.dominio.Frecuente;
 import obligatorio.da.sistemaPeajes.dominio.Habilitado;
@@ -17,14 +26,94 @@ import obligatorio.da.sistemaPeajes.dominio.Propietario;
 import obligatorio.da.sistemaPeajes.dominio.Puesto;
 import obligatorio.da.sistemaPeajes.dominio.Tarifa;
 import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
+import obligatorio.da.sistemaPeajes.persistencia.ArchivoNotificacionesTexto;
 import obligatorio.da.sistemaPeajes.servicios.Fachada;
 
 @SpringBootApplication
-public class SistemaPeajesApplication {
+@EnableScheduling
+public class SistemaPeajesApplication implements SmartInitializingSingleton, DisposableBean {
 
-    public static void main(String[] args) throws PeajeException, ParseException {
+    private static final Logger log = LoggerFactory.getLogger(SistemaPeajesApplication.class);
+
+    private final Environment entorno;
+    private boolean persistenciaIniciada;
+    private ArchivoNotificacionesTexto archivoNotificaciones;
+
+    public SistemaPeajesApplication(Environment entorno) {
+        this.entorno = entorno;
+    }
+
+    public static void main(String[] args) {
         SpringApplication.run(SistemaPeajesApplication.class, args);
-        cargarDatosDePrueba();
+    }
+
+    /**
+     * Restaura el estado del sistema. Spring lo invoca al terminar de crear los
+     * beans, antes de que el servidor web acepte solicitudes y de que comiencen las
+     * tareas programadas: ningún cambio llega antes de que la bitácora esté activa.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            int capacidadNotificaciones = entorno.getProperty("peajes.notificaciones.capacidad", Integer.class, 100);
+            Fachada.getInstancia().configurarNotificaciones(capacidadNotificaciones, null);
+            if (entorno.getProperty("peajes.bitacora.habilitada", Boolean.class, true)) {
+                iniciarPersistencia();
+            } else {
+                cargarDatosDePrueba();
+            }
+            archivarNotificaciones(capacidadNotificaciones);
+        } catch (PeajeException | ParseException | IOException e) {
+            throw new IllegalStateException("No se pudo restaurar el estado del sistema", e);
+        }
+    }
+
+    /**
+     * Cierra la bitácora y el archivo de notificaciones. Spring lo invoca después
+     * de detener el servidor web, cuando ya no se registran cambios.
+     */
+    @Override
+    public void destroy() throws IOException {
+        if (persistenciaIniciada) {
+            Fachada.getInstancia().detenerPersistencia();
+        }
+        if (archivoNotificaciones != null) {
+            archivoNotificaciones.close();
+        }
+    }
+
+    /**
+     * A partir de este momento las notificaciones que los propietarios descartan
+     * se archivan. Se configura después de restaurar el estado para no volver a
+     * archivar las que se descartan al reproducir la bitácora.
+     */
+    private void archivarNotificaciones(int capacidad) throws IOException {
+        String archivo = entorno.getProperty("peajes.notificaciones.archivo", "");
+        if (archivo.isBlank()) {
+            return;
+        }
+        archivoNotificaciones = new ArchivoNotificacionesTexto(Path.of(archivo));
+        Fachada.getInstancia().configurarNotificaciones(capacidad, archivoNotificaciones);
+    }
+
+    /**
+     * Restaura el estado desde la última instantánea (o desde los datos de prueba si
+     * todavía no hay ninguna), reproduce la cola de la bitácora y a partir de ese
+     * momento registra los cambios.
+     */
+    private void iniciarPersistencia() throws PeajeException, ParseException, IOException {
+        long inicio = System.nanoTime();
+        Fachada fachada = Fachada.getInstancia();
+        if (!fachada.cargarInstantanea(Path.of(entorno.getProperty("peajes.instantanea.archivo", "datos/instantanea.dat")))) {
+            cargarDatosDePrueba();
+        }
+        fachada.iniciarPersistencia(
+                Path.of(entorno.getProperty("peajes.bitacora.archivo", "datos/bitacora.dat")),
+                entorno.getProperty("peajes.bitacora.tamanio-region-mb", Integer.class, 16) * 1024 * 1024,
+                entorno.getProperty("peajes.bitacora.fsync-cada-registros", Integer.class, 256),
+                entorno.getProperty("peajes.bitacora.fsync-intervalo-ms", Long.class, 50L));
+        persistenciaIniciada = true;
+        log.info("Estado del sistema restaurado en {} ms", (System.nanoTime() - inicio) / 1_000_000);
     }
 
     private static void cargarDatosDePrueba() throws PeajeException, ParseException {
@@ -50,16 +139,19 @@ public class SistemaPeajesApplication {
         Saldo actual: 2000
         Saldo mínimo para alerta: 500
         */
-        Propietario prop1 = new Propietario("23456789", "prop.123", "Usuario Propietario", 2000, 500);
+        Propietario prop1 = new Propietario("23456789", "prop.123", "Usuario Propietario",
+                Dinero.centesimos(2000), Dinero.centesimos(500));
         Fachada.getInstancia().agregarPropietario(prop1);
         Fachada.getInstancia().cambiarEstadoPropietario(prop1, new Penalizado());
         Fachada.getInstancia().cambiarEstadoPropietario(prop1, new Habilitado());
 
-        Propietario prop2 = new Propietario("98765432", "prop.456", "Usuario Propietario 2", 1500, 300);
+        Propietario prop2 = new Propietario("98765432", "prop.456", "Usuario Propietario 2",
+                Dinero.centesimos(1500), Dinero.centesimos(300));
         Fachada.getInstancia().agregarPropietario(prop2);
 
         // Agregar un usuario deshabilitado para pruebas
-        Propietario prop3 = new Propietario("34567890", "prop.789", "Usuario Propietario Deshabilitado", 1000, 200);
+        Propietario prop3 = new Propietario("34567890", "prop.789", "Usuario Propietario Deshabilitado",
+                Dinero.centesimos(1000), Dinero.centesimos(200));
         prop3.deshabilitar();
         Fachada.getInstancia().agregarPropietario(prop3);
 
@@ -101,23 +193,23 @@ public class SistemaPeajesApplication {
 
         // Cargar Puesto 1 con tarifas estándar (según imagen)
         Puesto puesto1 = new Puesto("Puesto 101 - Acceso Norte", "Ruta 101 Norte");
-        puesto1.getTarifas().add(new Tarifa(120.00, categoriaA));
-        puesto1.getTarifas().add(new Tarifa(180.00, categoriaB));
-        puesto1.getTarifas().add(new Tarifa(280.00, categoriaC));
+        puesto1.agregarTarifa(new Tarifa(Dinero.centesimos(120.00), categoriaA));
+        puesto1.agregarTarifa(new Tarifa(Dinero.centesimos(180.00), categoriaB));
+        puesto1.agregarTarifa(new Tarifa(Dinero.centesimos(280.00), categoriaC));
         Fachada.getInstancia().agregarPuesto(puesto1);
         
         // Cargar Puesto 2 con tarifas diferentes (20% más caras)
         Puesto puesto2 = new Puesto("Puesto 102 - Acceso Sur", "Ruta 102 Sur");
-        puesto2.getTarifas().add(new Tarifa(144.00, categoriaA));
-        puesto2.getTarifas().add(new Tarifa(216.00, categoriaB));
-        puesto2.getTarifas().add(new Tarifa(336.00, categoriaC));
+        puesto2.agregarTarifa(new Tarifa(Dinero.centesimos(144.00), categoriaA));
+        puesto2.agregarTarifa(new Tarifa(Dinero.centesimos(216.00), categoriaB));
+        puesto2.agregarTarifa(new Tarifa(Dinero.centesimos(336.00), categoriaC));
         Fachada.getInstancia().agregarPuesto(puesto2);
         
         // Cargar Puesto 3 con tarifas diferentes (10% más baratas)
         Puesto puesto3 = new Puesto("Puesto 103 - Acceso Centro", "Ruta 103 Centro");
-        puesto3.getTarifas().add(new Tarifa(108.00, categoriaA));
-        puesto3.getTarifas().add(new Tarifa(162.00, categoriaB));
-        puesto3.getTarifas().add(new Tarifa(252.00, categoriaC));
+        puesto3.agregarTarifa(new Tarifa(Dinero.centesimos(108.00), categoriaA));
+        puesto3.agregarTarifa(new Tarifa(Dinero.centesimos(162.00), categoriaB));
+        puesto3.agregarTarifa(new Tarifa(Dinero.centesimos(252.00), categoriaC));
         Fachada.getInstancia().agregarPuesto(puesto3);
 
         // Asignar bonificaciones de ejemplo al propietario 1 (Usuario Propietario - 23456789)
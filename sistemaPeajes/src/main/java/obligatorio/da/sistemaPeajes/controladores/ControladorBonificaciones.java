@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.SessionAttribute;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import excepciones.PeajeException;
+import jakarta.annotation.PreDestroy;
 import obligatorio.da.sistemaPeajes.dominio.EstrategiaBonificacion;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
 import obligatorio.da.sistemaPeajes.dominio.Puesto;
@@ -25,13 +26,11 @@ import obligatorio.da.sistemaPeajes.dtos.PuestoDTO;
 import obligatorio.da.sistemaPeajes.servicios.Fachada;
 import obligatorio.da.sistemaPeajes.utils.ConexionNavegador;
 import obligatorio.da.sistemaPeajes.utils.Respuesta;
-import observador.Observable;
-import observador.Observador;
 
 @RestController
 @RequestMapping("/usuarios/admins/bonificaciones")
 @Scope("session") // Define el alcance de la sesión para este controlador
-public class ControladorBonificaciones implements Observador {
+public class ControladorBonificaciones {
 
     private static final String USUARIO_ADMINISTRADOR_STATE_KEY = "usuarioAdministrador";
     private List<Puesto> puestos;
@@ -71,6 +70,15 @@ public class ControladorBonificaciones implements Observador {
         desuscribirObservadorDePropietario();
     }
 
+    /**
+     * Al terminar la sesión (por ejemplo, si expira sin que se cierre la vista)
+     * se desuscribe del propietario.
+     */
+    @PreDestroy
+    public void sesionTerminada() {
+        desuscribirObservadorDePropietario();
+    }
+
     private Respuesta puestos() {
         puestos = new ArrayList<>(Fachada.getInstancia().getPuestos());
         List<PuestoDTO> puestosDto = new ArrayList<>();
@@ -120,7 +128,7 @@ public class ControladorBonificaciones implements Observador {
             
             // Suscribirse al nuevo propietario para recibir actualizaciones
             propietarioActual = propietario;
-            propietario.agregarObservador(this);
+            suscribirseAPropietario(propietario);
             
             // Convertir a DTO
             PropietarioDTO propietarioDto = new PropietarioDTO(propietario);
@@ -215,39 +223,50 @@ public class ControladorBonificaciones implements Observador {
     
     // ==================== Métodos del patrón Observer ====================
     
+    /**
+     * Suscribe al controlador a los cambios del propietario que se muestran en la
+     * vista: estado, bonificaciones y saldo.
+     */
+    private void suscribirseAPropietario(Propietario propietario) {
+        // Las lambdas reciben el controlador en lugar de capturarlo, para que el
+        // propietario no retenga la sesión
+        propietario.suscribir(this, Propietario.Eventos.EstadoCambiado.class,
+                (controlador, evento) -> controlador.propietarioModificado());
+        propietario.suscribir(this, Propietario.Eventos.BonificacionAsignada.class,
+                (controlador, evento) -> controlador.propietarioModificado());
+        propietario.suscribir(this, Propietario.Eventos.SaldoModificado.class,
+                (controlador, evento) -> controlador.propietarioModificado());
+    }
+
     /**
      * Desuscribe al controlador del propietario actual.
      */
     private void desuscribirObservadorDePropietario() {
         if (propietarioActual != null) {
-            propietarioActual.quitarObservador(this);
+            propietarioActual.desuscribir(this);
             propietarioActual = null;
         }
     }
     
     /**
-     * Método del patrón Observer que se ejecuta cuando el propietario notifica un cambio.
+     * Se ejecuta cuando el propietario notifica un cambio.
      * Envía los datos actualizados del propietario al navegador mediante SSE.
-     * 
-     * @param evento El tipo de evento que ocurrió
-     * @param origen El objeto observable que generó el evento (no usado en esta implementación)
      */
-    @Override
-    public void actualizar(Object evento, Observable origen) {
+    private void propietarioModificado() {
+        // Se procesa en el hilo de la conexión, fuera del hilo que registró el cambio
+        conexionNavegador.ejecutar(this::enviarCambios);
+    }
+
+    private void enviarCambios() {
+        Propietario propietarioActual = this.propietarioActual;
         if (propietarioActual != null) {
-            // Si hubo un cambio en el propietario, enviar los datos actualizados
-            if (Propietario.Eventos.ESTADO_CAMBIADO.equals(evento)
-                    || Propietario.Eventos.BONIFICACION_ASIGNADA.equals(evento)
-                    || Propietario.Eventos.SALDO_MODIFICADO.equals(evento)) {
-                
-                // Convertir el propietario a DTO
-                PropietarioDTO propietarioDto = new PropietarioDTO(propietarioActual);
-                
-                // Enviar la actualización al navegador mediante SSE
-                conexionNavegador.enviarJSON(Respuesta.lista(
-                    new Respuesta("propietario", propietarioDto)
-                ));
-            }
+            // Convertir el propietario a DTO
+            PropietarioDTO propietarioDto = new PropietarioDTO(propietarioActual);
+            
+            // Enviar la actualización al navegador mediante SSE
+            conexionNavegador.enviarJSON(Respuesta.lista(
+                new Respuesta("propietario", propietarioDto)
+            ));
         }
     }
 }
@@ -5,10 +5,13 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,9 +25,12 @@ import obligatorio.da.sistemaPeajes.dominio.Transito;
 import obligatorio.da.sistemaPeajes.dominio.Usuario;
 import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
 import obligatorio.da.sistemaPeajes.dtos.PuestoDTO;
+import obligatorio.da.sistemaPeajes.dtos.ResultadoLoteDTO;
+import obligatorio.da.sistemaPeajes.dtos.SolicitudTransitoDTO;
 import obligatorio.da.sistemaPeajes.dtos.TarifaDTO;
 import obligatorio.da.sistemaPeajes.dtos.TransitoDTO;
 import obligatorio.da.sistemaPeajes.servicios.Fachada;
+import obligatorio.da.sistemaPeajes.servicios.ServicioTransito;
 import obligatorio.da.sistemaPeajes.utils.Respuesta;
 
 @RestController
@@ -35,6 +41,10 @@ public class ControladorEmularTransito {
 
     private static final String USUARIO_ADMINISTRADOR_STATE_KEY = "usuarioAdministrador";
 
+    // Cantidad máxima de tránsitos aceptados en un lote
+    @Value("${peajes.transitos.maximo-lote:1000}")
+    private int maximoLote;
+
     @GetMapping("/vistaConectada")
     public List<Respuesta> inicializarVista(
             @SessionAttribute(name = USUARIO_ADMINISTRADOR_STATE_KEY, required = false) Usuario usuario) {
@@ -133,4 +143,69 @@ public class ControladorEmularTransito {
             return Respuesta.lista(new Respuesta("error", "Error inesperado: " + e.getMessage()));
         }
     }
+
+    /**
+     * Registra un lote de tránsitos (por ejemplo, los acumulados por un puesto
+     * luego de un corte de conectividad).
+     * 
+     * Cada tránsito indica la posición del puesto en la lista de puestos del sistema,
+     * la matrícula y la fecha en formato yyyy-MM-dd'T'HH:mm. Los tránsitos que no
+     * se pueden resolver o registrar se informan como errores sin interrumpir el lote.
+     * Los lotes con más tránsitos que el máximo configurado se rechazan completos.
+     * 
+     * @param solicitudes Los tránsitos a registrar
+     * @param usuario El administrador logueado
+     * @return Lista de respuestas con la cantidad registrada y los errores
+     */
+    @PostMapping("/registrarLote")
+    public List<Respuesta> registrarTransitos(
+            @RequestBody List<SolicitudTransitoDTO> solicitudes,
+            @SessionAttribute(name = USUARIO_ADMINISTRADOR_STATE_KEY, required = false) Usuario usuario) {
+
+        if (usuario == null) {
+            return Respuesta.lista(new Respuesta("error", "Usuario no autenticado"));
+        }
+
+        if (solicitudes.size() > maximoLote) {
+            return Respuesta.lista(new Respuesta("error",
+                    "El lote supera el máximo de " + maximoLote + " tránsitos"));
+        }
+
+        List<Puesto> puestosSistema = Fachada.getInstancia().getPuestos();
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm");
+        List<ServicioTransito.SolicitudTransito> resueltas = new ArrayList<>();
+        List<Integer> posicionesOriginales = new ArrayList<>();
+        List<String> errores = new ArrayList<>();
+
+        // Resolver puesto, vehículo y fecha de cada tránsito antes de registrar el lote
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudTransitoDTO solicitud = solicitudes.get(i);
+            try {
+                if (solicitud.getPosPuesto() < 0 || solicitud.getPosPuesto() >= puestosSistema.size()) {
+                    throw new PeajeException("Seleccione un puesto válido");
+                }
+                Vehiculo vehiculo = Fachada.getInstancia().buscarVehiculoPorMatricula(solicitud.getMatricula());
+                if (solicitud.getFecha() == null) {
+                    throw new ParseException(null, 0);
+                }
+                Date fechaHora = sdf.parse(solicitud.getFecha());
+                resueltas.add(new ServicioTransito.SolicitudTransito(
+                        puestosSistema.get(solicitud.getPosPuesto()), vehiculo, fechaHora));
+                posicionesOriginales.add(i);
+            } catch (PeajeException e) {
+                errores.add("Tránsito " + (i + 1) + ": " + e.getMessage());
+            } catch (ParseException e) {
+                errores.add("Tránsito " + (i + 1) + ": Formato de fecha inválido. Use: yyyy-MM-dd'T'HH:mm");
+            }
+        }
+
+        ServicioTransito.ResultadoLote resultado = Fachada.getInstancia().registrarTransitos(resueltas);
+        for (Map.Entry<Integer, String> error : resultado.getErrores().entrySet()) {
+            errores.add("Tránsito " + (posicionesOriginales.get(error.getKey()) + 1) + ": " + error.getValue());
+        }
+
+        return Respuesta.lista(
+                new Respuesta("exito", resultado.getTransitos().size() + " tránsitos registrados"),
+                new Respuesta("resultadoLote", new ResultadoLoteDTO(resultado.getTransitos().size(), errores)));
+    }
 }
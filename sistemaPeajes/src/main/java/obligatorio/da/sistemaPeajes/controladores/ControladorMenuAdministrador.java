@@ -1,17 +1,28 @@
 package obligatorio.da.sistemaPeajes.controladores;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpSession;
 import obligatorio.da.sistemaPeajes.dominio.Administrador;
+import obligatorio.da.sistemaPeajes.dominio.AlmacenTransitos;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
+import obligatorio.da.sistemaPeajes.dominio.Puesto;
+import obligatorio.da.sistemaPeajes.dtos.RecaudacionPuestoDTO;
+import obligatorio.da.sistemaPeajes.servicios.Fachada;
 import obligatorio.da.sistemaPeajes.utils.ConexionNavegador;
 import obligatorio.da.sistemaPeajes.utils.Respuesta;
 
@@ -46,5 +57,40 @@ public class ControladorMenuAdministrador {
          return Respuesta.lista(new Respuesta("nombreCompleto", usuario.getNombreCompleto()));
         
     }
-    
+
+    /**
+     * Obtiene lo recaudado en cada puesto entre dos fechas. Sin fechas, considera
+     * todos los tránsitos registrados.
+     * 
+     * @param sesionHttp La sesión HTTP actual
+     * @param desde Fecha/hora inicial (inclusive) en formato yyyy-MM-dd'T'HH:mm
+     * @param hasta Fecha/hora final (exclusive) en formato yyyy-MM-dd'T'HH:mm
+     * @return Lista de respuestas con la recaudación por puesto
+     */
+    @GetMapping("/recaudacion")
+    public List<Respuesta> recaudacion(HttpSession sesionHttp,
+            @RequestParam(name = "desde", required = false) String desde,
+            @RequestParam(name = "hasta", required = false) String hasta) {
+        if (sesionHttp.getAttribute(USUARIO_ADMINISTRADOR_STATE_KEY) == null) {
+            return Respuesta.lista(new Respuesta("usuarioNoAutenticado", "login.html"));
+        }
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm");
+        Date inicio;
+        Date fin;
+        try {
+            inicio = desde != null && !desde.isEmpty() ? sdf.parse(desde) : new Date(Long.MIN_VALUE);
+            fin = hasta != null && !hasta.isEmpty() ? sdf.parse(hasta) : new Date(Long.MAX_VALUE);
+        } catch (ParseException e) {
+            return Respuesta.lista(new Respuesta("error", "Formato de fecha inválido. Use: yyyy-MM-dd'T'HH:mm"));
+        }
+
+        Map<Puesto, AlmacenTransitos.Recaudacion> recaudacion =
+                Fachada.getInstancia().obtenerRecaudacionPorPuesto(inicio, fin);
+        List<RecaudacionPuestoDTO> recaudacionDTO = new ArrayList<>();
+        for (Map.Entry<Puesto, AlmacenTransitos.Recaudacion> entrada : recaudacion.entrySet()) {
+            recaudacionDTO.add(new RecaudacionPuestoDTO(entrada.getKey().getNombre(),
+                    entrada.getValue().getCantidadTransitos(), Dinero.aDouble(entrada.getValue().getMonto())));
+        }
+        return Respuesta.lista(new Respuesta("recaudacionPorPuesto", recaudacionDTO));
+    }
 }
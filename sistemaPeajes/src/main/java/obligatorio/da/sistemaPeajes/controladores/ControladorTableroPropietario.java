@@ -1,33 +1,43 @@
 package obligatorio.da.sistemaPeajes.controladores;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.SessionAttribute;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import excepciones.PeajeException;
+import jakarta.annotation.PreDestroy;
 import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.BufferNotificaciones;
+import obligatorio.da.sistemaPeajes.dominio.HistorialTransitos;
 import obligatorio.da.sistemaPeajes.dominio.Notificacion;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
 import obligatorio.da.sistemaPeajes.dominio.Transito;
 import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
 import obligatorio.da.sistemaPeajes.dtos.BonificacionDTO;
 import obligatorio.da.sistemaPeajes.dtos.NotificacionDTO;
+import obligatorio.da.sistemaPeajes.dtos.PaginaNotificacionesDTO;
+import obligatorio.da.sistemaPeajes.dtos.PaginaTransitosDTO;
 import obligatorio.da.sistemaPeajes.dtos.PropietarioDTO;
 import obligatorio.da.sistemaPeajes.dtos.TransitoDTO;
 import obligatorio.da.sistemaPeajes.dtos.VehiculoResumenDTO;
 import obligatorio.da.sistemaPeajes.servicios.Fachada;
 import obligatorio.da.sistemaPeajes.utils.ConexionNavegador;
+import obligatorio.da.sistemaPeajes.utils.DespachadorSSE;
 import obligatorio.da.sistemaPeajes.utils.Respuesta;
-import observador.Observable;
-import observador.Observador;
 
 /**
  * Controlador REST para el tablero de control del propietario.
@@ -50,19 +60,56 @@ import observador.Observador;
  * Cursos alternativos:
  * 2) En caso de que el propietario no tenga notificaciones se muestra mensaje
  * "No hay notificaciones para borrar"
+ * 
+ * Al iniciar la vista se envía el tablero completo; luego, por SSE, solo se
+ * envían los cambios (el tránsito nuevo, el saldo actualizado, la notificación
+ * nueva, etc.). Cada envío lleva un número de secuencia para que la vista
+ * detecte si se perdió alguno y en ese caso vuelva a pedir el tablero completo.
+ * Los eventos de un mismo tránsito (saldo, tránsito y notificaciones) se
+ * acumulan durante una ventana breve y se envían en un único mensaje.
  */
 @RestController
 @RequestMapping("/usuarios/propietarios/tablero")
 @Scope("session") // Define el alcance de la sesión para este controlador
-public class ControladorTableroPropietario implements Observador {
+public class ControladorTableroPropietario {
 
     private static final String USUARIO_PROPIETARIO_STATE_KEY = "usuarioPropietario";
 
+    // Tránsitos por página del historial (la vista pide las anteriores al hacer scroll)
+    private static final int TRANSITOS_POR_PAGINA = 20;
+    private static final int MAXIMO_TRANSITOS_POR_PAGINA = 100;
+    private static final int NOTIFICACIONES_POR_PAGINA = 20;
+    private static final int MAXIMO_NOTIFICACIONES_POR_PAGINA = 100;
+
     private Propietario propietarioActual; // El propietario que está siendo observado
 
+    // Lo que ya se envió a la vista, para enviar solo los cambios
+    // Número del último envío (0 = tablero completo). Es atómico porque un envío
+    // descartado lo avanza sin tomar el monitor del controlador
+    private final AtomicInteger secuencia = new AtomicInteger();
+    private int transitosEnviados;
+    private int notificacionesEnviadas;
+    private int bonificacionesEnviadas;
+
     @Autowired
     private ConexionNavegador conexionNavegador;
 
+    @Autowired
+    private DespachadorSSE despachador;
+
+    // Los eventos recibidos dentro de esta ventana se envían juntos en un solo mensaje
+    @Value("${peajes.sse.ventana-coalescencia-ms:50}")
+    private long ventanaCoalescenciaMs;
+
+    // Tipos de cambio pendientes de enviar (combinación de los valores CAMBIO_*)
+    private static final int CAMBIO_DATOS = 1;
+    private static final int CAMBIO_BONIFICACIONES = 1 << 1;
+    private static final int CAMBIO_NOTIFICACIONES = 1 << 2;
+    private static final int NOTIFICACIONES_BORRADAS = 1 << 3;
+    private static final int CAMBIO_TRANSITOS = 1 << 4;
+
+    private final AtomicInteger cambiosPendientes = new AtomicInteger();
+
     /**
      * Endpoint para establecer la conexión SSE (Server-Sent Events).
      * Permite recibir actualizaciones en tiempo real del propietario.
@@ -84,7 +131,7 @@ public class ControladorTableroPropietario implements Observador {
      * @return Lista de respuestas con toda la información del tablero
      */
     @GetMapping("/vistaConectada")
-    public List<Respuesta> inicializarVista(
+    public synchronized List<Respuesta> inicializarVista(
             @SessionAttribute(name = USUARIO_PROPIETARIO_STATE_KEY, required = false) Propietario propietario) {
 
         // Validación de sesión
@@ -105,7 +152,12 @@ public class ControladorTableroPropietario implements Observador {
         suscribirseAPropietario(propietario);
 
         // Retornar información inicial completa (PASO 1 del CU)
+        // La secuencia vuelve a 0: los cambios siguientes se numeran desde 1. Los
+        // cambios pendientes ya quedan incluidos en el tablero completo
+        cambiosPendientes.set(0);
+        secuencia.set(0);
         return Respuesta.lista(
+                new Respuesta("secuencia", 0),
                 datosPropietario(propietario),
                 bonificacionesAsignadas(propietario),
                 vehiculosRegistrados(propietario),
@@ -121,6 +173,71 @@ public class ControladorTableroPropietario implements Observador {
         desuscribirObservadorDePropietario();
     }
 
+    /**
+     * Al terminar la sesión (por ejemplo, si expira sin que se cierre la vista)
+     * se desuscribe del propietario.
+     */
+    @PreDestroy
+    public void sesionTerminada() {
+        desuscribirObservadorDePropietario();
+    }
+
+    /**
+     * Endpoint para obtener tránsitos más antiguos que los ya mostrados.
+     * Devuelve a lo sumo "limite" tránsitos ordenados por fecha/hora descendente a
+     * partir del cursor recibido con la página anterior.
+     * 
+     * @param propietario El propietario logueado
+     * @param cursor El cursor de la página anterior (vacío para los más recientes)
+     * @param limite La cantidad de tránsitos a obtener
+     * @return La página de tránsitos con el cursor de la siguiente
+     */
+    @GetMapping("/transitos")
+    public List<Respuesta> transitosAnteriores(
+            @SessionAttribute(name = USUARIO_PROPIETARIO_STATE_KEY, required = false) Propietario propietario,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TRANSITOS_POR_PAGINA) int limite) {
+
+        if (propietario == null) {
+            return Respuesta.lista(new Respuesta("usuarioNoAutenticado", "login.html"));
+        }
+        try {
+            int tamanio = Math.max(1, Math.min(limite, MAXIMO_TRANSITOS_POR_PAGINA));
+            HistorialTransitos.Pagina pagina = Fachada.getInstancia()
+                    .obtenerPaginaTransitosPropietario(propietario, cursor, tamanio);
+            return Respuesta.lista(new Respuesta("transitosAnteriores", new PaginaTransitosDTO(pagina)));
+        } catch (PeajeException e) {
+            return Respuesta.lista(new Respuesta("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint para obtener notificaciones más antiguas que las ya mostradas.
+     * 
+     * @param propietario El propietario logueado
+     * @param cursor El cursor de la página anterior (vacío para las más recientes)
+     * @param limite La cantidad de notificaciones a obtener
+     * @return La página de notificaciones con el cursor de la siguiente
+     */
+    @GetMapping("/notificaciones")
+    public List<Respuesta> notificacionesAnteriores(
+            @SessionAttribute(name = USUARIO_PROPIETARIO_STATE_KEY, required = false) Propietario propietario,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + NOTIFICACIONES_POR_PAGINA) int limite) {
+
+        if (propietario == null) {
+            return Respuesta.lista(new Respuesta("usuarioNoAutenticado", "login.html"));
+        }
+        try {
+            int tamanio = Math.max(1, Math.min(limite, MAXIMO_NOTIFICACIONES_POR_PAGINA));
+            BufferNotificaciones.Pagina pagina = Fachada.getInstancia()
+                    .obtenerPaginaNotificacionesDePropietario(propietario, cursor, tamanio);
+            return Respuesta.lista(new Respuesta("notificacionesAnteriores", new PaginaNotificacionesDTO(pagina)));
+        } catch (PeajeException e) {
+            return Respuesta.lista(new Respuesta("error", e.getMessage()));
+        }
+    }
+
     /**
      * Endpoint para borrar notificaciones.
      * 
@@ -160,7 +277,7 @@ public class ControladorTableroPropietario implements Observador {
             // Curso normal: Se borraron exitosamente
             return Respuesta.lista(
                     new Respuesta("exito", "Notificaciones borradas correctamente"),
-                    new Respuesta("notificaciones", new ArrayList<>()) // Lista vacía
+                    new Respuesta("notificaciones", PaginaNotificacionesDTO.vacia())
             );
 
         } catch (Exception e) {
@@ -187,9 +304,11 @@ public class ControladorTableroPropietario implements Observador {
      */
     private Respuesta bonificacionesAsignadas(Propietario propietario) {
         List<BonificacionDTO> dtos = new ArrayList<>();
-        for (AsignacionBonificacion ab : propietario.getBonificaciones()) {
+        List<AsignacionBonificacion> bonificaciones = propietario.getBonificaciones();
+        for (AsignacionBonificacion ab : bonificaciones) {
             dtos.add(new BonificacionDTO(ab));
         }
+        bonificacionesEnviadas = bonificaciones.size();
         return new Respuesta("bonificacionesAsignadas", dtos);
     }
 
@@ -202,14 +321,7 @@ public class ControladorTableroPropietario implements Observador {
     private Respuesta vehiculosRegistrados(Propietario propietario) {
         List<VehiculoResumenDTO> dtos = new ArrayList<>();
         for (Vehiculo v : propietario.getVehiculos()) {
-
-            int cantidad = Fachada.getInstancia()
-                    .contarTransitosDeVehiculo(propietario, v);
-
-            double montoTotal = Fachada.getInstancia()
-                    .totalGastadoPorVehiculo(propietario, v);
-
-            dtos.add(new VehiculoResumenDTO(v, cantidad, montoTotal));
+            dtos.add(new VehiculoResumenDTO(v, Fachada.getInstancia().obtenerResumenVehiculo(v)));
         }
         return new Respuesta("vehiculosRegistrados", dtos);
     }
@@ -221,27 +333,84 @@ public class ControladorTableroPropietario implements Observador {
      * tarifa,
      * nombre de la bonificación, monto de la bonificación, monto pagado, fecha y
      * hora.
+     * Se envía solo la primera página; las anteriores se piden a /transitos.
      */
     private Respuesta transitosRealizados(Propietario propietario) {
-        List<TransitoDTO> dtos = new ArrayList<>();
-
-        for (Transito t : Fachada.getInstancia().obtenerTransitosPropietario(propietario)) {
-            dtos.add(new TransitoDTO(t));
+        HistorialTransitos.Pagina pagina;
+        try {
+            pagina = Fachada.getInstancia().obtenerPaginaTransitosPropietario(propietario, null,
+                    TRANSITOS_POR_PAGINA);
+        } catch (PeajeException e) {
+            // Sin cursor no se valida nada
+            throw new IllegalStateException(e);
         }
-        return new Respuesta("transitosRealizados", dtos);
+        transitosEnviados = pagina.getTotalRegistrados();
+        return new Respuesta("transitosRealizados", new PaginaTransitosDTO(pagina));
     }
 
     /**
      * PASO 1 del CU: Tabla de notificaciones del sistema ordenados por fecha/hora
      * descendente
      * Información: Fecha y hora, mensaje
+     * Se envía solo la primera página; las anteriores se piden a /notificaciones.
      */
     private Respuesta notificaciones(Propietario propietario) {
-        List<NotificacionDTO> dtos = new ArrayList<>();
-        for (Notificacion n : Fachada.getInstancia().obtenerNotificacionesDePropietario(propietario)) {
-            dtos.add(new NotificacionDTO(n));
+        BufferNotificaciones.Pagina pagina;
+        try {
+            pagina = Fachada.getInstancia().obtenerPaginaNotificacionesDePropietario(propietario, null,
+                    NOTIFICACIONES_POR_PAGINA);
+        } catch (PeajeException e) {
+            // Sin cursor no se valida nada
+            throw new IllegalStateException(e);
+        }
+        notificacionesEnviadas = pagina.getTotalRegistradas();
+        return new Respuesta("notificaciones", new PaginaNotificacionesDTO(pagina));
+    }
+
+    // ==========================================================
+    // CAMBIOS DEL TABLERO (envíos por SSE)
+    // ==========================================================
+
+    /**
+     * Tránsitos registrados desde el último envío, uno por respuesta, seguidos del
+     * resumen actualizado de cada vehículo involucrado.
+     */
+    private void agregarTransitosNuevos(Propietario propietario, List<Respuesta> cambios) {
+        List<Transito> nuevos = Fachada.getInstancia().obtenerTransitosPropietarioDesde(propietario, transitosEnviados);
+        transitosEnviados += nuevos.size();
+
+        Set<Vehiculo> vehiculos = new LinkedHashSet<>();
+        for (Transito t : nuevos) {
+            cambios.add(new Respuesta("transitoAgregado", new TransitoDTO(t)));
+            vehiculos.add(t.getVehiculo());
+        }
+        for (Vehiculo v : vehiculos) {
+            cambios.add(new Respuesta("vehiculoActualizado",
+                    new VehiculoResumenDTO(v, Fachada.getInstancia().obtenerResumenVehiculo(v))));
+        }
+    }
+
+    /**
+     * Notificaciones registradas desde el último envío.
+     */
+    private void agregarNotificacionesNuevas(Propietario propietario, List<Respuesta> cambios) {
+        List<Notificacion> nuevas = Fachada.getInstancia().obtenerNotificacionesDePropietarioDesde(propietario,
+                notificacionesEnviadas);
+        notificacionesEnviadas += nuevas.size();
+        for (Notificacion n : nuevas) {
+            cambios.add(new Respuesta("notificacionAgregada", new NotificacionDTO(n)));
+        }
+    }
+
+    /**
+     * Bonificaciones asignadas desde el último envío.
+     */
+    private void agregarBonificacionesNuevas(Propietario propietario, List<Respuesta> cambios) {
+        List<AsignacionBonificacion> bonificaciones = propietario.getBonificaciones();
+        for (int i = bonificacionesEnviadas; i < bonificaciones.size(); i++) {
+            cambios.add(new Respuesta("bonificacionAgregada", new BonificacionDTO(bonificaciones.get(i))));
         }
-        return new Respuesta("notificaciones", dtos);
+        bonificacionesEnviadas = bonificaciones.size();
     }
 
     // ==================== Métodos del patrón Observer ====================
@@ -256,8 +425,22 @@ public class ControladorTableroPropietario implements Observador {
 
         // Suscribirse al nuevo propietario
         propietarioActual = propietario;
-        propietario.agregarObservador(this);
-        Fachada.getInstancia().agregarObservador(this);
+        // Las lambdas reciben el controlador en lugar de capturarlo, para que el
+        // propietario no retenga la sesión
+        propietario.suscribir(this, Propietario.Eventos.EstadoCambiado.class,
+                (controlador, evento) -> controlador.marcarCambio(CAMBIO_DATOS));
+        propietario.suscribir(this, Propietario.Eventos.SaldoModificado.class,
+                (controlador, evento) -> controlador.marcarCambio(CAMBIO_DATOS));
+        propietario.suscribir(this, Propietario.Eventos.BonificacionAsignada.class,
+                (controlador, evento) -> controlador.marcarCambio(CAMBIO_BONIFICACIONES));
+        propietario.suscribir(this, Propietario.Eventos.NotificacionAgregada.class,
+                (controlador, evento) -> controlador.marcarCambio(CAMBIO_NOTIFICACIONES));
+        propietario.suscribir(this, Propietario.Eventos.NotificacionesBorradas.class,
+                (controlador, evento) -> controlador.marcarCambio(NOTIFICACIONES_BORRADAS));
+        propietario.suscribir(this, Propietario.Eventos.TransitoRegistrado.class,
+                (controlador, evento) -> controlador.marcarCambio(CAMBIO_TRANSITOS));
+        propietario.suscribir(this, Propietario.Eventos.TransitosRegistrados.class,
+                (controlador, evento) -> controlador.marcarCambio(CAMBIO_TRANSITOS));
     }
 
     /**
@@ -265,43 +448,76 @@ public class ControladorTableroPropietario implements Observador {
      */
     private void desuscribirObservadorDePropietario() {
         if (propietarioActual != null) {
-            propietarioActual.quitarObservador(this);
+            propietarioActual.desuscribir(this);
             propietarioActual = null;
         }
-        Fachada.getInstancia().quitarObservador(this);
     }
 
     /**
-     * Método del patrón Observer que se ejecuta cuando el propietario notifica un
-     * cambio.
-     * Envía las actualizaciones correspondientes al navegador mediante SSE.
+     * Se ejecuta cuando el propietario notifica un cambio al que el controlador
+     * está suscripto. Envía las actualizaciones correspondientes al navegador
+     * mediante SSE.
      * 
      * Cumple con el requerimiento:
      * "La información de todas las vistas debe actualizarse de manera automática,
      * sin necesidad de que el usuario indique que desea actualizar la información."
      * 
-     * @param evento El tipo de evento que ocurrió
-     * @param origen El objeto observable que generó el evento (no usado en esta
-     *               implementación)
+     * @param cambio El tipo de cambio (CAMBIO_DATOS, CAMBIO_TRANSITOS, etc.)
      */
-    @Override
-    public void actualizar(Object evento, Observable origen) {
-        if (propietarioActual != null) {
-            // Si hubo un cambio en el propietario, enviar los datos actualizados
-            if (Propietario.Eventos.ESTADO_CAMBIADO.equals(evento)
-                    || Propietario.Eventos.BONIFICACION_ASIGNADA.equals(evento)
-                    || Propietario.Eventos.SALDO_MODIFICADO.equals(evento)
-                    || Propietario.Eventos.NOTIFICACIONES_BORRADAS.equals(evento)
-                    || Fachada.Eventos.TRANSITO_REGISTRADO.equals(evento)) {
-
-                // Enviar TODA la información actualizada del tablero
-                conexionNavegador.enviarJSON(Respuesta.lista(
-                        datosPropietario(propietarioActual),
-                        bonificacionesAsignadas(propietarioActual),
-                        vehiculosRegistrados(propietarioActual),
-                        transitosRealizados(propietarioActual),
-                        notificaciones(propietarioActual)));
+    private void marcarCambio(int cambio) {
+        // Solo se marca el cambio: quien lo registró no espera a que se arme ni se
+        // envíe el mensaje. El primer cambio de la ventana programa el envío; los
+        // siguientes se acumulan en el mismo
+        if (cambiosPendientes.getAndUpdate(pendientes -> pendientes | cambio) == 0) {
+            if (ventanaCoalescenciaMs > 0) {
+                despachador.programar(this::encolarEnvio, ventanaCoalescenciaMs);
+            } else {
+                encolarEnvio();
             }
         }
     }
-}
\ No newline at end of file
+
+    private void encolarEnvio() {
+        // Se procesa en el hilo de la conexión, en orden con los demás envíos
+        if (!conexionNavegador.ejecutar(this::enviarCambios)) {
+            // Con la cola llena el envío se descarta. Se limpian los cambios para que
+            // el próximo cambio programe un envío nuevo, y se saltea un número de
+            // secuencia: al recibir ese envío la vista detecta el hueco y vuelve a
+            // pedir el tablero completo, que incluye lo descartado
+            cambiosPendientes.set(0);
+            secuencia.incrementAndGet();
+        }
+    }
+
+    /**
+     * Arma y envía en un único mensaje todos los cambios acumulados.
+     */
+    private synchronized void enviarCambios() {
+        int pendientes = cambiosPendientes.getAndSet(0);
+        if (propietarioActual == null || pendientes == 0) {
+            return;
+        }
+
+        // Enviar solo lo que cambió
+        List<Respuesta> cambios = new ArrayList<>();
+        if ((pendientes & CAMBIO_DATOS) != 0) {
+            cambios.add(datosPropietario(propietarioActual));
+        }
+        if ((pendientes & CAMBIO_BONIFICACIONES) != 0) {
+            agregarBonificacionesNuevas(propietarioActual, cambios);
+        }
+        if ((pendientes & CAMBIO_TRANSITOS) != 0) {
+            agregarTransitosNuevos(propietarioActual, cambios);
+        }
+        if ((pendientes & NOTIFICACIONES_BORRADAS) != 0) {
+            cambios.add(notificaciones(propietarioActual));
+        } else if ((pendientes & CAMBIO_NOTIFICACIONES) != 0) {
+            agregarNotificacionesNuevas(propietarioActual, cambios);
+        }
+
+        if (!cambios.isEmpty()) {
+            cambios.add(0, new Respuesta("secuencia", secuencia.incrementAndGet()));
+            conexionNavegador.enviarJSON(cambios);
+        }
+    }
+}
@@ -10,5 +10,9 @@ public class Administrador extends Usuario {
     public Administrador(String cedula, String contrasena, String nombreCompleto) {
         super(cedula, contrasena, nombreCompleto);
     }
+
+    public Administrador(String cedula, Credencial credencial, String nombreCompleto) {
+        super(cedula, credencial, nombreCompleto);
+    }
 }
 
@@ -0,0 +1,519 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import obligatorio.da.sistemaPeajes.utils.RegistroIndexado;
+
+/**
+ * Almacén compacto de todos los tránsitos registrados.
+ *
+ * Cada tránsito ocupa una posición en columnas de arreglos primitivos: el
+ * puesto, el vehículo, el propietario y la bonificación se guardan como
+ * identificadores enteros, la fecha/hora como milisegundos y el monto pagado en
+ * centésimos. Un tránsito ocupa así 32 bytes, sin objetos por tránsito que el
+ * recolector de basura deba recorrer. Los objetos Transito se construyen al
+ * consultarlos y no se conservan.
+ *
+ * Las columnas se dividen en bloques de tamaño fijo que solo admiten altas al
+ * final. Al llenarse, un bloque queda sellado (no se modifica más) y guarda la
+ * fecha/hora mínima y máxima de sus tránsitos, lo que permite saltearlo en las
+ * consultas por rango de fechas. Crecer solo agrega un bloque nuevo: nunca se
+ * copian los tránsitos ya registrados.
+ *
+ * Los bloques sellados con tránsitos anteriores a una fecha se pueden archivar
+ * fuera del heap (en un buffer directo), donde el recolector de basura no los
+ * recorre ni los copia. Las consultas leen indistintamente bloques en el heap y
+ * archivados.
+ *
+ * Es seguro para uso concurrente sin un bloqueo global: cada alta reserva su
+ * posición con una operación atómica y escribe su fila en paralelo con las
+ * demás. Las posiciones se publican en orden (un alta espera a que se publiquen
+ * las anteriores, que ya tienen su posición reservada), por lo que las consultas
+ * ven siempre un prefijo completo de tránsitos y no toman bloqueos. Todo lo que
+ * puede fallar (leer el tránsito, instalar el bloque) se hace antes de reservar:
+ * una posición reservada siempre se publica, y un alta que falla no deja
+ * esperando a las siguientes. Solo se toma el monitor del almacén para instalar
+ * un bloque nuevo o agrandar el arreglo de bloques, una vez cada
+ * {@code TAMANIO_BLOQUE} tránsitos.
+ */
+public class AlmacenTransitos {
+
+    // Tránsitos por bloque (potencia de 2, para ubicar una posición con desplazamientos)
+    private static final int BITS_BLOQUE = 14;
+    private static final int TAMANIO_BLOQUE = 1 << BITS_BLOQUE;
+    private static final int MASCARA_BLOQUE = TAMANIO_BLOQUE - 1;
+    // Vueltas de espera activa antes de ceder el procesador al publicar un alta
+    private static final int ESPERAS_ACTIVAS = 64;
+
+    private final RegistroIndexado<Puesto> puestos = new RegistroIndexado<>();
+    private final RegistroIndexado<Vehiculo> vehiculos = new RegistroIndexado<>();
+    private final RegistroIndexado<Propietario> propietarios = new RegistroIndexado<>();
+    private final RegistroIndexado<AsignacionBonificacion> bonificaciones = new RegistroIndexado<>();
+
+    // Solo se copia el arreglo de referencias a bloques, que es pequeño. Al
+    // archivar un bloque se publica un arreglo nuevo: las consultas en curso
+    // siguen leyendo el bloque en el heap, que no cambia
+    private volatile Bloque[] bloques = new Bloque[8];
+    private int archivados; // Bloques archivados fuera del heap, siempre los primeros
+    // Posiciones reservadas por las altas; las publicadas son las menores que cantidad
+    private final AtomicInteger reservadas = new AtomicInteger();
+    private volatile int cantidad;
+
+    /**
+     * Registra un tránsito. Puede invocarse desde varios hilos a la vez.
+     *
+     * @param transito El tránsito
+     * @return La posición del tránsito en el almacén, ya visible para las consultas
+     */
+    public int agregar(Transito transito) {
+        int idPuesto = puestos.identificador(transito.getPuesto());
+        int idVehiculo = vehiculos.identificador(transito.getVehiculo());
+        int idPropietario = propietarios.identificador(transito.getPropietario());
+        int idBonificacion = bonificaciones.identificador(transito.getBonificacionAplicada());
+        long marcaTiempo = transito.getMarcaTiempo();
+        long montoPagado = transito.getMontoPagado();
+
+        // El bloque se instala antes de reservar la posición: si falla (por ejemplo,
+        // sin memoria) no queda una posición reservada que nunca se publica
+        int posicion;
+        BloqueEnHeap bloque;
+        do {
+            posicion = reservadas.get();
+            if (posicion == Integer.MAX_VALUE) {
+                throw new IllegalStateException("El almacén de tránsitos está lleno");
+            }
+            bloque = bloqueParaEscribir(posicion >>> BITS_BLOQUE);
+        } while (!reservadas.compareAndSet(posicion, posicion + 1));
+
+        // Desde aquí nada puede fallar hasta publicar la posición
+        int i = posicion & MASCARA_BLOQUE;
+        bloque.agregar(i, idPuesto, idVehiculo, idPropietario, idBonificacion, marcaTiempo, montoPagado);
+
+        // Se publica en orden: las posiciones anteriores ya están reservadas y sus
+        // altas solo escriben su fila, por lo que la espera es breve. Si el hilo que
+        // debe publicar antes no está corriendo (más hilos que procesadores), se le
+        // cede el procesador en lugar de seguir esperando activamente
+        for (int intentos = 0; cantidad != posicion; intentos++) {
+            if (intentos < ESPERAS_ACTIVAS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        if (i == MASCARA_BLOQUE) {
+            // Última fila del bloque: todas las anteriores ya están escritas
+            bloque.sellar();
+        }
+        // Publica el tránsito (y el bloque nuevo, si lo hubo) a las consultas
+        cantidad = posicion + 1;
+        return posicion;
+    }
+
+    /**
+     * Obtiene el bloque en el heap donde se escribe una posición reservada,
+     * instalándolo si es el primer tránsito del bloque.
+     */
+    private BloqueEnHeap bloqueParaEscribir(int numeroBloque) {
+        Bloque[] actuales = bloques;
+        if (numeroBloque < actuales.length && actuales[numeroBloque] != null) {
+            // Un bloque con posiciones sin publicar todavía no puede estar archivado
+            return (BloqueEnHeap) actuales[numeroBloque];
+        }
+        synchronized (this) {
+            actuales = bloques;
+            if (numeroBloque >= actuales.length) {
+                int largo = actuales.length;
+                while (numeroBloque >= largo) {
+                    largo *= 2;
+                }
+                actuales = Arrays.copyOf(actuales, largo);
+            }
+            if (actuales[numeroBloque] == null) {
+                actuales[numeroBloque] = new BloqueEnHeap();
+            }
+            // Escritura volatile: publica el arreglo nuevo o el bloque instalado
+            bloques = actuales;
+            return (BloqueEnHeap) actuales[numeroBloque];
+        }
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @param posicion La posición de un tránsito registrado
+     * @return El tránsito reconstruido a partir de sus columnas
+     */
+    public Transito obtener(int posicion) {
+        Bloque bloque = bloque(posicion);
+        int i = posicion & MASCARA_BLOQUE;
+        return new Transito(
+                puestos.obtener(bloque.puesto(i)),
+                vehiculos.obtener(bloque.vehiculo(i)),
+                propietarios.obtener(bloque.propietario(i)),
+                bonificaciones.obtener(bloque.bonificacion(i)),
+                bloque.montoPagado(i),
+                bloque.marcaTiempo(i));
+    }
+
+    /**
+     * @param posicion La posición de un tránsito registrado
+     * @return La fecha/hora del tránsito en milisegundos
+     */
+    public long marcaTiempo(int posicion) {
+        return bloque(posicion).marcaTiempo(posicion & MASCARA_BLOQUE);
+    }
+
+    /**
+     * @param posicion La posición de un tránsito registrado
+     * @return El puesto del tránsito
+     */
+    public Puesto puesto(int posicion) {
+        return puestos.obtener(bloque(posicion).puesto(posicion & MASCARA_BLOQUE));
+    }
+
+    /**
+     * @param posicion La posición de un tránsito registrado
+     * @return El vehículo del tránsito
+     */
+    public Vehiculo vehiculo(int posicion) {
+        return vehiculos.obtener(bloque(posicion).vehiculo(posicion & MASCARA_BLOQUE));
+    }
+
+    /**
+     * @param posicion La posición de un tránsito registrado
+     * @return Si al tránsito se le aplicó una bonificación
+     */
+    public boolean tieneBonificacion(int posicion) {
+        return bloque(posicion).bonificacion(posicion & MASCARA_BLOQUE) != RegistroIndexado.SIN_ID;
+    }
+
+    /**
+     * @param posicion La posición de un tránsito registrado
+     * @return El monto pagado en el tránsito, en centésimos
+     */
+    public long montoPagado(int posicion) {
+        return bloque(posicion).montoPagado(posicion & MASCARA_BLOQUE);
+    }
+
+    private Bloque bloque(int posicion) {
+        // Leer la cantidad antes que los bloques garantiza ver el tránsito registrado
+        if (posicion < 0 || posicion >= cantidad) {
+            throw new IndexOutOfBoundsException("No hay un tránsito en la posición " + posicion);
+        }
+        return bloques[posicion >>> BITS_BLOQUE];
+    }
+
+    /**
+     * Archiva fuera del heap los bloques sellados cuyos tránsitos son todos
+     * anteriores a una fecha. Se archivan en orden, hasta el primer bloque que
+     * tenga algún tránsito posterior.
+     *
+     * @param limite Fecha/hora en milisegundos
+     * @return La cantidad de bloques archivados
+     */
+    public synchronized int archivarAnterioresA(long limite) {
+        Bloque[] actuales = bloques;
+        int sellados = cantidad >>> BITS_BLOQUE;
+        int nuevos = 0;
+        Bloque[] reemplazo = null;
+        while (archivados < sellados && actuales[archivados].maximo() < limite) {
+            if (reemplazo == null) {
+                reemplazo = actuales.clone();
+            }
+            reemplazo[archivados] = new BloqueArchivado((BloqueEnHeap) actuales[archivados]);
+            archivados++;
+            nuevos++;
+        }
+        if (reemplazo != null) {
+            bloques = reemplazo;
+        }
+        return nuevos;
+    }
+
+    /**
+     * @return La cantidad de tránsitos archivados fuera del heap
+     */
+    public synchronized int cantidadArchivados() {
+        return archivados * TAMANIO_BLOQUE;
+    }
+
+    // ==================== Consultas analíticas ====================
+
+    /**
+     * Calcula lo recaudado en cada puesto por los tránsitos con fecha/hora en un rango.
+     *
+     * Recorre las columnas de fecha/hora, puesto y monto de cada bloque (en el heap
+     * o archivado) con bucles simples, sin construir objetos por tránsito. Los bloques
+     * sellados fuera del rango se saltean sin leerlos y los que están enteros
+     * dentro del rango se suman sin evaluar la condición por tránsito.
+     *
+     * @param desde Fecha/hora mínima en milisegundos (inclusive)
+     * @param hasta Fecha/hora máxima en milisegundos (exclusive)
+     * @return La recaudación de cada puesto con tránsitos en el rango, en orden de primer tránsito
+     */
+    public Map<Puesto, Recaudacion> recaudacionPorPuesto(long desde, long hasta) {
+        int total = cantidad;
+        Bloque[] actuales = bloques;
+        // Los identificadores de los tránsitos publicados son menores que la cantidad registrada
+        int cantidadPuestos = puestos.cantidad();
+        long[] montos = new long[cantidadPuestos];
+        int[] cantidades = new int[cantidadPuestos];
+
+        for (int numeroBloque = 0; numeroBloque * TAMANIO_BLOQUE < total; numeroBloque++) {
+            Bloque bloque = actuales[numeroBloque];
+            int limite = Math.min(TAMANIO_BLOQUE, total - numeroBloque * TAMANIO_BLOQUE);
+            boolean sellado = limite == TAMANIO_BLOQUE;
+            if (sellado && (bloque.maximo() < desde || bloque.minimo() >= hasta)) {
+                continue;
+            }
+            if (sellado && bloque.minimo() >= desde && bloque.maximo() < hasta) {
+                bloque.sumarPorPuesto(limite, montos, cantidades);
+            } else {
+                bloque.sumarPorPuesto(limite, desde, hasta, montos, cantidades);
+            }
+        }
+
+        Map<Puesto, Recaudacion> recaudacion = new LinkedHashMap<>();
+        for (int id = 0; id < cantidadPuestos; id++) {
+            if (cantidades[id] > 0) {
+                recaudacion.put(puestos.obtener(id), new Recaudacion(cantidades[id], montos[id]));
+            }
+        }
+        return recaudacion;
+    }
+
+    /**
+     * Cantidad de tránsitos y monto recaudado.
+     */
+    @Getter
+    public static class Recaudacion {
+        private final int cantidadTransitos;
+        private final long monto; // En centésimos
+
+        public Recaudacion(int cantidadTransitos, long monto) {
+            this.cantidadTransitos = cantidadTransitos;
+            this.monto = monto;
+        }
+    }
+
+    /**
+     * Bloque de tamaño fijo con una columna por campo.
+     */
+    private abstract static class Bloque {
+
+        abstract int puesto(int i);
+
+        abstract int vehiculo(int i);
+
+        abstract int propietario(int i);
+
+        abstract int bonificacion(int i);
+
+        abstract long marcaTiempo(int i);
+
+        abstract long montoPagado(int i);
+
+        // Fecha/hora mínima y máxima del bloque; solo son válidas una vez sellado
+        abstract long minimo();
+
+        abstract long maximo();
+
+        abstract void sumarPorPuesto(int limite, long[] montos, int[] cantidades);
+
+        abstract void sumarPorPuesto(int limite, long desde, long hasta, long[] montos, int[] cantidades);
+    }
+
+    /**
+     * Bloque en el heap, en arreglos primitivos. Cada alta escribe solo la fila
+     * que reservó; una vez lleno, la última alta lo sella calculando la fecha/hora
+     * mínima y máxima antes de publicar su fila.
+     */
+    private static final class BloqueEnHeap extends Bloque {
+        private final int[] puesto = new int[TAMANIO_BLOQUE];
+        private final int[] vehiculo = new int[TAMANIO_BLOQUE];
+        private final int[] propietario = new int[TAMANIO_BLOQUE];
+        private final int[] bonificacion = new int[TAMANIO_BLOQUE];
+        private final long[] marcaTiempo = new long[TAMANIO_BLOQUE];
+        private final long[] montoPagado = new long[TAMANIO_BLOQUE]; // En centésimos
+        private long minimo = Long.MAX_VALUE;
+        private long maximo = Long.MIN_VALUE;
+
+        void agregar(int i, int idPuesto, int idVehiculo, int idPropietario, int idBonificacion,
+                long marca, long monto) {
+            puesto[i] = idPuesto;
+            vehiculo[i] = idVehiculo;
+            propietario[i] = idPropietario;
+            bonificacion[i] = idBonificacion;
+            marcaTiempo[i] = marca;
+            montoPagado[i] = monto;
+        }
+
+        void sellar() {
+            long menor = Long.MAX_VALUE;
+            long mayor = Long.MIN_VALUE;
+            for (long marca : marcaTiempo) {
+                menor = Math.min(menor, marca);
+                mayor = Math.max(mayor, marca);
+            }
+            minimo = menor;
+            maximo = mayor;
+        }
+
+        @Override
+        int puesto(int i) {
+            return puesto[i];
+        }
+
+        @Override
+        int vehiculo(int i) {
+            return vehiculo[i];
+        }
+
+        @Override
+        int propietario(int i) {
+            return propietario[i];
+        }
+
+        @Override
+        int bonificacion(int i) {
+            return bonificacion[i];
+        }
+
+        @Override
+        long marcaTiempo(int i) {
+            return marcaTiempo[i];
+        }
+
+        @Override
+        long montoPagado(int i) {
+            return montoPagado[i];
+        }
+
+        @Override
+        long minimo() {
+            return minimo;
+        }
+
+        @Override
+        long maximo() {
+            return maximo;
+        }
+
+        @Override
+        void sumarPorPuesto(int limite, long[] montos, int[] cantidades) {
+            for (int i = 0; i < limite; i++) {
+                montos[puesto[i]] += montoPagado[i];
+                cantidades[puesto[i]]++;
+            }
+        }
+
+        @Override
+        void sumarPorPuesto(int limite, long desde, long hasta, long[] montos, int[] cantidades) {
+            for (int i = 0; i < limite; i++) {
+                // Sin saltos: los tránsitos fuera del rango suman cero
+                int enRango = (marcaTiempo[i] >= desde & marcaTiempo[i] < hasta) ? 1 : 0;
+                montos[puesto[i]] += montoPagado[i] * enRango;
+                cantidades[puesto[i]] += enRango;
+            }
+        }
+    }
+
+    /**
+     * Bloque sellado archivado fuera del heap. Las columnas se copian, en el mismo
+     * orden, a un único buffer directo que se libera cuando el bloque deja de
+     * usarse. Es inmutable: las lecturas usan posiciones absolutas y pueden
+     * hacerse desde varios hilos.
+     */
+    private static final class BloqueArchivado extends Bloque {
+        private static final int COLUMNA_VEHICULO = TAMANIO_BLOQUE * Integer.BYTES;
+        private static final int COLUMNA_PROPIETARIO = 2 * TAMANIO_BLOQUE * Integer.BYTES;
+        private static final int COLUMNA_BONIFICACION = 3 * TAMANIO_BLOQUE * Integer.BYTES;
+        private static final int COLUMNA_MARCA_TIEMPO = 4 * TAMANIO_BLOQUE * Integer.BYTES;
+        private static final int COLUMNA_MONTO = COLUMNA_MARCA_TIEMPO + TAMANIO_BLOQUE * Long.BYTES;
+        private static final int TAMANIO = COLUMNA_MONTO + TAMANIO_BLOQUE * Long.BYTES;
+
+        private final ByteBuffer datos;
+        private final long minimo;
+        private final long maximo;
+
+        BloqueArchivado(BloqueEnHeap bloque) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO).order(ByteOrder.nativeOrder());
+            buffer.asIntBuffer().put(bloque.puesto).put(bloque.vehiculo).put(bloque.propietario)
+                    .put(bloque.bonificacion);
+            buffer.position(COLUMNA_MARCA_TIEMPO);
+            buffer.asLongBuffer().put(bloque.marcaTiempo).put(bloque.montoPagado);
+            buffer.clear();
+            this.datos = buffer;
+            this.minimo = bloque.minimo;
+            this.maximo = bloque.maximo;
+        }
+
+        @Override
+        int puesto(int i) {
+            return datos.getInt(i * Integer.BYTES);
+        }
+
+        @Override
+        int vehiculo(int i) {
+            return datos.getInt(COLUMNA_VEHICULO + i * Integer.BYTES);
+        }
+
+        @Override
+        int propietario(int i) {
+            return datos.getInt(COLUMNA_PROPIETARIO + i * Integer.BYTES);
+        }
+
+        @Override
+        int bonificacion(int i) {
+            return datos.getInt(COLUMNA_BONIFICACION + i * Integer.BYTES);
+        }
+
+        @Override
+        long marcaTiempo(int i) {
+            return datos.getLong(COLUMNA_MARCA_TIEMPO + i * Long.BYTES);
+        }
+
+        @Override
+        long montoPagado(int i) {
+            return datos.getLong(COLUMNA_MONTO + i * Long.BYTES);
+        }
+
+        @Override
+        long minimo() {
+            return minimo;
+        }
+
+        @Override
+        long maximo() {
+            return maximo;
+        }
+
+        @Override
+        void sumarPorPuesto(int limite, long[] montos, int[] cantidades) {
+            for (int i = 0; i < limite; i++) {
+                int idPuesto = puesto(i);
+                montos[idPuesto] += montoPagado(i);
+                cantidades[idPuesto]++;
+            }
+        }
+
+        @Override
+        void sumarPorPuesto(int limite, long desde, long hasta, long[] montos, int[] cantidades) {
+            for (int i = 0; i < limite; i++) {
+                long marca = marcaTiempo(i);
+                int enRango = (marca >= desde & marca < hasta) ? 1 : 0;
+                int idPuesto = puesto(i);
+                montos[idPuesto] += montoPagado(i) * enRango;
+                cantidades[idPuesto] += enRango;
+            }
+        }
+    }
+}
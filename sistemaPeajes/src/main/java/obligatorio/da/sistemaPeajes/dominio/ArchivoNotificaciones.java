@@ -0,0 +1,10 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+/**
+ * Destino de las notificaciones que un propietario descarta por superar la
+ * cantidad que conserva en memoria.
+ */
+public interface ArchivoNotificaciones {
+
+    void archivar(Propietario propietario, Notificacion notificacion);
+}
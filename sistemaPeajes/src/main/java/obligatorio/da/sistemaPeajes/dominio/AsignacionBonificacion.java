@@ -24,7 +24,7 @@ public class AsignacionBonificacion {
      * @param tarifaBase
      * @return 
      */
-    public double calcularBonificacion(double tarifaBase) {
+    public long calcularBonificacion(long tarifaBase) {
         return bonificacion.calcularBonificacion(puesto, tarifaBase);
     }
 }
\ No newline at end of file
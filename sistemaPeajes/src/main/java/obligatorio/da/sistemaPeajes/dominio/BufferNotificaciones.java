@@ -0,0 +1,131 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import excepciones.PeajeException;
+import lombok.Getter;
+
+/**
+ * Notificaciones de un propietario en un buffer circular de capacidad fija.
+ *
+ * Cada notificación tiene una posición absoluta (la cantidad de notificaciones
+ * registradas antes que ella), que no cambia aunque se descarten las más
+ * antiguas; así la vista puede pedir las nuevas o la página siguiente sin que el
+ * descarte corra las posiciones. Al llenarse el buffer, agregar devuelve la
+ * notificación descartada para que se pueda archivar.
+ *
+ * No es seguro para uso concurrente: se accede con el monitor del propietario tomado.
+ */
+public class BufferNotificaciones {
+
+    // La notificación con posición p está en elementos[p % elementos.length]
+    private final Notificacion[] elementos;
+    private int cantidad; // Notificaciones conservadas
+    private int total;    // Notificaciones registradas (posición de la próxima)
+
+    public BufferNotificaciones(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.elementos = new Notificacion[capacidad];
+    }
+
+    /**
+     * Agrega una notificación.
+     *
+     * @param notificacion La notificación
+     * @return La notificación más antigua si se descartó para hacer lugar, o null
+     */
+    public Notificacion agregar(Notificacion notificacion) {
+        int indice = total % elementos.length;
+        Notificacion descartada = cantidad == elementos.length ? elementos[indice] : null;
+        elementos[indice] = notificacion;
+        total++;
+        if (cantidad < elementos.length) {
+            cantidad++;
+        }
+        return descartada;
+    }
+
+    public boolean isEmpty() {
+        return cantidad == 0;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Borra las notificaciones conservadas. Las posiciones siguen contando desde
+     * el total registrado.
+     */
+    public void vaciar() {
+        Arrays.fill(elementos, null);
+        cantidad = 0;
+    }
+
+    /**
+     * @return Las notificaciones conservadas, en orden de registro
+     */
+    public List<Notificacion> enOrdenDeRegistro() {
+        return registradasDesde(0);
+    }
+
+    /**
+     * @param desde Cantidad de notificaciones ya conocidas
+     * @return Las notificaciones conservadas registradas después de esa posición, en orden de registro
+     */
+    public List<Notificacion> registradasDesde(int desde) {
+        int primera = Math.max(desde, total - cantidad);
+        List<Notificacion> resultado = new ArrayList<>(Math.max(0, total - primera));
+        for (int posicion = primera; posicion < total; posicion++) {
+            resultado.add(elementos[posicion % elementos.length]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene una página de notificaciones de la más reciente a la más antigua.
+     *
+     * @param cursor El cursor devuelto con la página anterior, o null para la primera
+     * @param limite La cantidad máxima de notificaciones de la página
+     * @return La página, con el cursor de la siguiente (null si no hay más)
+     * @throws PeajeException Si el cursor no es válido
+     */
+    public Pagina pagina(String cursor, int limite) throws PeajeException {
+        int antesDe = total;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                antesDe = Math.min(Integer.parseInt(cursor), total);
+            } catch (NumberFormatException e) {
+                throw new PeajeException("Cursor de notificaciones inválido");
+            }
+        }
+        int primeraConservada = total - cantidad;
+        int desde = Math.max(primeraConservada, antesDe - limite);
+        List<Notificacion> notificaciones = new ArrayList<>(Math.max(0, antesDe - desde));
+        for (int posicion = antesDe - 1; posicion >= desde; posicion--) {
+            notificaciones.add(elementos[posicion % elementos.length]);
+        }
+        String siguiente = desde > primeraConservada ? String.valueOf(desde) : null;
+        return new Pagina(notificaciones, siguiente, total);
+    }
+
+    /**
+     * Página de notificaciones de la más reciente a la más antigua.
+     */
+    @Getter
+    public static class Pagina {
+        private final List<Notificacion> notificaciones;
+        private final String cursorSiguiente;  // null si es la última página
+        private final int totalRegistradas;    // Notificaciones registradas al obtener la página
+
+        public Pagina(List<Notificacion> notificaciones, String cursorSiguiente, int totalRegistradas) {
+            this.notificaciones = notificaciones;
+            this.cursorSiguiente = cursorSiguiente;
+            this.totalRegistradas = totalRegistradas;
+        }
+    }
+}
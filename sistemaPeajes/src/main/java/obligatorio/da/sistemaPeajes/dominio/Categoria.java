@@ -1,5 +1,7 @@
 package obligatorio.da.sistemaPeajes.dominio;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,9 +9,14 @@ import lombok.Setter;
 @Setter
 public class Categoria {
 
+	// Generador de identificadores densos (0, 1, 2, ...) usados para indexar tarifas
+	private static final AtomicInteger siguienteId = new AtomicInteger();
+
+	private final int id;
 	private String nombre;
 	
 	public Categoria(String nombre) {
+		this.id = siguienteId.getAndIncrement();
 		this.nombre = nombre;
 	}
 }
@@ -0,0 +1,87 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Contraseña de un usuario guardada como hash con sal (PBKDF2). La contraseña en
+ * claro no se conserva: solo se puede verificar, y lo que se persiste (por ejemplo,
+ * en una instantánea) son la sal, el hash y la cantidad de iteraciones.
+ */
+public final class Credencial {
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int ITERACIONES = 100_000;
+    private static final int BYTES_SAL = 16;
+    private static final int BYTES_HASH = 32;
+
+    private static final SecureRandom aleatorio = new SecureRandom();
+
+    private final int iteraciones;
+    private final byte[] sal;
+    private final byte[] hash;
+
+    private Credencial(int iteraciones, byte[] sal, byte[] hash) {
+        this.iteraciones = iteraciones;
+        this.sal = sal;
+        this.hash = hash;
+    }
+
+    /**
+     * Crea la credencial de una contraseña con una sal nueva.
+     *
+     * @param contrasena La contraseña en claro
+     * @return La credencial
+     */
+    public static Credencial crear(String contrasena) {
+        byte[] sal = new byte[BYTES_SAL];
+        aleatorio.nextBytes(sal);
+        return new Credencial(ITERACIONES, sal, derivar(contrasena, sal, ITERACIONES, BYTES_HASH));
+    }
+
+    /**
+     * Reconstruye una credencial guardada (ver {@link #getSal()} y {@link #getHash()}).
+     */
+    public static Credencial restaurar(int iteraciones, byte[] sal, byte[] hash) {
+        return new Credencial(iteraciones, sal.clone(), hash.clone());
+    }
+
+    /**
+     * Verifica una contraseña en tiempo constante respecto de su contenido.
+     *
+     * @param contrasena La contraseña ingresada
+     * @return true si corresponde a esta credencial
+     */
+    public boolean verificar(String contrasena) {
+        return contrasena != null
+                && MessageDigest.isEqual(hash, derivar(contrasena, sal, iteraciones, hash.length));
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    public byte[] getSal() {
+        return sal.clone();
+    }
+
+    public byte[] getHash() {
+        return hash.clone();
+    }
+
+    private static byte[] derivar(String contrasena, byte[] sal, int iteraciones, int bytes) {
+        PBEKeySpec especificacion = new PBEKeySpec(contrasena.toCharArray(), sal, iteraciones, bytes * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(especificacion).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // Toda JVM incluye PBKDF2WithHmacSHA256
+            throw new IllegalStateException("No se pudo calcular el hash de la contraseña", e);
+        } finally {
+            especificacion.clearPassword();
+        }
+    }
+}
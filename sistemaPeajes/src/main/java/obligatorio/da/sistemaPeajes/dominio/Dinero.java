@@ -0,0 +1,66 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+/**
+ * Operaciones sobre montos de dinero.
+ *
+ * En el dominio todos los montos (saldos, tarifas, montos pagados y acumulados)
+ * son long con la cantidad de centésimos: la aritmética es exacta, no reserva
+ * objetos y los totales se calculan con sumas enteras. Los montos se convierten
+ * a double solo al armar los DTOs y al recibir montos desde afuera.
+ */
+public final class Dinero {
+
+    private static final long CENTESIMOS_POR_UNIDAD = 100;
+
+    private Dinero() {
+    }
+
+    /**
+     * @param monto Un monto en unidades, por ejemplo 120.50
+     * @return El monto en centésimos, redondeado al centésimo más cercano
+     */
+    public static long centesimos(double monto) {
+        return Math.round(monto * CENTESIMOS_POR_UNIDAD);
+    }
+
+    /**
+     * @param centesimos Un monto en centésimos
+     * @return El monto en unidades
+     */
+    public static double aDouble(long centesimos) {
+        return (double) centesimos / CENTESIMOS_POR_UNIDAD;
+    }
+
+    /**
+     * Calcula un porcentaje de un monto, redondeando al centésimo más cercano
+     * (los medios centésimos hacia arriba, también en montos negativos).
+     *
+     * @param centesimos Un monto en centésimos
+     * @param porcentaje El porcentaje, entre 0 y 100
+     * @return El porcentaje del monto en centésimos
+     */
+    public static long porcentaje(long centesimos, int porcentaje) {
+        // floorDiv y no la división entera, que trunca hacia cero con negativos
+        return Math.floorDiv(centesimos * porcentaje + 50, 100);
+    }
+
+    /**
+     * Formatea un monto con dos decimales y punto como separador, por ejemplo "1234.50".
+     *
+     * @param centesimos Un monto en centésimos
+     * @return El monto formateado
+     */
+    public static String formatear(long centesimos) {
+        long absoluto = Math.abs(centesimos);
+        long resto = absoluto % CENTESIMOS_POR_UNIDAD;
+        StringBuilder texto = new StringBuilder(24);
+        if (centesimos < 0) {
+            texto.append('-');
+        }
+        texto.append(absoluto / CENTESIMOS_POR_UNIDAD).append('.');
+        if (resto < 10) {
+            texto.append('0');
+        }
+        return texto.append(resto).toString();
+    }
+}
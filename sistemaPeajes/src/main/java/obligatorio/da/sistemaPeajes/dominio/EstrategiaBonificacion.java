@@ -1,7 +1,8 @@
 package obligatorio.da.sistemaPeajes.dominio;
 
 public interface EstrategiaBonificacion {
-    double calcularBonificacion(Puesto puesto, double tarifaBase);
+    // Montos en centésimos: recibe la tarifa base y devuelve el monto a pagar
+    long calcularBonificacion(Puesto puesto, long tarifaBase);
     String getNombre();
     String getPorcentaje();
 }
@@ -9,9 +9,9 @@ package obligatorio.da.sistemaPeajes.dominio;
 public class Exonerado implements EstrategiaBonificacion {
 
     @Override
-    public double calcularBonificacion(Puesto puesto, double tarifaBase) {
+    public long calcularBonificacion(Puesto puesto, long tarifaBase) {
         // Exonerado: 100% de descuento, no paga el tránsito.
-        return 0.0;
+        return 0;
     }
 
     @Override
@@ -18,9 +18,9 @@ package obligatorio.da.sistemaPeajes.dominio;
 public class Frecuente implements EstrategiaBonificacion {
 
     @Override
-    public double calcularBonificacion(Puesto puesto, double tarifaBase) {
+    public long calcularBonificacion(Puesto puesto, long tarifaBase) {
         // Frecuente: aplica un 50% de descuento sobre la tarifa base.
-        return tarifaBase * 0.5;
+        return Dinero.porcentaje(tarifaBase, 50);
     }
 
     @Override
@@ -0,0 +1,187 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import excepciones.PeajeException;
+import lombok.Getter;
+
+/**
+ * Historial de tránsitos de un propietario.
+ *
+ * Guarda solo las posiciones de sus tránsitos en el AlmacenTransitos: en orden
+ * de registro (para enviar a la vista solo los nuevos) y ordenadas por
+ * fecha/hora (para listarlos de más reciente a más antiguo sin ordenar en cada
+ * consulta). Ocupa 8 bytes por tránsito. Una página se obtiene con una búsqueda
+ * binaria del cursor, en O(log n + tamaño de página).
+ *
+ * No es seguro para uso concurrente: se accede con el monitor del propietario tomado.
+ */
+public class HistorialTransitos {
+
+    private final AlmacenTransitos almacen;
+
+    // Posiciones en el almacén, en orden de registro
+    private int[] posiciones = new int[8];
+    // Órdenes de registro (índices de posiciones) ordenados por fecha/hora ascendente;
+    // el orden de registro desempata los tránsitos con la misma fecha/hora
+    private int[] ordenPorFecha = new int[8];
+    private int cantidad;
+
+    public HistorialTransitos(AlmacenTransitos almacen) {
+        this.almacen = almacen;
+    }
+
+    /**
+     * @param posicion La posición del tránsito en el almacén
+     */
+    public void agregar(int posicion) {
+        if (cantidad == posiciones.length) {
+            posiciones = Arrays.copyOf(posiciones, cantidad * 2);
+            ordenPorFecha = Arrays.copyOf(ordenPorFecha, cantidad * 2);
+        }
+        posiciones[cantidad] = posicion;
+        // El nuevo tránsito va después de todos los de fecha/hora menor o igual;
+        // normalmente es el más reciente y queda al final sin mover nada
+        long marcaTiempo = almacen.marcaTiempo(posicion);
+        int destino = cantidad;
+        if (destino > 0 && marcaTiempo(destino - 1) > marcaTiempo) {
+            destino = primeroPosterior(marcaTiempo, cantidad);
+            System.arraycopy(ordenPorFecha, destino, ordenPorFecha, destino + 1, cantidad - destino);
+        }
+        ordenPorFecha[destino] = cantidad;
+        cantidad++;
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return Una copia de las posiciones en el almacén de los tránsitos, en orden de registro
+     */
+    public int[] posiciones() {
+        return Arrays.copyOf(posiciones, cantidad);
+    }
+
+    /**
+     * @param desde Cantidad de tránsitos ya conocidos
+     * @return Los tránsitos registrados después de esa posición, en orden de registro
+     */
+    public List<Transito> registradosDesde(int desde) {
+        List<Transito> transitos = new ArrayList<>(Math.max(cantidad - desde, 0));
+        for (int i = desde; i < cantidad; i++) {
+            transitos.add(almacen.obtener(posiciones[i]));
+        }
+        return transitos;
+    }
+
+    /**
+     * @return Todos los tránsitos ordenados por fecha/hora descendente
+     */
+    public List<Transito> masRecientesPrimero() {
+        List<Transito> transitos = new ArrayList<>(cantidad);
+        for (int i = cantidad - 1; i >= 0; i--) {
+            transitos.add(almacen.obtener(posiciones[ordenPorFecha[i]]));
+        }
+        return transitos;
+    }
+
+    /**
+     * Obtiene una página de tránsitos ordenados por fecha/hora descendente.
+     *
+     * @param cursor El cursor devuelto con la página anterior, o null para la primera
+     * @param limite La cantidad máxima de tránsitos de la página
+     * @return La página, con el cursor de la siguiente (null si no hay más)
+     * @throws PeajeException Si el cursor no es válido
+     */
+    public Pagina pagina(String cursor, int limite) throws PeajeException {
+        // Índice en ordenPorFecha del primer tránsito de la página
+        int inicio = cantidad - 1;
+        if (cursor != null && !cursor.isEmpty()) {
+            inicio = ultimoAnterior(cursor);
+        }
+        int fin = Math.max(inicio - limite, -1);
+        List<Transito> transitos = new ArrayList<>(inicio - fin);
+        for (int i = inicio; i > fin; i--) {
+            transitos.add(almacen.obtener(posiciones[ordenPorFecha[i]]));
+        }
+        String siguiente = fin >= 0 ? aCursor(fin + 1) : null;
+        return new Pagina(transitos, siguiente, cantidad);
+    }
+
+    private long marcaTiempo(int indice) {
+        return almacen.marcaTiempo(posiciones[ordenPorFecha[indice]]);
+    }
+
+    /**
+     * @return El índice en ordenPorFecha del primer tránsito, entre los primeros
+     *         hasta, con fecha/hora posterior a la indicada
+     */
+    private int primeroPosterior(long marcaTiempo, int hasta) {
+        int desde = 0;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (marcaTiempo(medio) <= marcaTiempo) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    /**
+     * @return El índice del último tránsito anterior al cursor en ordenPorFecha, o -1
+     */
+    private int ultimoAnterior(String cursor) throws PeajeException {
+        int separador = cursor.lastIndexOf('.');
+        long marcaTiempo;
+        int orden;
+        try {
+            marcaTiempo = Long.parseLong(cursor.substring(0, separador));
+            orden = Integer.parseInt(cursor.substring(separador + 1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new PeajeException("Cursor de tránsitos inválido");
+        }
+        int desde = 0;
+        int hasta = cantidad;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            long marcaMedio = marcaTiempo(medio);
+            boolean anterior = marcaMedio < marcaTiempo
+                    || (marcaMedio == marcaTiempo && ordenPorFecha[medio] < orden);
+            if (anterior) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde - 1;
+    }
+
+    /**
+     * El cursor identifica a un tránsito por su fecha/hora y su orden de registro,
+     * de modo que sigue siendo válido aunque se registren tránsitos más antiguos.
+     */
+    private String aCursor(int indice) {
+        return marcaTiempo(indice) + "." + ordenPorFecha[indice];
+    }
+
+    /**
+     * Página de tránsitos ordenados por fecha/hora descendente.
+     */
+    @Getter
+    public static class Pagina {
+        private final List<Transito> transitos;
+        private final String cursorSiguiente; // null si es la última página
+        private final int totalRegistrados;   // Tránsitos registrados al obtener la página
+
+        public Pagina(List<Transito> transitos, String cursorSiguiente, int totalRegistrados) {
+            this.transitos = transitos;
+            this.cursorSiguiente = cursorSiguiente;
+            this.totalRegistrados = totalRegistrados;
+        }
+    }
+}
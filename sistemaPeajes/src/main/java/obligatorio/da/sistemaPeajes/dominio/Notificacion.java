@@ -3,17 +3,73 @@ package obligatorio.da.sistemaPeajes.dominio;
 import java.util.Date;
 
 import lombok.Getter;
-import lombok.Setter;
 
+/**
+ * Notificación de un propietario.
+ *
+ * Se guarda la plantilla del mensaje y sus argumentos (referencias a textos que
+ * ya existen en el dominio, como el nombre del puesto o la matrícula, y un monto);
+ * el texto se arma recién cuando se muestra. La mayoría de las notificaciones se
+ * borran sin llegar a verse, así que no se paga el armado en cada tránsito ni se
+ * conserva el texto en memoria.
+ */
 @Getter
-@Setter
 public class Notificacion {
-    
-    private Date fechaHora;
-    private String mensaje;
-    
+
+    /**
+     * Plantillas de los mensajes de notificación.
+     */
+    public enum Plantilla {
+        TEXTO,          // argumento1: el mensaje
+        TRANSITO,       // argumento1: nombre del puesto, argumento2: matrícula
+        SALDO_BAJO,     // monto: saldo actual
+        CAMBIO_ESTADO   // argumento1: nombre del estado
+    }
+
+    private final Plantilla plantilla;
+    private final long marcaTiempo; // Fecha y hora en milisegundos
+    private final String argumento1;
+    private final String argumento2;
+    private final long monto;       // En centésimos
+
     public Notificacion(Date fechaHora, String mensaje) {
-        this.fechaHora = fechaHora;
-        this.mensaje = mensaje;
+        this(Plantilla.TEXTO, fechaHora.getTime(), mensaje, null, 0);
+    }
+
+    public Notificacion(Plantilla plantilla, long marcaTiempo, String argumento1, String argumento2, long monto) {
+        this.plantilla = plantilla;
+        this.marcaTiempo = marcaTiempo;
+        this.argumento1 = argumento1;
+        this.argumento2 = argumento2;
+        this.monto = monto;
+    }
+
+    public static Notificacion transito(Date fechaHora, Puesto puesto, Vehiculo vehiculo) {
+        return new Notificacion(Plantilla.TRANSITO, fechaHora.getTime(), puesto.getNombre(), vehiculo.getMatricula(), 0);
+    }
+
+    public static Notificacion saldoBajo(Date fechaHora, long saldoActual) {
+        return new Notificacion(Plantilla.SALDO_BAJO, fechaHora.getTime(), null, null, saldoActual);
+    }
+
+    public static Notificacion cambioEstado(Date fechaHora, EstadoPropietario estado) {
+        return new Notificacion(Plantilla.CAMBIO_ESTADO, fechaHora.getTime(), estado.getNombre(), null, 0);
+    }
+
+    public Date getFechaHora() {
+        return new Date(marcaTiempo);
+    }
+
+    /**
+     * Arma el texto de la notificación a partir de su plantilla.
+     */
+    public String getMensaje() {
+        return switch (plantilla) {
+            case TEXTO -> argumento1;
+            case TRANSITO -> "Pasaste por el puesto " + argumento1 + " con el vehículo " + argumento2;
+            case SALDO_BAJO -> "Tu saldo actual es de $ " + Dinero.formatear(monto)
+                    + " Te recomendamos hacer una recarga";
+            case CAMBIO_ESTADO -> "Se ha cambiado tu estado en el sistema. Tu estado actual es " + argumento1;
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,54 +1,166 @@
 package obligatorio.da.sistemaPeajes.dominio;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import excepciones.PeajeException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import observador.ObservableImpl;
-import observador.Observador;
+import observador.BusEventos;
+import observador.Suscripcion;
+import observador.Suscriptor;
 
 @Getter
 @Setter
-public class Propietario extends Usuario implements ObservableImpl {
+public class Propietario extends Usuario {
 
-    // Definición de eventos para el patrón Observer
+    // Definición de eventos para el patrón Observer. Cada evento tiene su clase,
+    // para que los suscriptores se registren solo a los que les interesan
     public static class Eventos {
-        public static final String ESTADO_CAMBIADO = "estadoCambiado";
-        public static final String BONIFICACION_ASIGNADA = "bonificacionAsignada";
-        public static final String SALDO_MODIFICADO = "saldoModificado";
-        public static final String NOTIFICACION_AGREGADA = "notificacionAgregada";
-        public static final String NOTIFICACIONES_BORRADAS = "notificacionesBorradas";
+        public static final EstadoCambiado ESTADO_CAMBIADO = new EstadoCambiado();
+        public static final BonificacionAsignada BONIFICACION_ASIGNADA = new BonificacionAsignada();
+        public static final SaldoModificado SALDO_MODIFICADO = new SaldoModificado();
+        public static final NotificacionAgregada NOTIFICACION_AGREGADA = new NotificacionAgregada();
+        public static final NotificacionesBorradas NOTIFICACIONES_BORRADAS = new NotificacionesBorradas();
+
+        // Los eventos sin datos tienen una única instancia, así los lotes los
+        // acumulan una sola vez
+
+        public static final class EstadoCambiado {
+            private EstadoCambiado() {
+            }
+        }
+
+        public static final class BonificacionAsignada {
+            private BonificacionAsignada() {
+            }
+        }
+
+        public static final class SaldoModificado {
+            private SaldoModificado() {
+            }
+        }
+
+        public static final class NotificacionAgregada {
+            private NotificacionAgregada() {
+            }
+        }
+
+        public static final class NotificacionesBorradas {
+            private NotificacionesBorradas() {
+            }
+        }
+
+        /**
+         * Evento emitido cuando se registra un tránsito de un vehículo del propietario.
+         * Se avisa solo a los observadores de ese propietario.
+         */
+        @Getter
+        public static class TransitoRegistrado {
+            private final Transito transito;
+
+            public TransitoRegistrado(Transito transito) {
+                this.transito = transito;
+            }
+
+            public Propietario getPropietario() {
+                return transito.getPropietario();
+            }
+        }
+
+        /**
+         * Evento emitido al finalizar un lote con los tránsitos del propietario
+         * registrados durante el lote, en orden. Reemplaza a los
+         * {@link TransitoRegistrado} de cada uno.
+         */
+        @Getter
+        public static class TransitosRegistrados {
+            private final Propietario propietario;
+            private final List<Transito> transitos;
+
+            public TransitosRegistrados(Propietario propietario, List<Transito> transitos) {
+                this.propietario = propietario;
+                this.transitos = List.copyOf(transitos);
+            }
+        }
     }
 
     // Atributos propios de Propietario
-    private double saldoActual;
-    private double saldoMinimoAlerta;
+    // Montos en centésimos (ver Dinero). El saldo solo se modifica con el monitor
+    // del propietario tomado; volatile para que las lecturas sin bloqueo vean
+    // siempre el último valor
+    @Setter(AccessLevel.NONE)
+    private volatile long saldoActual;
+    private long saldoMinimoAlerta;
 
     // Listas de relaciones
     private List<Vehiculo> vehiculos;
-    private List<AsignacionBonificacion> bonificaciones;
-    private List<Notificacion> notificaciones;
+
+    // Notificaciones conservadas en memoria (las más antiguas se descartan al
+    // superar la capacidad y, si hay un archivo configurado, se archivan)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final BufferNotificaciones notificaciones;
+
+    private static volatile int capacidadNotificaciones = 100;
+    private static volatile ArchivoNotificaciones archivoNotificaciones;
+
+    // Bonificaciones asignadas indexadas por puesto (a lo sumo una por puesto)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Puesto, AsignacionBonificacion> bonificaciones;
 
     // Estado del propietario (patrón State)
-    private EstadoPropietario estado;
+    @Setter(AccessLevel.NONE)
+    private volatile EstadoPropietario estado;
+
+    // Suscriptores a los eventos del propietario (patrón Observer)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final BusEventos eventos = new BusEventos();
+
+    // Propietarios que tienen o tuvieron suscripciones desde la última limpieza:
+    // la limpieza recorre solo estos y no a todos los propietarios
+    private static final Set<Propietario> conSuscripciones = ConcurrentHashMap.newKeySet();
+
+    // Mientras se procesa un lote de tránsitos los eventos se acumulan (sin
+    // repetir) y se avisan una sola vez al finalizar el lote
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int lotesEnCurso;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Set<Object> eventosPendientes = new LinkedHashSet<>();
 
-    // Lista de observadores (patrón Observer)
-    private final List<Observador> observadores;
+    // Tránsitos registrados durante el lote, que se avisan juntos al finalizarlo
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final List<Transito> transitosPendientes = new ArrayList<>();
 
     public Propietario(String cedula, String contrasena, String nombreCompleto,
-            double saldoActual, double saldoMinimoAlerta) {
-        super(cedula, contrasena, nombreCompleto);
+            long saldoActual, long saldoMinimoAlerta) {
+        this(cedula, Credencial.crear(contrasena), nombreCompleto, saldoActual, saldoMinimoAlerta);
+    }
+
+    public Propietario(String cedula, Credencial credencial, String nombreCompleto,
+            long saldoActual, long saldoMinimoAlerta) {
+        super(cedula, credencial, nombreCompleto);
         this.saldoActual = saldoActual;
         this.saldoMinimoAlerta = saldoMinimoAlerta;
 
         // Inicializar listas vacías
         this.vehiculos = new ArrayList<>();
-        this.bonificaciones = new ArrayList<>();
-        this.notificaciones = new ArrayList<>();
-        this.observadores = new ArrayList<>();
+        this.bonificaciones = new LinkedHashMap<>();
+        this.notificaciones = new BufferNotificaciones(capacidadNotificaciones);
 
         // Estado inicial: Habilitado (según la letra del obligatorio)
         this.estado = new Habilitado();
@@ -69,11 +181,39 @@ public class Propietario extends Usuario implements ObservableImpl {
     }
 
 
-    public void agregarBonificacion(AsignacionBonificacion asignacion) {
-        this.bonificaciones.add(asignacion);
+    /**
+     * Agrega una bonificación para un puesto. A lo sumo se asigna una por puesto:
+     * una asignación existente nunca se reemplaza.
+     * 
+     * @param asignacion La asignación a agregar
+     * @throws PeajeException Si ya tiene una bonificación asignada para ese puesto
+     */
+    public synchronized void agregarBonificacion(AsignacionBonificacion asignacion) throws PeajeException {
+        if (this.bonificaciones.putIfAbsent(asignacion.getPuesto(), asignacion) != null) {
+            throw new PeajeException("Ya tiene una bonificación asignada para ese puesto");
+        }
         avisar(Eventos.BONIFICACION_ASIGNADA);
     }
 
+    /**
+     * Obtiene una copia de las bonificaciones asignadas, en el orden en que fueron asignadas.
+     * 
+     * @return Las asignaciones de bonificación del propietario
+     */
+    public synchronized List<AsignacionBonificacion> getBonificaciones() {
+        return new ArrayList<>(bonificaciones.values());
+    }
+
+    /**
+     * Obtiene la bonificación asignada para un puesto, sin considerar el estado.
+     * 
+     * @param puesto El puesto de peaje
+     * @return La asignación para ese puesto, o null si no tiene
+     */
+    public synchronized AsignacionBonificacion obtenerAsignacion(Puesto puesto) {
+        return bonificaciones.get(puesto);
+    }
+
     /**
      * Delega al estado actual para determinar si puede transitar.
      * 
@@ -137,7 +277,14 @@ public class Propietario extends Usuario implements ObservableImpl {
         estado.penalizar(this);
     }
 
-    private void validarEstado(EstadoPropietario nuevoEstado) throws PeajeException {
+    /**
+     * Valida que el propietario pueda pasar al estado indicado, sin cambiarlo. Permite
+     * registrar el cambio en la bitácora antes de aplicarlo.
+     * 
+     * @param nuevoEstado El nuevo estado del propietario
+     * @throws PeajeException Si el estado es nulo o el propietario ya está en ese estado
+     */
+    public void validarCambioEstado(EstadoPropietario nuevoEstado) throws PeajeException {
         if (nuevoEstado == null) {
             throw new PeajeException("El nuevo estado no puede ser nulo");
         }
@@ -154,21 +301,53 @@ public class Propietario extends Usuario implements ObservableImpl {
      * @param nuevoEstado El nuevo estado del propietario
      * @throws PeajeException
      */
-    public void setEstado(EstadoPropietario nuevoEstado) throws PeajeException {
-        this.validarEstado(nuevoEstado);
+    public synchronized void setEstado(EstadoPropietario nuevoEstado) throws PeajeException {
+        cambiarEstado(nuevoEstado, new Date());
+    }
+
+    /**
+     * Cambia el estado del propietario registrando la notificación con la fecha indicada.
+     * 
+     * @param nuevoEstado El nuevo estado del propietario
+     * @param fechaHora La fecha y hora del cambio de estado
+     * @throws PeajeException Si el propietario ya está en ese estado
+     */
+    public synchronized void cambiarEstado(EstadoPropietario nuevoEstado, Date fechaHora) throws PeajeException {
+        this.validarCambioEstado(nuevoEstado);
         this.estado = nuevoEstado;
-        Date fechaHora = new java.util.Date();
         this.notificarCambioEstado(fechaHora);
         avisar(Eventos.ESTADO_CAMBIADO);
     }
 
+    /**
+     * Restaura el estado, las notificaciones y las bonificaciones del propietario
+     * (por ejemplo, al cargar una instantánea) sin registrar notificaciones ni
+     * avisar a los observadores.
+     * 
+     * @param estado El estado del propietario
+     * @param notificaciones Las notificaciones, en orden de registro
+     * @param bonificaciones Las bonificaciones, en orden de asignación
+     */
+    public synchronized void restaurar(EstadoPropietario estado, List<Notificacion> notificaciones,
+            List<AsignacionBonificacion> bonificaciones) {
+        this.estado = estado;
+        this.notificaciones.vaciar();
+        for (Notificacion notificacion : notificaciones) {
+            this.notificaciones.agregar(notificacion);
+        }
+        this.bonificaciones.clear();
+        for (AsignacionBonificacion asignacion : bonificaciones) {
+            this.bonificaciones.put(asignacion.getPuesto(), asignacion);
+        }
+    }
+
     /**
      * Agrega saldo al propietario.
      * 
-     * @param monto El monto a agregar (debe ser positivo)
+     * @param monto El monto a agregar en centésimos (debe ser positivo)
      * @throws IllegalArgumentException si el monto es negativo o cero
      */
-    public void agregarSaldo(double monto) {
+    public synchronized void agregarSaldo(long monto) {
         if (monto <= 0) {
             throw new IllegalArgumentException("El monto debe ser positivo");
         }
@@ -179,16 +358,16 @@ public class Propietario extends Usuario implements ObservableImpl {
     /**
      * Quita saldo al propietario (por ejemplo, al realizar un tránsito).
      * 
-     * @param monto El monto a descontar (debe ser positivo)
+     * @param monto El monto a descontar en centésimos (debe ser positivo)
      * @throws IllegalArgumentException si el monto es negativo o cero
      * @throws IllegalStateException    si no hay saldo suficiente
      */
-    public void descontarSaldo(double monto) {
+    public synchronized void descontarSaldo(long monto) {
         if (monto <= 0) {
             throw new IllegalArgumentException("El monto debe ser positivo");
         }
         if (this.saldoActual < monto) {
-            throw new IllegalStateException("Saldo insuficiente: " + this.saldoActual);
+            throw new IllegalStateException("Saldo insuficiente: " + Dinero.aDouble(this.saldoActual));
         }
         this.saldoActual -= monto;
         avisar(Eventos.SALDO_MODIFICADO);
@@ -197,10 +376,10 @@ public class Propietario extends Usuario implements ObservableImpl {
     /**
      * Verifica si el propietario tiene saldo suficiente.
      * 
-     * @param monto El monto a verificar
+     * @param monto El monto a verificar en centésimos
      * @return true si tiene saldo suficiente, false en caso contrario
      */
-    public boolean tieneSaldoSuficiente(double monto) {
+    public boolean tieneSaldoSuficiente(long monto) {
         return this.saldoActual >= monto;
     }
 
@@ -228,12 +407,12 @@ public class Propietario extends Usuario implements ObservableImpl {
      * El Propietario es el experto porque conoce su saldo actual y puede validarlo.
      * Encapsula la validación y el mensaje de error con el saldo actual.
      * 
-     * @param monto El monto requerido para el pago
+     * @param monto El monto requerido para el pago en centésimos
      * @throws PeajeException Si no tiene saldo suficiente
      */
-    public void validarSaldoSuficiente(double monto) throws PeajeException {
+    public void validarSaldoSuficiente(long monto) throws PeajeException {
         if (!this.tieneSaldoSuficiente(monto)) {
-            throw new PeajeException("Saldo insuficiente: " + this.saldoActual);
+            throw new PeajeException("Saldo insuficiente: " + Dinero.aDouble(this.saldoActual));
         }
     }
 
@@ -246,41 +425,117 @@ public class Propietario extends Usuario implements ObservableImpl {
         return this.estado.getNombre();
     }
 
-    // ==================== Implementación de ObservableImpl ====================
+    // ==================== Suscripción a eventos ====================
+
+    /**
+     * Suscribe a un tipo de evento del propietario (ver {@link Eventos}).
+     * El dueño se guarda con una referencia débil: si se libera sin
+     * desuscribirse, deja de recibir eventos.
+     * 
+     * @param duenio Quien se suscribe
+     * @param tipo La clase de los eventos a recibir
+     * @param suscriptor Recibe el dueño y el evento
+     * @return La suscripción
+     */
+    public <D, E> Suscripcion suscribir(D duenio, Class<E> tipo, Suscriptor<? super D, ? super E> suscriptor) {
+        Suscripcion suscripcion = eventos.suscribir(duenio, tipo, suscriptor);
+        // Se registra después de suscribir: ver purgarSuscripciones
+        conSuscripciones.add(this);
+        return suscripcion;
+    }
 
     /**
-     * Agrega un observador a la lista de observadores.
+     * Cancela todas las suscripciones de un dueño.
      * 
-     * @param obs El observador a agregar
+     * @param duenio Quien se suscribió
      */
-    @Override
-    public void agregarObservador(Observador obs) {
-        if (!observadores.contains(obs)) {
-            observadores.add(obs);
-        }
+    public void desuscribir(Object duenio) {
+        eventos.desuscribir(duenio);
     }
 
     /**
-     * Quita un observador de la lista de observadores.
+     * Quita las suscripciones de dueños que se liberaron sin desuscribirse. Si no
+     * le quedan suscripciones, el propietario deja de estar entre los que recorre
+     * la limpieza.
      * 
-     * @param obs El observador a quitar
+     * @return La cantidad de suscripciones quitadas
+     */
+    public int purgarSuscripciones() {
+        int purgadas = eventos.purgar();
+        if (eventos.cantidadSuscripciones() == 0) {
+            conSuscripciones.remove(this);
+            // Una suscripción pudo agregarse entre el conteo y la baja: como suscribir
+            // registra al propietario después de suscribir, basta con volver a contar
+            if (eventos.cantidadSuscripciones() > 0) {
+                conSuscripciones.add(this);
+            }
+        }
+        return purgadas;
+    }
+
+    /**
+     * @return Los propietarios que pueden tener suscripciones (vista sin copia)
+     */
+    public static Set<Propietario> getPropietariosConSuscripciones() {
+        return Collections.unmodifiableSet(conSuscripciones);
+    }
+
+    public int cantidadSuscripciones() {
+        return eventos.cantidadSuscripciones();
+    }
+
+    /**
+     * Comienza un lote de operaciones: a partir de este momento los eventos se
+     * acumulan y se avisan una sola vez en {@link #finalizarLote()}.
+     */
+    public synchronized void iniciarLote() {
+        lotesEnCurso++;
+    }
+
+    /**
+     * Finaliza un lote de operaciones y avisa los eventos acumulados, una vez cada uno.
+     * Los tránsitos del lote se avisan en un único {@link Eventos.TransitosRegistrados}.
+     *
+     * Los eventos se publican fuera del monitor del propietario, por lo que conviene
+     * invocarlo después de liberarlo: los suscriptores no demoran a los tránsitos
+     * que esperan ese monitor.
      */
-    @Override
-    public void quitarObservador(Observador obs) {
-        observadores.remove(obs);
+    public void finalizarLote() {
+        List<Object> aAvisar;
+        synchronized (this) {
+            if (lotesEnCurso == 0 || --lotesEnCurso > 0) {
+                return;
+            }
+            aAvisar = new ArrayList<>(eventosPendientes);
+            eventosPendientes.clear();
+            if (!transitosPendientes.isEmpty()) {
+                aAvisar.add(new Eventos.TransitosRegistrados(this, transitosPendientes));
+                transitosPendientes.clear();
+            }
+        }
+        for (Object evento : aAvisar) {
+            eventos.publicar(evento);
+        }
     }
 
     /**
-     * Notifica a todos los observadores sobre un evento.
+     * Notifica un evento a los suscriptores de su tipo.
+     * Si hay un lote en curso, el evento queda pendiente hasta que finalice.
      * 
      * @param evento El evento a notificar
      */
-    @Override
     public void avisar(Object evento) {
-        List<Observador> copia = new ArrayList<>(observadores);
-        for (Observador obs : copia) {
-            obs.actualizar(evento, null);
+        synchronized (this) {
+            if (lotesEnCurso > 0) {
+                if (evento instanceof Eventos.TransitoRegistrado registrado) {
+                    transitosPendientes.add(registrado.getTransito());
+                } else {
+                    eventosPendientes.add(evento);
+                }
+                return;
+            }
         }
+        eventos.publicar(evento);
     }
 
     public void agregarVehiculo(Vehiculo vehiculo) {
@@ -299,43 +554,28 @@ public class Propietario extends Usuario implements ObservableImpl {
      * @return La AsignacionBonificacion aplicable para el puesto, o null si no aplican bonificaciones
      *         o no tiene bonificación asignada para ese puesto
      */
-    public AsignacionBonificacion obtenerBonificacionAplicable(Puesto puesto) {
+    public synchronized AsignacionBonificacion obtenerBonificacionAplicable(Puesto puesto) {
         // Si el propietario está en un estado donde no aplican bonificaciones
         if (!this.aplicanBonificaciones()) {
             return null;
         }
 
-        // Buscar si tiene una bonificación asignada para este puesto
-        for (AsignacionBonificacion asignacion : this.bonificaciones) {
-            if (asignacion.getPuesto().equals(puesto)) {
-                return asignacion;
-            }
-        }
-
-        // No tiene bonificación para este puesto
-        return null;
+        // Bonificación asignada para este puesto (null si no tiene)
+        return this.bonificaciones.get(puesto);
     }
 
     /**
-     * Calcula el monto a pagar aplicando las bonificaciones asignadas al propietario
-     * para el puesto específico.
-     * 
-     * Si el propietario está en un estado donde no aplican bonificaciones
-     * (por ejemplo, penalizado o deshabilitado), se retorna la tarifa base completa.
+     * Calcula el monto a pagar aplicando la bonificación ya resuelta con
+     * {@link #obtenerBonificacionAplicable(Puesto)}.
      * 
-     * Principio GRASP: Experto de la Información
-     * El Propietario es el experto porque conoce:
-     * - Sus bonificaciones asignadas
-     * - Su estado actual
-     * - Si las bonificaciones aplican según su estado
+     * Si no hay bonificación aplicable (porque no tiene asignada para el puesto o
+     * porque su estado no lo permite), se retorna la tarifa base completa.
      * 
-     * @param puesto El puesto de peaje
-     * @param tarifaBase La tarifa base antes de aplicar bonificaciones
-     * @return El monto final a pagar después de aplicar bonificaciones
+     * @param asignacion La bonificación aplicable, o null si no corresponde ninguna
+     * @param tarifaBase La tarifa base antes de aplicar bonificaciones, en centésimos
+     * @return El monto final a pagar después de aplicar bonificaciones, en centésimos
      */
-    public double calcularMontoConBonificaciones(Puesto puesto, double tarifaBase) {
-        AsignacionBonificacion asignacion = this.obtenerBonificacionAplicable(puesto);
-        
+    public long calcularMontoConBonificaciones(AsignacionBonificacion asignacion, long tarifaBase) {
         if (asignacion != null) {
             // Aplicar la bonificación y retornar el monto bonificado
             return asignacion.calcularBonificacion(tarifaBase);
@@ -346,8 +586,9 @@ public class Propietario extends Usuario implements ObservableImpl {
     }
 
     /**
-     * Procesa el pago de un tránsito: calcula el monto con bonificaciones,
-     * valida que haya saldo suficiente y descuenta el monto del saldo.
+     * Calcula el pago de un tránsito: aplica las bonificaciones y valida que haya
+     * saldo suficiente, sin descontarlo. El descuento se hace con
+     * {@link #descontarSaldo} una vez registrado el tránsito en la bitácora.
      * 
      * Principio GRASP: Experto de la Información
      * El Propietario es el experto porque conoce y gestiona:
@@ -357,24 +598,22 @@ public class Propietario extends Usuario implements ObservableImpl {
      * 
      * Este método encapsula toda la lógica de pago en un solo lugar,
      * evitando que otras clases necesiten conocer estos detalles.
+     * Para que la validación siga siendo cierta al descontar, ambos pasos deben
+     * hacerse con el monitor del propietario tomado.
      * 
-     * @param puesto El puesto de peaje
-     * @param tarifaBase La tarifa base antes de aplicar bonificaciones
-     * @return El monto efectivamente pagado (después de aplicar bonificaciones)
+     * @param asignacion La bonificación aplicable para el puesto, o null si no corresponde ninguna
+     * @param tarifaBase La tarifa base antes de aplicar bonificaciones, en centésimos
+     * @return El monto a pagar (después de aplicar bonificaciones), en centésimos
      * @throws PeajeException Si no tiene saldo suficiente
      */
-    public double procesarPagoTransito(Puesto puesto, double tarifaBase) throws PeajeException {
+    public synchronized long calcularPagoTransito(AsignacionBonificacion asignacion, long tarifaBase) throws PeajeException {
         // Calcular el monto final aplicando bonificaciones si corresponde
-        double montoPagado = this.calcularMontoConBonificaciones(puesto, tarifaBase);
+        long montoPagado = this.calcularMontoConBonificaciones(asignacion, tarifaBase);
         
-        // Solo validar y descontar si el monto es mayor a 0
+        // Solo validar si el monto es mayor a 0
         // (En caso de exonerados, el monto es 0 y no hay que descontar nada)
         if (montoPagado > 0) {
-            // Validar que tenga saldo suficiente
             this.validarSaldoSuficiente(montoPagado);
-            
-            // Descontar el monto del saldo
-            this.descontarSaldo(montoPagado);
         }
         
         return montoPagado;
@@ -389,10 +628,9 @@ public class Propietario extends Usuario implements ObservableImpl {
      * 
      * @param notificacion La notificación a registrar
      */
-    public void registrarNotificacion(Notificacion notificacion) {
+    public synchronized void registrarNotificacion(Notificacion notificacion) {
         if (this.puedeRecibirNotificaciones()) {
-            this.notificaciones.add(notificacion);
-            avisar(Eventos.NOTIFICACION_AGREGADA);
+            agregarNotificacion(notificacion);
         }
     }
 
@@ -401,22 +639,19 @@ public class Propietario extends Usuario implements ObservableImpl {
      * 
      * Principio GRASP: Experto de la Información
      * El Propietario es el experto porque conoce su estado y si puede recibir notificaciones.
-     * Encapsula la lógica de creación del mensaje específico de tránsito.
+     * Registra la notificación con los datos del tránsito; el mensaje se arma al mostrarla.
      * 
      * @param puesto El puesto por el que transitó
      * @param vehiculo El vehículo con el que transitó
      * @param fechaHora La fecha y hora del tránsito
      */
-    public void notificarTransito(Puesto puesto, Vehiculo vehiculo, Date fechaHora) {
+    public synchronized void notificarTransito(Puesto puesto, Vehiculo vehiculo, Date fechaHora) {
         if (!this.puedeRecibirNotificaciones()) {
             return;
         }
         
-        String mensaje = "Pasaste por el puesto " + puesto.getNombre() + 
-                        " con el vehículo " + vehiculo.getMatricula();
-        Notificacion notificacion = new Notificacion(fechaHora, mensaje);
-        this.notificaciones.add(notificacion);
-        avisar(Eventos.NOTIFICACION_AGREGADA);
+        // El mensaje se arma recién al mostrar la notificación
+        agregarNotificacion(Notificacion.transito(fechaHora, puesto, vehiculo));
     }
 
     /**
@@ -426,21 +661,16 @@ public class Propietario extends Usuario implements ObservableImpl {
      * El Propietario es el experto porque:
      * - Conoce su saldo actual
      * - Conoce su estado y si puede recibir notificaciones
-     * - Puede formatear el mensaje con su propia información
+     * - Aporta su propia información al mensaje
      * 
      * @param fechaHora La fecha y hora de la notificación
      */
-    public void notificarSaldoBajo(Date fechaHora) {
+    public synchronized void notificarSaldoBajo(Date fechaHora) {
         if (!this.puedeRecibirNotificaciones()) {
             return;
         }
         
-        String mensaje = "Tu saldo actual es de $ " + 
-                        String.format("%.2f", this.saldoActual) + 
-                        " Te recomendamos hacer una recarga";
-        Notificacion notificacion = new Notificacion(fechaHora, mensaje);
-        this.notificaciones.add(notificacion);
-        avisar(Eventos.NOTIFICACION_AGREGADA);
+        agregarNotificacion(Notificacion.saldoBajo(fechaHora, this.saldoActual));
     }
 
     /**
@@ -451,19 +681,77 @@ public class Propietario extends Usuario implements ObservableImpl {
      * El Propietario es el experto porque:
      * - Conoce su estado actual
      * - Gestiona su lista de notificaciones
-     * - Puede formatear el mensaje con su propia información
+     * - Aporta su propia información al mensaje
      * 
      * @param fechaHora La fecha y hora de la notificación
      */
-    public void notificarCambioEstado(Date fechaHora) {
+    public synchronized void notificarCambioEstado(Date fechaHora) {
         // Esta notificación SIEMPRE se registra, sin verificar puedeRecibirNotificaciones()
-        String mensaje = "Se ha cambiado tu estado en el sistema. Tu estado actual es " + 
-                        this.estado.getNombre();
-        Notificacion notificacion = new Notificacion(fechaHora, mensaje);
-        this.notificaciones.add(notificacion);
+        agregarNotificacion(Notificacion.cambioEstado(fechaHora, this.estado));
+    }
+
+    /**
+     * Configura cuántas notificaciones conserva en memoria cada propietario creado
+     * a partir de este momento y dónde se archivan las que se descartan.
+     * 
+     * @param capacidad La cantidad de notificaciones que se conservan
+     * @param archivo Dónde se archivan las descartadas (null para descartarlas)
+     */
+    public static void configurarNotificaciones(int capacidad, ArchivoNotificaciones archivo) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        capacidadNotificaciones = capacidad;
+        archivoNotificaciones = archivo;
+    }
+
+    /**
+     * Agrega una notificación y avisa a los observadores. Si se supera la capacidad
+     * la más antigua se descarta (y se archiva, si hay archivo).
+     * Debe invocarse con el monitor del propietario tomado.
+     */
+    private void agregarNotificacion(Notificacion notificacion) {
+        Notificacion descartada = this.notificaciones.agregar(notificacion);
+        ArchivoNotificaciones archivo = archivoNotificaciones;
+        if (descartada != null && archivo != null) {
+            archivo.archivar(this, descartada);
+        }
         avisar(Eventos.NOTIFICACION_AGREGADA);
     }
 
+    /**
+     * Obtiene una copia de las notificaciones del propietario.
+     * 
+     * @return Las notificaciones conservadas, en orden de registro
+     */
+    public synchronized List<Notificacion> getNotificaciones() {
+        return notificaciones.enOrdenDeRegistro();
+    }
+
+    /**
+     * Obtiene una página de notificaciones de la más reciente a la más antigua.
+     * 
+     * @param cursor El cursor de la página anterior, o null para las más recientes
+     * @param limite La cantidad máxima de notificaciones
+     * @return La página y el cursor de la siguiente
+     * @throws PeajeException Si el cursor no es válido
+     */
+    public synchronized BufferNotificaciones.Pagina getPaginaNotificaciones(String cursor, int limite)
+            throws PeajeException {
+        return notificaciones.pagina(cursor, limite);
+    }
+
+    /**
+     * Obtiene una copia de las notificaciones registradas a partir de una posición,
+     * en orden de registro.
+     * 
+     * @param desde Cantidad de notificaciones ya conocidas
+     * @return Las notificaciones registradas después de esa posición
+     */
+    public synchronized List<Notificacion> getNotificacionesDesde(int desde) {
+        return notificaciones.registradasDesde(desde);
+    }
+
     /**
      * Borra todas las notificaciones del propietario.
      * 
@@ -472,11 +760,11 @@ public class Propietario extends Usuario implements ObservableImpl {
      * 
      * @return true si se borraron notificaciones, false si no había notificaciones
      */
-    public boolean borrarNotificaciones() {
+    public synchronized boolean borrarNotificaciones() {
         if (this.notificaciones.isEmpty()) {
             return false;
         }
-        this.notificaciones.clear();
+        this.notificaciones.vaciar();
         avisar(Eventos.NOTIFICACIONES_BORRADAS);
         return true;
     }
@@ -1,8 +1,11 @@
 package obligatorio.da.sistemaPeajes.dominio;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,31 +13,91 @@ import lombok.Setter;
 @Setter
 public class Puesto {
 
+	/**
+	 * Valor de {@link #obtenerMontoTarifa(Categoria)} cuando el puesto no tiene
+	 * tarifa para la categoría.
+	 */
+	public static final long SIN_TARIFA = -1;
+
 	private String nombre;
 	private String direccion;
-	private List<Tarifa> tarifas;
+
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private final List<Tarifa> tarifas;
+
+	// Tarifas indexadas por id de categoría; se reconstruyen al cambiar las tarifas
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private volatile Tarifa[] tarifasPorCategoria;
+
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private volatile long[] montosPorCategoria;
 
 	public Puesto(String nombre, String direccion) {
 		this.nombre = nombre;
 		this.direccion = direccion;
 		this.tarifas = new ArrayList<>();
+		this.tarifasPorCategoria = new Tarifa[0];
+		this.montosPorCategoria = new long[0];
 	}
 
-	public Tarifa obtenerTarifaPorCategoria(Categoria categoria) {
+	public List<Tarifa> getTarifas() {
+		return Collections.unmodifiableList(tarifas);
+	}
+
+	/**
+	 * Agrega una tarifa al puesto. Si ya existía una tarifa para la misma
+	 * categoría, la reemplaza.
+	 *
+	 * @param tarifa La tarifa a agregar
+	 */
+	public synchronized void agregarTarifa(Tarifa tarifa) {
+		tarifas.removeIf(t -> t.tieneCategoria(tarifa.getCategoria()));
+		tarifas.add(tarifa);
+		recompilarTarifas();
+	}
+
+	/**
+	 * Reconstruye los arreglos de tarifas indexados por id de categoría.
+	 */
+	private void recompilarTarifas() {
+		int largo = 0;
 		for (Tarifa tarifa : tarifas) {
-			if (tarifa.getCategoria().equals(categoria)) {
-				return tarifa;
-			}
+			largo = Math.max(largo, tarifa.getCategoria().getId() + 1);
 		}
-		return null;
+		Tarifa[] nuevasTarifas = new Tarifa[largo];
+		long[] nuevosMontos = new long[largo];
+		Arrays.fill(nuevosMontos, SIN_TARIFA);
+		for (Tarifa tarifa : tarifas) {
+			int id = tarifa.getCategoria().getId();
+			nuevasTarifas[id] = tarifa;
+			nuevosMontos[id] = tarifa.getMonto();
+		}
+		this.tarifasPorCategoria = nuevasTarifas;
+		this.montosPorCategoria = nuevosMontos;
+	}
+
+	public Tarifa obtenerTarifaPorCategoria(Categoria categoria) {
+		return getTarifaPorCategoria(categoria);
 	}
 
 	public Tarifa getTarifaPorCategoria(Categoria categoria) {
-		for (Tarifa tarifa : tarifas) {
-			if (tarifa.tieneCategoria(categoria)) {
-				return tarifa;
-			}
-		}
-		return null;
+		Tarifa[] indice = tarifasPorCategoria;
+		int id = categoria.getId();
+		return (id < indice.length) ? indice[id] : null;
+	}
+
+	/**
+	 * Obtiene el monto de la tarifa de una categoría en este puesto.
+	 *
+	 * @param categoria La categoría del vehículo
+	 * @return El monto de la tarifa en centésimos, o {@link #SIN_TARIFA} si no existe
+	 */
+	public long obtenerMontoTarifa(Categoria categoria) {
+		long[] montos = montosPorCategoria;
+		int id = categoria.getId();
+		return (id < montos.length) ? montos[id] : SIN_TARIFA;
 	}
 }
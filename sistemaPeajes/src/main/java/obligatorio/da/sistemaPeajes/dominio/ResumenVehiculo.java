@@ -0,0 +1,39 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+/**
+ * Acumulado de los tránsitos realizados por un vehículo.
+ *
+ * Se actualiza de forma incremental cada vez que se registra un tránsito,
+ * de modo que la cantidad de tránsitos y los montos totales del vehículo
+ * se obtienen sin recorrer su historial. Los montos están en centésimos.
+ */
+public class ResumenVehiculo {
+
+    private int cantidadTransitos;
+    private long totalPagado;
+    private long totalDescontado;
+
+    /**
+     * Suma un tránsito al acumulado.
+     *
+     * @param montoPagado El monto efectivamente pagado en el tránsito
+     * @param montoDescontado El monto descontado por bonificaciones
+     */
+    public synchronized void registrarTransito(long montoPagado, long montoDescontado) {
+        this.cantidadTransitos++;
+        this.totalPagado += montoPagado;
+        this.totalDescontado += montoDescontado;
+    }
+
+    public synchronized int getCantidadTransitos() {
+        return cantidadTransitos;
+    }
+
+    public synchronized long getTotalPagado() {
+        return totalPagado;
+    }
+
+    public synchronized long getTotalDescontado() {
+        return totalDescontado;
+    }
+}
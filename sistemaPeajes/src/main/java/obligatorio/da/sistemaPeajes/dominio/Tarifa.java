@@ -1,16 +1,18 @@
 package obligatorio.da.sistemaPeajes.dominio;
 
 import lombok.Getter;
-import lombok.Setter;
 
+/**
+ * Tarifa de una categoría en un puesto. Es inmutable: para cambiar el monto
+ * se agrega una nueva tarifa al puesto con {@link Puesto#agregarTarifa(Tarifa)}.
+ */
 @Getter
-@Setter
 public class Tarifa {
 
-	private double monto;
-	private Categoria categoria;
+	private final long monto; // En centésimos
+	private final Categoria categoria;
 
-	public Tarifa(double monto, Categoria categoria) {
+	public Tarifa(long monto, Categoria categoria) {
 		this.monto = monto;
 		this.categoria = categoria;
 	}
@@ -17,9 +17,9 @@ package obligatorio.da.sistemaPeajes.dominio;
 public class Trabajador implements EstrategiaBonificacion {
 
     @Override
-    public double calcularBonificacion(Puesto puesto, double tarifaBase) {
+    public long calcularBonificacion(Puesto puesto, long tarifaBase) {
         // Trabajador: 80% de descuento -> el propietario paga el 20%.
-        return tarifaBase * 0.20;
+        return Dinero.porcentaje(tarifaBase, 20);
     }
 
     @Override
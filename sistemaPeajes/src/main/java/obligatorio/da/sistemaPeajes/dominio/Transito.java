@@ -4,27 +4,41 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import lombok.Getter;
-import lombok.Setter;
 
+/**
+ * Tránsito de un vehículo por un puesto de peaje.
+ *
+ * Es inmutable: los tránsitos registrados se guardan en forma compacta en el
+ * AlmacenTransitos, que construye un Transito cada vez que se consulta uno.
+ * Los montos están en centésimos (ver Dinero) y la fecha/hora en milisegundos.
+ */
 @Getter
-@Setter
 public class Transito {
 
-    private Puesto puesto;
-    private Vehiculo vehiculo;
-    private Propietario propietario;
-    private AsignacionBonificacion bonificacionAplicada;
-    private double montoPagado;
-    private Date fechaHora;
+    private final Puesto puesto;
+    private final Vehiculo vehiculo;
+    private final Propietario propietario;
+    private final AsignacionBonificacion bonificacionAplicada;
+    private final long montoPagado;
+    private final long marcaTiempo;
     
     public Transito(Puesto puesto, Vehiculo vehiculo, Propietario propietario, 
-                    AsignacionBonificacion bonificacionAplicada, double montoPagado, Date fechaHora) {
+                    AsignacionBonificacion bonificacionAplicada, long montoPagado, Date fechaHora) {
+        this(puesto, vehiculo, propietario, bonificacionAplicada, montoPagado, fechaHora.getTime());
+    }
+
+    Transito(Puesto puesto, Vehiculo vehiculo, Propietario propietario,
+             AsignacionBonificacion bonificacionAplicada, long montoPagado, long marcaTiempo) {
         this.puesto = puesto;
         this.vehiculo = vehiculo;
         this.propietario = propietario;
         this.bonificacionAplicada = bonificacionAplicada;
         this.montoPagado = montoPagado;
-        this.fechaHora = fechaHora;
+        this.marcaTiempo = marcaTiempo;
+    }
+
+    public Date getFechaHora() {
+        return new Date(marcaTiempo);
     }
     
     // ====================================================================
@@ -38,11 +52,11 @@ public class Transito {
      * El Transito conoce su vehículo y su puesto, por lo tanto puede delegar
      * al vehículo para que obtenga la tarifa correspondiente en ese puesto.
      * 
-     * @return El monto de la tarifa sin bonificación, o 0.0 si no existe tarifa
+     * @return El monto de la tarifa sin bonificación, o 0 si no existe tarifa
      */
-    public double obtenerMontoTarifa() {
-        Tarifa tarifa = vehiculo.obtenerTarifaEn(puesto);
-        return (tarifa != null) ? tarifa.getMonto() : 0.0;
+    public long obtenerMontoTarifa() {
+        long monto = vehiculo.obtenerMontoTarifaEn(puesto);
+        return (monto != Puesto.SIN_TARIFA) ? monto : 0;
     }
     
     /**
@@ -54,7 +68,7 @@ public class Transito {
      * 
      * @return El monto de descuento aplicado
      */
-    public double obtenerMontoBonificacion() {
+    public long obtenerMontoBonificacion() {
         return obtenerMontoTarifa() - montoPagado;
     }
     
@@ -68,7 +82,7 @@ public class Transito {
      */
     public String obtenerFechaFormateada() {
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-        return sdf.format(fechaHora);
+        return sdf.format(getFechaHora());
     }
     
     /**
@@ -81,7 +95,7 @@ public class Transito {
      */
     public String obtenerHoraFormateada() {
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
-        return sdf.format(fechaHora);
+        return sdf.format(getFechaHora());
     }
     
     /**
@@ -94,7 +108,7 @@ public class Transito {
      */
     public String obtenerFechaHoraFormateada() {
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-        return sdf.format(fechaHora);
+        return sdf.format(getFechaHora());
     }
     
     /**
@@ -175,10 +189,10 @@ public class Transito {
      * 
      * @return El saldo restante del propietario
      */
-    public double obtenerSaldoPropietario() {
+    public long obtenerSaldoPropietario() {
         if (propietario != null) {
             return propietario.getSaldoActual();
         }
-        return 0.0;
+        return 0;
     }
 }
\ No newline at end of file
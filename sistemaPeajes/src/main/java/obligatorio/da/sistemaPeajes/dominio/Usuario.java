@@ -10,15 +10,20 @@ public abstract class Usuario {
 
 	private String cedula;
 
-	@Getter(AccessLevel.NONE)
-	private String contrasena;
+	// Solo el hash con sal: la contraseña en claro no se conserva
+	@Setter(AccessLevel.NONE)
+	private Credencial credencial;
 
 	private String nombreCompleto;
 
 
 	public Usuario(String cedula, String contrasena, String nombreCompleto) {
+		this(cedula, Credencial.crear(contrasena), nombreCompleto);
+	}
+
+	public Usuario(String cedula, Credencial credencial, String nombreCompleto) {
 		this.cedula = cedula;
-		this.contrasena = contrasena;
+		this.credencial = credencial;
 		this.nombreCompleto = nombreCompleto;
 	}
 	
@@ -28,7 +33,7 @@ public abstract class Usuario {
     }
 
 	public boolean esPasswordCorrecto(String password) {
-		return this.contrasena.equals(password);
+		return this.credencial.verificar(password);
 	}
 }
 
@@ -33,4 +33,14 @@ public class Vehiculo {
 	public Tarifa obtenerTarifaEn(Puesto puesto) {
 		return puesto.getTarifaPorCategoria(this.categoria);
 	}
+
+	/**
+	 * Obtiene el monto de la tarifa que corresponde a este vehículo en un puesto.
+	 * 
+	 * @param puesto El puesto de peaje
+	 * @return El monto de la tarifa en centésimos, o {@link Puesto#SIN_TARIFA} si no existe
+	 */
+	public long obtenerMontoTarifaEn(Puesto puesto) {
+		return puesto.obtenerMontoTarifa(this.categoria);
+	}
 }
@@ -19,6 +19,7 @@ public class NotificacionDTO {
     
     private String fechaHora;
     private String mensaje;
+    private long marcaTiempo; // Fecha y hora en milisegundos (para ordenar en la vista)
     
     /**
      * Constructor que crea un DTO a partir de una entidad Notificacion.
@@ -27,7 +28,8 @@ public class NotificacionDTO {
      */
     public NotificacionDTO(Notificacion notificacion) {
         this.fechaHora = formatearFechaHora(notificacion.getFechaHora());
-        this.mensaje = notificacion.getMensaje();
+        this.mensaje = notificacion.getMensaje(); // Se arma recién aquí, a partir de la plantilla
+        this.marcaTiempo = notificacion.getMarcaTiempo();
     }
     
     /**
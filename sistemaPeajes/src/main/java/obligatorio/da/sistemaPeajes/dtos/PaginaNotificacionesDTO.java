@@ -0,0 +1,38 @@
+package obligatorio.da.sistemaPeajes.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+import obligatorio.da.sistemaPeajes.dominio.BufferNotificaciones;
+import obligatorio.da.sistemaPeajes.dominio.Notificacion;
+
+/**
+ * DTO con una página de notificaciones de un propietario, de la más reciente a la
+ * más antigua. La vista pide la página siguiente enviando cursorSiguiente (null si
+ * no hay más).
+ */
+@Getter
+@Setter
+public class PaginaNotificacionesDTO {
+
+    private List<NotificacionDTO> notificaciones;
+    private String cursorSiguiente;
+
+    public PaginaNotificacionesDTO(BufferNotificaciones.Pagina pagina) {
+        this.notificaciones = new ArrayList<>(pagina.getNotificaciones().size());
+        for (Notificacion n : pagina.getNotificaciones()) {
+            this.notificaciones.add(new NotificacionDTO(n));
+        }
+        this.cursorSiguiente = pagina.getCursorSiguiente();
+    }
+
+    private PaginaNotificacionesDTO() {
+        this.notificaciones = new ArrayList<>();
+    }
+
+    public static PaginaNotificacionesDTO vacia() {
+        return new PaginaNotificacionesDTO();
+    }
+}
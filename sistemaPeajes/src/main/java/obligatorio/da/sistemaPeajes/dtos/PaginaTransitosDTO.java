@@ -0,0 +1,29 @@
+package obligatorio.da.sistemaPeajes.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+import obligatorio.da.sistemaPeajes.dominio.HistorialTransitos;
+import obligatorio.da.sistemaPeajes.dominio.Transito;
+
+/**
+ * DTO con una página del historial de tránsitos de un propietario.
+ * La vista pide la página siguiente enviando cursorSiguiente (null si no hay más).
+ */
+@Getter
+@Setter
+public class PaginaTransitosDTO {
+
+    private List<TransitoDTO> transitos;
+    private String cursorSiguiente;
+
+    public PaginaTransitosDTO(HistorialTransitos.Pagina pagina) {
+        this.transitos = new ArrayList<>(pagina.getTransitos().size());
+        for (Transito t : pagina.getTransitos()) {
+            this.transitos.add(new TransitoDTO(t));
+        }
+        this.cursorSiguiente = pagina.getCursorSiguiente();
+    }
+}
@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
 
 /**
@@ -28,7 +29,7 @@ public class PropietarioDTO {
         this.cedula = propietario.getCedula();
         this.nombreCompleto = propietario.getNombreCompleto();
         this.estado = propietario.getEstado().getNombre();
-        this.saldoActual = propietario.getSaldoActual();
+        this.saldoActual = Dinero.aDouble(propietario.getSaldoActual());
         
         // Convertir bonificaciones asignadas a DTOs
         this.bonificaciones = new ArrayList<>();
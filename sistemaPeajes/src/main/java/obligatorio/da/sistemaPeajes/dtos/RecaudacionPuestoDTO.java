@@ -0,0 +1,22 @@
+package obligatorio.da.sistemaPeajes.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO con lo recaudado en un puesto de peaje durante un período.
+ */
+@Getter
+@Setter
+public class RecaudacionPuestoDTO {
+
+    private String puesto;
+    private int cantidadTransitos;
+    private double montoRecaudado;
+
+    public RecaudacionPuestoDTO(String puesto, int cantidadTransitos, double montoRecaudado) {
+        this.puesto = puesto;
+        this.cantidadTransitos = cantidadTransitos;
+        this.montoRecaudado = montoRecaudado;
+    }
+}
@@ -0,0 +1,23 @@
+package obligatorio.da.sistemaPeajes.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO con el resultado de registrar un lote de tránsitos.
+ */
+@Getter
+@Setter
+public class ResultadoLoteDTO {
+
+    private int registrados;
+    private List<String> errores;
+
+    public ResultadoLoteDTO(int registrados, List<String> errores) {
+        this.registrados = registrados;
+        this.errores = new ArrayList<>(errores);
+    }
+}
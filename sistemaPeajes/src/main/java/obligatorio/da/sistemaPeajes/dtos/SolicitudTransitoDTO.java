@@ -0,0 +1,19 @@
+package obligatorio.da.sistemaPeajes.dtos;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con los datos de un tránsito recibido dentro de un lote.
+ * La fecha usa el mismo formato que el emulador: yyyy-MM-dd'T'HH:mm
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SolicitudTransitoDTO {
+
+    private int posPuesto;
+    private String matricula;
+    private String fecha;
+}
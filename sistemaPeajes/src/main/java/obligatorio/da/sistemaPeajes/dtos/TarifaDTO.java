@@ -6,6 +6,7 @@ import java.text.DecimalFormatSymbols;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
 import obligatorio.da.sistemaPeajes.dominio.Tarifa;
 
 @Getter
@@ -22,7 +23,7 @@ public class TarifaDTO {
      */
     public TarifaDTO(Tarifa tarifa) {
         this.categoría = tarifa.getCategoria().getNombre();
-        this.monto = formatearMonto(tarifa.getMonto());
+        this.monto = formatearMonto(Dinero.aDouble(tarifa.getMonto()));
     }
     
     /**
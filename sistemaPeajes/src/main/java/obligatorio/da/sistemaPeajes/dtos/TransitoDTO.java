@@ -2,6 +2,7 @@ package obligatorio.da.sistemaPeajes.dtos;
 
 import lombok.Getter;
 import lombok.Setter;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
 import obligatorio.da.sistemaPeajes.dominio.Transito;
 
 /**
@@ -26,6 +27,7 @@ public class TransitoDTO {
     private final double montoPagado;        // Monto final pagado
     private final String fecha;              // Solo la fecha (dd/MM/yyyy)
     private final String hora;               // Solo la hora (HH:mm:ss)
+    private final long marcaTiempo;          // Fecha y hora en milisegundos (para ordenar en la vista)
     
     // Campos adicionales (para otros usos)
     private final String fechaHora;          // Fecha y hora completa (dd/MM/yyyy HH:mm:ss)
@@ -47,22 +49,23 @@ public class TransitoDTO {
         this.puesto = t.obtenerNombrePuesto();
         this.matricula = t.obtenerMatriculaVehiculo();
         this.categoria = t.obtenerNombreCategoria();
-        this.montoPagado = t.getMontoPagado();
+        this.montoPagado = Dinero.aDouble(t.getMontoPagado());
         
         // Delegar cálculos al experto
-        this.montoTarifa = t.obtenerMontoTarifa();
-        this.montoBonificacion = t.obtenerMontoBonificacion();
+        this.montoTarifa = Dinero.aDouble(t.obtenerMontoTarifa());
+        this.montoBonificacion = Dinero.aDouble(t.obtenerMontoBonificacion());
         
         // Delegar formateo de fechas al experto
         this.fechaHora = t.obtenerFechaHoraFormateada();
         this.fecha = t.obtenerFechaFormateada();
         this.hora = t.obtenerHoraFormateada();
+        this.marcaTiempo = t.getMarcaTiempo();
         
         // Delegar formateo de bonificación al experto
         this.bonificacion = t.obtenerNombreBonificacion();
         
         // Delegar información del propietario al experto
         this.propietario = t.obtenerNombrePropietarioConEstado();
-        this.saldoRestante = t.obtenerSaldoPropietario();
+        this.saldoRestante = Dinero.aDouble(t.obtenerSaldoPropietario());
     }
 }
@@ -3,6 +3,8 @@ package obligatorio.da.sistemaPeajes.dtos;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
+import obligatorio.da.sistemaPeajes.dominio.ResumenVehiculo;
 import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
 
 @Getter
@@ -16,13 +18,19 @@ public class VehiculoResumenDTO {
     private String categoria;
     private int cantidadTransitos;
     private double totalGastado;
+    private double totalDescontado;
 
-    public VehiculoResumenDTO(Vehiculo vehiculo, int cantidadTransitos, double totalGastado) {
+    public VehiculoResumenDTO(Vehiculo vehiculo, int cantidadTransitos, long totalGastado) {
         this.matricula = vehiculo.getMatricula();
         this.modelo = vehiculo.getModelo();
         this.color = vehiculo.getColor();
         this.categoria = vehiculo.getCategoria().getNombre();
         this.cantidadTransitos = cantidadTransitos;
-        this.totalGastado = totalGastado;
+        this.totalGastado = Dinero.aDouble(totalGastado);
+    }
+
+    public VehiculoResumenDTO(Vehiculo vehiculo, ResumenVehiculo resumen) {
+        this(vehiculo, resumen.getCantidadTransitos(), resumen.getTotalPagado());
+        this.totalDescontado = Dinero.aDouble(resumen.getTotalDescontado());
     }
 }
@@ -0,0 +1,83 @@
+package obligatorio.da.sistemaPeajes.persistencia;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import obligatorio.da.sistemaPeajes.dominio.ArchivoNotificaciones;
+import obligatorio.da.sistemaPeajes.dominio.Notificacion;
+import obligatorio.da.sistemaPeajes.dominio.Propietario;
+
+/**
+ * Archiva en un archivo de texto las notificaciones que los propietarios
+ * descartan de memoria, una por línea:
+ *
+ * <pre>
+ * cedula	fechaHora (ms)	mensaje
+ * </pre>
+ *
+ * La escritura se hace en un hilo propio, para no hacer E/S con el monitor del
+ * propietario tomado.
+ */
+public class ArchivoNotificacionesTexto implements ArchivoNotificaciones, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoNotificacionesTexto.class);
+
+    private final BufferedWriter escritor;
+    private final ExecutorService hilo = Executors.newSingleThreadExecutor(tarea -> {
+        Thread t = new Thread(tarea, "archivo-notificaciones");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ArchivoNotificacionesTexto(Path archivo) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        this.escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void archivar(Propietario propietario, Notificacion notificacion) {
+        String linea = propietario.getCedula() + "\t" + notificacion.getFechaHora().getTime() + "\t"
+                + notificacion.getMensaje().replace('\n', ' ').replace('\t', ' ');
+        try {
+            hilo.execute(() -> escribir(linea));
+        } catch (RejectedExecutionException e) {
+            // Ya se cerró el archivo; la notificación se descarta
+        }
+    }
+
+    private void escribir(String linea) {
+        try {
+            escritor.write(linea);
+            escritor.newLine();
+            escritor.flush();
+        } catch (IOException e) {
+            log.warn("No se pudo archivar una notificación: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        hilo.shutdown();
+        try {
+            hilo.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        escritor.close();
+    }
+}
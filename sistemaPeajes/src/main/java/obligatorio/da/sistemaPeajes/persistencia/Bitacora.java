@@ -0,0 +1,505 @@
+package obligatorio.da.sistemaPeajes.persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora (journal) de solo agregado escrita sobre un archivo mapeado en memoria.
+ *
+ * El archivo se divide en regiones de tamaño fijo que se mapean de a una. Cada
+ * registro tiene el formato:
+ *
+ * <pre>
+ * [int largo][long secuencia][byte tipo][datos...][int crc32]
+ * </pre>
+ *
+ * donde {@code largo} cuenta los bytes de secuencia, tipo y datos. Un largo 0
+ * indica el fin de la bitácora y un largo -1 que el resto de la región quedó sin
+ * usar y la lectura continúa en la región siguiente.
+ *
+ * El archivo comienza con un mágico "PEJ" seguido del dígito de la versión del
+ * formato de los datos y el tamaño de región. Las bitácoras nuevas se crean con
+ * la versión actual; al reproducir se informa la versión del archivo leído para
+ * poder interpretar los datos de bitácoras anteriores.
+ *
+ * Las escrituras no toman ningún bloqueo: cada registro reserva su secuencia y su
+ * lugar en la región con una única operación atómica, copia sus bytes en paralelo
+ * con los demás y se publica en orden de secuencia. Solo el paso a la región
+ * siguiente espera a que terminen de copiarse los registros de la anterior.
+ *
+ * Las escrituras solo copian el registro a la región mapeada; el volcado a disco
+ * (fsync) se agrupa: se hace en segundo plano cada {@code fsyncCadaRegistros}
+ * registros o cada {@code fsyncIntervaloMs} milisegundos, lo que ocurra primero.
+ * Con {@code fsyncCadaRegistros = 1} cada escritura se vuelca antes de retornar.
+ */
+public class Bitacora implements Closeable {
+
+    private static final int MAGICO = 0x50454A00; // "PEJ" + versión
+    // Versión 1: montos como double. Versión 2: montos en centésimos (long)
+    public static final int VERSION = 2;
+    private static final int ENCABEZADO = 8;       // mágico + tamaño de región
+    private static final int FIN_DE_REGION = -1;
+    private static final int SOBRECARGA = 4 + 8 + 1 + 4;
+    private static final int CUERPO_INICIAL = 256;
+    // Desplazamiento que marca una región cerrada mientras se mapea la siguiente
+    private static final long CERRADA = 0xFFFFFFFFL;
+    private static final int ESPERAS_ACTIVAS = 100;
+
+    private final FileChannel canal;
+    private final int version;
+    private final int tamanioRegion;
+    private final int maximoCuerpo;
+    private final int fsyncCadaRegistros;
+    private final ScheduledExecutorService sincronizador;
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    // Estado de la lectura al abrir el archivo
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer region;
+    private long inicioRegion;
+    private long siguienteSecuencia = 1;
+
+    // Región donde se agregan los registros nuevos
+    private volatile RegionEscritura escritura;
+    // Motivo por el que ya no se admiten escrituras (cierre o un registro incompleto)
+    private volatile IOException fallo;
+
+    /**
+     * Región mapeada donde se agregan registros. La reserva empaqueta en un long la
+     * cantidad de registros reservados en la región (32 bits altos) y el
+     * desplazamiento donde comienza el próximo (32 bits bajos), de modo que la
+     * secuencia y el lugar de cada registro se obtienen con un solo compareAndSet.
+     */
+    private static final class RegionEscritura {
+        final MappedByteBuffer buffer;
+        final long inicio;
+        final long primeraSecuencia;
+        final AtomicLong reserva;
+        // Hasta dónde los registros ya están copiados, avanzado en orden
+        volatile int escrito;
+
+        RegionEscritura(MappedByteBuffer buffer, long inicio, int desplazamiento, long primeraSecuencia) {
+            this.buffer = buffer;
+            this.inicio = inicio;
+            this.primeraSecuencia = primeraSecuencia;
+            this.reserva = new AtomicLong(desplazamiento);
+            this.escrito = desplazamiento;
+        }
+    }
+
+    /**
+     * Posición de la bitácora: la secuencia del próximo registro y el comienzo de la
+     * región donde se escribirá. Permite reanudar la reproducción desde ese punto.
+     */
+    public static class Posicion {
+        private final long secuencia;
+        private final long region;
+
+        public Posicion(long secuencia, long region) {
+            this.secuencia = secuencia;
+            this.region = region;
+        }
+
+        public long getSecuencia() {
+            return secuencia;
+        }
+
+        public long getRegion() {
+            return region;
+        }
+    }
+
+    /**
+     * Registro leído de la bitácora durante la reproducción.
+     */
+    public static class Registro {
+        private final int version;
+        private final long secuencia;
+        private final byte tipo;
+        private final ByteBuffer datos;
+
+        Registro(int version, long secuencia, byte tipo, ByteBuffer datos) {
+            this.version = version;
+            this.secuencia = secuencia;
+            this.tipo = tipo;
+            this.datos = datos;
+        }
+
+        /**
+         * Versión del formato de la bitácora de la que se leyó el registro.
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        public long getSecuencia() {
+            return secuencia;
+        }
+
+        public byte getTipo() {
+            return tipo;
+        }
+
+        public ByteBuffer getDatos() {
+            return datos;
+        }
+    }
+
+    private Bitacora(FileChannel canal, int version, int tamanioRegion, int fsyncCadaRegistros,
+            long fsyncIntervaloMs) {
+        this.canal = canal;
+        this.version = version;
+        this.tamanioRegion = tamanioRegion;
+        this.fsyncCadaRegistros = Math.max(1, fsyncCadaRegistros);
+        this.maximoCuerpo = tamanioRegion - ENCABEZADO - SOBRECARGA;
+        this.sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "bitacora-fsync");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.sincronizador.scheduleWithFixedDelay(this::sincronizar, fsyncIntervaloMs, fsyncIntervaloMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre (o crea) una bitácora, reproduciendo primero todos sus registros válidos.
+     * Si el último registro quedó a medio escribir se descarta y las nuevas
+     * escrituras continúan a partir del último registro válido.
+     *
+     * Si se indica una posición (por ejemplo, la de una instantánea) la lectura
+     * comienza en su región y solo se reproducen los registros a partir de su
+     * secuencia.
+     *
+     * @param archivo El archivo de la bitácora
+     * @param tamanioRegion Tamaño en bytes de cada región mapeada (solo se usa al crear el archivo)
+     * @param fsyncCadaRegistros Cantidad de registros que dispara un volcado a disco
+     * @param fsyncIntervaloMs Intervalo máximo entre volcados a disco
+     * @param desde Posición desde la que se reproduce, o null para reproducir todo
+     * @param reproductor Recibe cada registro existente, en orden
+     * @return La bitácora lista para escribir
+     * @throws IOException Si no se puede abrir o mapear el archivo
+     */
+    public static Bitacora abrir(Path archivo, int tamanioRegion, int fsyncCadaRegistros, long fsyncIntervaloMs,
+            Posicion desde, Consumer<Registro> reproductor) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            int region = tamanioRegion;
+            int version = VERSION;
+            if (canal.size() >= ENCABEZADO) {
+                ByteBuffer encabezado = ByteBuffer.allocate(ENCABEZADO);
+                canal.read(encabezado, 0);
+                encabezado.flip();
+                int magico = encabezado.getInt();
+                version = (magico & 0xFF) - '0';
+                if ((magico & 0xFFFFFF00) != MAGICO || version < 1 || version > VERSION) {
+                    throw new IOException("El archivo " + archivo + " no es una bitácora válida");
+                }
+                region = encabezado.getInt();
+            }
+            Bitacora bitacora = new Bitacora(canal, version, region, fsyncCadaRegistros, fsyncIntervaloMs);
+            bitacora.reproducir(desde, reproductor);
+            bitacora.escritura = new RegionEscritura(bitacora.region, bitacora.inicioRegion,
+                    bitacora.region.position(), bitacora.siguienteSecuencia);
+            return bitacora;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private void reproducir(Posicion desde, Consumer<Registro> reproductor) throws IOException {
+        long tamanioArchivo = canal.size();
+        long desdeSecuencia = (desde != null) ? desde.getSecuencia() : 0;
+        // Nunca reutilizar secuencias ya cubiertas por la posición indicada, aunque
+        // el archivo se haya perdido
+        siguienteSecuencia = Math.max(siguienteSecuencia, desdeSecuencia);
+
+        if (tamanioArchivo < ENCABEZADO) {
+            region = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanioRegion);
+            region.putInt(MAGICO | ('0' + version)).putInt(tamanioRegion);
+            return;
+        }
+        if (desde != null && desde.getRegion() % tamanioRegion == 0 && desde.getRegion() < tamanioArchivo) {
+            inicioRegion = desde.getRegion();
+        }
+        region = canal.map(FileChannel.MapMode.READ_WRITE, inicioRegion, tamanioRegion);
+        region.position(inicioRegion == 0 ? ENCABEZADO : 0);
+
+        while (true) {
+            if (region.remaining() < 4) {
+                if (!avanzarRegionExistente(tamanioArchivo)) {
+                    return;
+                }
+                continue;
+            }
+            int inicio = region.position();
+            int largo = region.getInt(inicio);
+            if (largo == 0) {
+                // Con escrituras concurrentes pueden haber quedado registros completos
+                // después de uno que no llegó a copiarse
+                descartarDesde(inicio);
+                return;
+            }
+            if (largo == FIN_DE_REGION) {
+                if (!avanzarRegionExistente(tamanioArchivo)) {
+                    region.position(inicio);
+                    return;
+                }
+                continue;
+            }
+            if (largo < 9 || largo > region.remaining() - 8) {
+                descartarDesde(inicio);
+                return;
+            }
+            ByteBuffer registro = region.duplicate();
+            registro.position(inicio + 4).limit(inicio + 4 + largo);
+            crc.reset();
+            crc.update(registro.duplicate());
+            if ((int) crc.getValue() != region.getInt(inicio + 4 + largo)) {
+                descartarDesde(inicio);
+                return;
+            }
+            long secuencia = registro.getLong();
+            byte tipo = registro.get();
+            if (secuencia >= desdeSecuencia) {
+                reproductor.accept(new Registro(version, secuencia, tipo, registro.slice().asReadOnlyBuffer()));
+            }
+            siguienteSecuencia = Math.max(siguienteSecuencia, secuencia + 1);
+            region.position(inicio + 4 + largo + 4);
+        }
+    }
+
+    private boolean avanzarRegionExistente(long tamanioArchivo) throws IOException {
+        if (inicioRegion + tamanioRegion >= tamanioArchivo) {
+            return false;
+        }
+        inicioRegion += tamanioRegion;
+        region = canal.map(FileChannel.MapMode.READ_WRITE, inicioRegion, tamanioRegion);
+        return true;
+    }
+
+    /**
+     * Borra un registro incompleto (y lo que haya después) dentro de la región actual.
+     * Solo se escriben los bytes que no son cero, para no ocupar en disco el resto de
+     * una región que nunca se usó.
+     */
+    private void descartarDesde(int posicion) {
+        for (int i = posicion; i < region.limit(); i++) {
+            if (region.get(i) != 0) {
+                region.put(i, (byte) 0);
+            }
+        }
+        region.position(posicion);
+    }
+
+    /**
+     * Agrega un registro a la bitácora. Puede invocarse desde varios hilos a la vez:
+     * los registros quedan en el archivo en el orden de sus secuencias.
+     *
+     * @param tipo El tipo de registro
+     * @param datos Escribe los datos del registro en el buffer recibido (puede
+     *            invocarse más de una vez si los datos no entran en el primero)
+     * @return La secuencia asignada al registro
+     * @throws UncheckedIOException Si la bitácora está cerrada o no se puede extender
+     */
+    public long escribir(byte tipo, Consumer<ByteBuffer> datos) {
+        ByteBuffer cuerpo = armarCuerpo(tipo, datos);
+        int largo = cuerpo.remaining();
+        int ocupa = 4 + largo + 4;
+
+        while (true) {
+            verificarAbierta();
+            RegionEscritura actual = escritura;
+            long reserva = actual.reserva.get();
+            int desplazamiento = (int) reserva;
+            if (desplazamiento == (int) CERRADA) {
+                // Otro hilo está mapeando la región siguiente
+                Thread.yield();
+            } else if (desplazamiento + ocupa > tamanioRegion) {
+                if (actual.reserva.compareAndSet(reserva, reserva | CERRADA)) {
+                    siguienteRegion(actual, reserva);
+                }
+            } else if (actual.reserva.compareAndSet(reserva, reserva + (1L << 32) + ocupa)) {
+                long secuencia = actual.primeraSecuencia + (reserva >>> 32);
+                copiar(actual, desplazamiento, secuencia, cuerpo, largo);
+                volcar(actual);
+                return secuencia;
+            }
+        }
+    }
+
+    /**
+     * Arma secuencia, tipo y datos antes de reservar lugar, para que entre la reserva
+     * y la publicación del registro solo se copien bytes.
+     */
+    private ByteBuffer armarCuerpo(byte tipo, Consumer<ByteBuffer> datos) {
+        int capacidad = Math.min(CUERPO_INICIAL, maximoCuerpo);
+        while (true) {
+            ByteBuffer cuerpo = ByteBuffer.allocate(capacidad);
+            try {
+                // La secuencia se completa al reservar el lugar
+                cuerpo.putLong(0).put(tipo);
+                datos.accept(cuerpo);
+                return cuerpo.flip();
+            } catch (BufferOverflowException e) {
+                if (capacidad == maximoCuerpo) {
+                    throw e;
+                }
+                capacidad = Math.min(capacidad * 2, maximoCuerpo);
+            }
+        }
+    }
+
+    private void copiar(RegionEscritura region, int desplazamiento, long secuencia, ByteBuffer cuerpo, int largo) {
+        try {
+            cuerpo.putLong(0, secuencia);
+            CRC32 crcRegistro = new CRC32();
+            crcRegistro.update(cuerpo.array(), 0, largo);
+            region.buffer.put(desplazamiento + 4, cuerpo.array(), 0, largo);
+            region.buffer.putInt(desplazamiento + 4 + largo, (int) crcRegistro.getValue());
+            // El largo va al final: un registro a medio copiar se lee como el fin de la bitácora
+            region.buffer.putInt(desplazamiento, largo);
+        } catch (RuntimeException | Error e) {
+            // Lo que se escriba después no se podría reproducir
+            fallo = new IOException("Un registro de la bitácora quedó incompleto", e);
+            throw e;
+        } finally {
+            // Se publica aunque falle, para no dejar esperando a los registros siguientes
+            esperarTurno(region, desplazamiento);
+            region.escrito = desplazamiento + 4 + largo + 4;
+        }
+    }
+
+    private static void esperarTurno(RegionEscritura region, int desplazamiento) {
+        for (int intentos = 0; region.escrito != desplazamiento; intentos++) {
+            if (intentos < ESPERAS_ACTIVAS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Pasa a la región siguiente. La invoca solo el hilo que cerró la región actual,
+     * después de que terminen de copiarse los registros ya reservados en ella.
+     */
+    private void siguienteRegion(RegionEscritura actual, long reserva) {
+        int fin = (int) reserva;
+        esperarTurno(actual, fin);
+        MappedByteBuffer nueva;
+        try {
+            nueva = canal.map(FileChannel.MapMode.READ_WRITE, actual.inicio + tamanioRegion, tamanioRegion);
+        } catch (IOException e) {
+            // La región vuelve a quedar abierta: la próxima escritura reintenta
+            actual.reserva.set(reserva);
+            throw new UncheckedIOException("No se pudo extender la bitácora", e);
+        }
+        if (tamanioRegion - fin >= 4) {
+            actual.buffer.putInt(fin, FIN_DE_REGION);
+        }
+        actual.buffer.force();
+        escritura = new RegionEscritura(nueva, actual.inicio + tamanioRegion, 0,
+                actual.primeraSecuencia + (reserva >>> 32));
+    }
+
+    private void volcar(RegionEscritura actual) {
+        if (fsyncCadaRegistros == 1) {
+            // Los registros anteriores de la región ya están publicados
+            actual.buffer.force();
+        } else if (pendientes.incrementAndGet() >= fsyncCadaRegistros) {
+            try {
+                sincronizador.execute(this::sincronizar);
+            } catch (RejectedExecutionException e) {
+                // La bitácora se está cerrando y close() vuelca lo pendiente
+            }
+        }
+    }
+
+    private void verificarAbierta() {
+        IOException motivo = fallo;
+        if (motivo != null) {
+            throw new UncheckedIOException("La bitácora no admite más registros", motivo);
+        }
+    }
+
+    /**
+     * Vuelca a disco los registros escritos desde el último volcado.
+     */
+    public void sincronizar() {
+        if (pendientes.getAndSet(0) == 0) {
+            return;
+        }
+        // Las regiones anteriores se vuelcan al cerrarlas
+        escritura.buffer.force();
+    }
+
+    /**
+     * Versión del formato de los datos del archivo. Los registros nuevos se agregan
+     * con el mismo formato, por lo que una bitácora de una versión anterior debe
+     * reemplazarse por una nueva antes de escribir.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Secuencia que recibirá el próximo registro.
+     */
+    public long getSiguienteSecuencia() {
+        RegionEscritura actual = escritura;
+        return actual.primeraSecuencia + (actual.reserva.get() >>> 32);
+    }
+
+    /**
+     * Posición actual de escritura: todo registro escrito a partir de ahora tendrá
+     * una secuencia mayor o igual y estará en esta región o en una posterior.
+     */
+    public Posicion getPosicion() {
+        RegionEscritura actual = escritura;
+        return new Posicion(actual.primeraSecuencia + (actual.reserva.get() >>> 32), actual.inicio);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fallo = new ClosedChannelException();
+        sincronizador.shutdown();
+        escritura.buffer.force();
+        canal.close();
+    }
+
+    // ==================== Codificación de datos ====================
+
+    public static void escribirTexto(ByteBuffer destino, String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        destino.putShort((short) bytes.length).put(bytes);
+    }
+
+    public static String leerTexto(ByteBuffer origen) {
+        byte[] bytes = new byte[origen.getShort() & 0xFFFF];
+        origen.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package obligatorio.da.sistemaPeajes.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Archivo binario con una instantánea (snapshot) del estado del sistema.
+ *
+ * El formato es:
+ *
+ * <pre>
+ * [int mágico][long secuencia][long región][datos...][long crc32]
+ * </pre>
+ *
+ * donde el mágico es "PES" seguido del dígito de la versión del formato de los
+ * datos (al leer se informa la versión, para poder cargar instantáneas
+ * anteriores) y secuencia y región son la posición de la bitácora a partir de la cual hay
+ * que reproducir para completar el estado. La instantánea se escribe en un archivo
+ * temporal que luego reemplaza al anterior con un movimiento atómico, por lo que
+ * siempre hay una instantánea completa en disco.
+ */
+public final class Instantanea {
+
+    private static final int MAGICO = 0x50455300; // "PES" + versión
+    // Versión 3: montos en centésimos. Versión 4: contraseñas como hash con sal
+    private static final int VERSION = 4;
+
+    /**
+     * Escribe el contenido de una instantánea.
+     */
+    @FunctionalInterface
+    public interface Escritor {
+        void escribir(DataOutputStream salida) throws IOException;
+    }
+
+    /**
+     * Lee el contenido de una instantánea escrita con la versión de formato indicada.
+     */
+    @FunctionalInterface
+    public interface Lector {
+        void leer(DataInputStream entrada, int version) throws IOException;
+    }
+
+    private Instantanea() {
+    }
+
+    /**
+     * Guarda una instantánea reemplazando la anterior.
+     *
+     * @param archivo El archivo de la instantánea
+     * @param posicion La posición de la bitácora desde la que se debe reproducir
+     * @param escritor Escribe el estado
+     * @throws IOException Si no se puede escribir el archivo
+     */
+    public static void guardar(Path archivo, Bitacora.Posicion posicion, Escritor escritor) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            OutputStream flujo = Channels.newOutputStream(canal);
+            DataOutputStream salida = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(flujo, crc), 64 * 1024));
+            salida.writeInt(MAGICO | ('0' + VERSION));
+            salida.writeLong(posicion.getSecuencia());
+            salida.writeLong(posicion.getRegion());
+            escritor.escribir(salida);
+            salida.flush();
+            new DataOutputStream(flujo).writeLong(crc.getValue());
+            canal.force(true);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carga una instantánea, si existe.
+     *
+     * @param archivo El archivo de la instantánea
+     * @param lector Lee el estado
+     * @return La posición de la bitácora desde la que se debe reproducir, o null si no hay instantánea
+     * @throws IOException Si el archivo no se puede leer o está dañado
+     */
+    public static Bitacora.Posicion cargar(Path archivo, Lector lector) throws IOException {
+        if (!Files.exists(archivo)) {
+            return null;
+        }
+        try (InputStream flujo = new BufferedInputStream(Files.newInputStream(archivo), 64 * 1024)) {
+            CRC32 crc = new CRC32();
+            DataInputStream entrada = new DataInputStream(new CheckedInputStream(flujo, crc));
+            int magico = entrada.readInt();
+            int version = (magico & 0xFF) - '0';
+            if ((magico & 0xFFFFFF00) != MAGICO || version < 1 || version > VERSION) {
+                throw new IOException("El archivo " + archivo + " no es una instantánea válida");
+            }
+            Bitacora.Posicion posicion = new Bitacora.Posicion(entrada.readLong(), entrada.readLong());
+            lector.leer(entrada, version);
+            long esperado = crc.getValue();
+            if (new DataInputStream(flujo).readLong() != esperado) {
+                throw new IOException("La instantánea " + archivo + " está dañada");
+            }
+            return posicion;
+        }
+    }
+}
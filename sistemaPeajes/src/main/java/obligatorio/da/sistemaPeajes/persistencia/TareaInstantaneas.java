@@ -0,0 +1,21 @@
+package obligatorio.da.sistemaPeajes.persistencia;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import obligatorio.da.sistemaPeajes.servicios.Fachada;
+
+/**
+ * Guarda periódicamente una instantánea del estado en el hilo de tareas
+ * programadas, para que al reiniciar solo haya que reproducir la cola de la
+ * bitácora.
+ */
+@Component
+public class TareaInstantaneas {
+
+    @Scheduled(initialDelayString = "${peajes.instantanea.intervalo-ms:300000}",
+            fixedDelayString = "${peajes.instantanea.intervalo-ms:300000}")
+    public void guardarInstantanea() {
+        Fachada.getInstancia().guardarInstantanea();
+    }
+}
@@ -1,15 +1,23 @@
 package obligatorio.da.sistemaPeajes.servicios;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import excepciones.PeajeException;
 import obligatorio.da.sistemaPeajes.dominio.Administrador;
+import obligatorio.da.sistemaPeajes.dominio.AlmacenTransitos;
+import obligatorio.da.sistemaPeajes.dominio.ArchivoNotificaciones;
+import obligatorio.da.sistemaPeajes.dominio.BufferNotificaciones;
 import obligatorio.da.sistemaPeajes.dominio.EstadoPropietario;
 import obligatorio.da.sistemaPeajes.dominio.EstrategiaBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.HistorialTransitos;
 import obligatorio.da.sistemaPeajes.dominio.Notificacion;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
 import obligatorio.da.sistemaPeajes.dominio.Puesto;
+import obligatorio.da.sistemaPeajes.dominio.ResumenVehiculo;
 import obligatorio.da.sistemaPeajes.dominio.Tarifa;
 import obligatorio.da.sistemaPeajes.dominio.Transito;
 import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
@@ -17,17 +25,13 @@ import observador.Observable;
 
 public class Fachada extends Observable {
 
-    // Definición de eventos para el patrón Observer
-    public enum Eventos {
-        TRANSITO_REGISTRADO
-    }
-
-    private static final Fachada instancia = new Fachada();
+    private static volatile Fachada instancia = new Fachada();
     private final ServicioUsuarios su = new ServicioUsuarios();
     private final ServicioNotificaciones sn = new ServicioNotificaciones();
     private final ServicioTransito st = new ServicioTransito();
     private final ServicioBonificaciones sb = new ServicioBonificaciones();
     private final ServicioVehiculos sv = new ServicioVehiculos();
+    private final ServicioPersistencia sp = new ServicioPersistencia();
 
 
     private Fachada() {
@@ -38,14 +42,85 @@ public class Fachada extends Observable {
         return instancia;
     }
 
+    /**
+     * Reemplaza la instancia por una fachada vacía, sin persistencia iniciada. Solo
+     * para las pruebas, que así no comparten estado entre sí.
+     *
+     * @return La nueva instancia
+     */
+    static Fachada reiniciar() {
+        instancia = new Fachada();
+        return instancia;
+    }
+
+    ServicioPersistencia getPersistencia() {
+        return sp;
+    }
+
+    /**
+     * Configura cuántas notificaciones conserva en memoria cada propietario y dónde
+     * se archivan las que se descartan.
+     *
+     * @param capacidad La cantidad de notificaciones por propietario
+     * @param archivo Dónde se archivan las descartadas (null para descartarlas)
+     */
+    public void configurarNotificaciones(int capacidad, ArchivoNotificaciones archivo) {
+        Propietario.configurarNotificaciones(capacidad, archivo);
+    }
+
+    /**
+     * Abre la bitácora, reconstruye el estado a partir de sus registros y comienza
+     * a registrar los nuevos cambios.
+     *
+     * @param archivo El archivo de la bitácora
+     * @param tamanioRegion Tamaño en bytes de cada región mapeada
+     * @param fsyncCadaRegistros Cantidad de registros que dispara un volcado a disco
+     * @param fsyncIntervaloMs Intervalo máximo entre volcados a disco
+     * @throws IOException Si no se puede abrir la bitácora
+     */
+    public void iniciarPersistencia(Path archivo, int tamanioRegion, int fsyncCadaRegistros, long fsyncIntervaloMs)
+            throws IOException {
+        sp.iniciar(archivo, tamanioRegion, fsyncCadaRegistros, fsyncIntervaloMs);
+    }
+
+    /**
+     * Carga la última instantánea guardada, si existe. Debe invocarse antes de
+     * {@link #iniciarPersistencia}, que completa el estado con los registros de la
+     * bitácora posteriores a la instantánea.
+     *
+     * @param archivo El archivo de la instantánea
+     * @return true si se cargó una instantánea, false si no había ninguna
+     * @throws IOException Si la instantánea no se puede leer
+     */
+    public boolean cargarInstantanea(Path archivo) throws IOException {
+        return sp.cargarInstantanea(archivo);
+    }
+
+    /**
+     * Guarda una instantánea del estado actual sin detener el registro de cambios.
+     */
+    public void guardarInstantanea() {
+        sp.guardarInstantanea();
+    }
+
+    public void detenerPersistencia() {
+        sp.detener();
+    }
+
     public List<EstrategiaBonificacion> getBonificaciones() {
         return sb.getBonificaciones();
     }
 
-    public void asignarBonificacion(Propietario propietario, Puesto puesto, EstrategiaBonificacion bonificacion) {
+    public void asignarBonificacion(Propietario propietario, Puesto puesto, EstrategiaBonificacion bonificacion)
+            throws PeajeException {
         sb.asignarBonificacion(propietario, puesto, bonificacion);
     }
 
+    public void asignarBonificacion(Propietario propietario, Puesto puesto, EstrategiaBonificacion bonificacion, Date fechaAsignada)
+            throws PeajeException {
+        sb.asignarBonificacion(propietario, puesto, bonificacion, fechaAsignada);
+    }
+
     /**
      * Asigna una bonificación a un propietario para un puesto específico con todas las validaciones necesarias.
      *
@@ -87,17 +162,59 @@ public class Fachada extends Observable {
         return st.getPuestos();
     }
 
+    public int posicionPuesto(Puesto puesto) {
+        return st.posicionPuesto(puesto);
+    }
+
     public List<Tarifa> listarTarifas(Puesto puesto) {
         return st.listarTarifas(puesto);
     }
     
+    public Map<Puesto, AlmacenTransitos.Recaudacion> obtenerRecaudacionPorPuesto(Date desde, Date hasta) {
+        return st.obtenerRecaudacionPorPuesto(desde, hasta);
+    }
+
+    public int archivarTransitosAnterioresA(Date limite) {
+        return st.archivarTransitosAnterioresA(limite);
+    }
+
+    public int cantidadTransitosArchivados() {
+        return st.cantidadTransitosArchivados();
+    }
+
     public List<Transito> obtenerTransitosPropietario(Propietario propietario){
         return st.obtenerTransitosPropietario(propietario);
     }
+
+    public HistorialTransitos.Pagina obtenerPaginaTransitosPropietario(Propietario propietario, String cursor,
+            int limite) throws PeajeException {
+        return st.obtenerPaginaTransitosPropietario(propietario, cursor, limite);
+    }
+
+    public List<Transito> obtenerTransitosPropietarioDesde(Propietario propietario, int desde) {
+        return st.obtenerTransitosPropietarioDesde(propietario, desde);
+    }
+
+    public int[] obtenerPosicionesTransitosPropietario(Propietario propietario) {
+        return st.obtenerPosicionesTransitosPropietario(propietario);
+    }
+
+    public AlmacenTransitos getAlmacenTransitos() {
+        return st.getAlmacenTransitos();
+    }
     
     public List<Notificacion> obtenerNotificacionesDePropietario(Propietario propietario){
         return sn.obtenerNotificaciones(propietario);
     }
+
+    public BufferNotificaciones.Pagina obtenerPaginaNotificacionesDePropietario(Propietario propietario,
+            String cursor, int limite) throws PeajeException {
+        return sn.obtenerPaginaNotificaciones(propietario, cursor, limite);
+    }
+
+    public List<Notificacion> obtenerNotificacionesDePropietarioDesde(Propietario propietario, int desde) {
+        return sn.obtenerNotificacionesDesde(propietario, desde);
+    }
     
     /**
      * Borra todas las notificaciones de un propietario.
@@ -142,12 +259,16 @@ public class Fachada extends Observable {
         sn.notificarCambioEstado(propietario, fechaHora);
     }
     
-    public int contarTransitosDeVehiculo(Propietario propietario, Vehiculo vehiculo) {
-        return st.contarTransitosDeVehiculo(propietario, vehiculo);
+    public int contarTransitosDeVehiculo(Vehiculo vehiculo) {
+        return st.contarTransitosDeVehiculo(vehiculo);
     }
 
-    public double totalGastadoPorVehiculo(Propietario propietario, Vehiculo vehiculo) {
-        return st.totalGastadoPorVehiculo(propietario, vehiculo);
+    public long totalGastadoPorVehiculo(Vehiculo vehiculo) {
+        return st.totalGastadoPorVehiculo(vehiculo);
+    }
+
+    public ResumenVehiculo obtenerResumenVehiculo(Vehiculo vehiculo) {
+        return st.obtenerResumenVehiculo(vehiculo);
     }
     
 
@@ -156,10 +277,33 @@ public class Fachada extends Observable {
         return transito;
     }
 
+    // Agrega un tránsito ya cobrado (al cargar una instantánea)
+    void agregarTransito(Transito transito) {
+        st.agregar(transito);
+    }
+
+    public Transito reproducirTransito(Puesto puesto, Vehiculo vehiculo, boolean conBonificacion, long montoPagado, Date fechaHora) {
+        return st.reproducirTransito(puesto, vehiculo, conBonificacion, montoPagado, fechaHora);
+    }
+
+    /**
+     * Registra un lote de tránsitos agrupando el procesamiento por propietario.
+     * 
+     * @param solicitudes Los tránsitos a registrar
+     * @return El resultado con los tránsitos registrados y los errores por posición
+     */
+    public ServicioTransito.ResultadoLote registrarTransitos(List<ServicioTransito.SolicitudTransito> solicitudes) {
+        return st.registrarTransitos(solicitudes);
+    }
+
     public List<Propietario> getPropietarios() {
         return su.getPropietarios();
     }
 
+    public List<Administrador> getAdministradores() {
+        return su.getAdministradores();
+    }
+
     public Propietario buscarPropietarioPorCedula(String cedula) throws PeajeException {
         return su.buscarPropietarioPorCedula(cedula);
     }
@@ -185,6 +329,17 @@ public class Fachada extends Observable {
         su.cambiarEstadoPropietario(propietario, nuevoEstado);
     }
     
+    /**
+     * Agrega saldo a un propietario.
+     * 
+     * @param propietario El propietario al que se le agrega saldo
+     * @param monto El monto a agregar
+     * @throws PeajeException Si el monto no es válido
+     */
+    public void agregarSaldo(Propietario propietario, long monto) throws PeajeException {
+        su.agregarSaldo(propietario, monto);
+    }
+
     public void agregarVehiculo(Vehiculo vehiculo, Propietario propietario) throws PeajeException {
         sv.agregarVehiculo(vehiculo, propietario);
     }
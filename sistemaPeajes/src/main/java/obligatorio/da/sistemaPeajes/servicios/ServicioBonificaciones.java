@@ -1,6 +1,7 @@
 package obligatorio.da.sistemaPeajes.servicios;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
@@ -58,14 +59,38 @@ public class ServicioBonificaciones {
 	 * @param propietario Propietario al que se le asigna la bonificación.
 	 * @param puesto Puesto para el cual aplica la bonificación.
 	 * @param bonificacion Estrategia de bonificación a asociar.
+	 * @throws excepciones.PeajeException Si ya tiene una bonificación asignada para ese puesto
 	 */
-	public void asignarBonificacion(Propietario propietario, Puesto puesto, EstrategiaBonificacion bonificacion) {
+	public void asignarBonificacion(Propietario propietario, Puesto puesto, EstrategiaBonificacion bonificacion)
+			throws excepciones.PeajeException {
+		asignarBonificacion(propietario, puesto, bonificacion, new Date());
+	}
+
+	/**
+	 * Asigna una bonificación a un propietario para un puesto específico con la
+	 * fecha de asignación indicada, y la registra en la bitácora.
+	 *
+	 * @param propietario Propietario al que se le asigna la bonificación.
+	 * @param puesto Puesto para el cual aplica la bonificación.
+	 * @param bonificacion Estrategia de bonificación a asociar.
+	 * @param fechaAsignada Fecha de la asignación.
+	 * @throws excepciones.PeajeException Si ya tiene una bonificación asignada para ese puesto
+	 */
+	public void asignarBonificacion(Propietario propietario, Puesto puesto, EstrategiaBonificacion bonificacion,
+			Date fechaAsignada) throws excepciones.PeajeException {
 		if (propietario == null || puesto == null || bonificacion == null) {
 			return; // En una versión futura podría lanzarse una excepción controlada.
 		}
-        
-		AsignacionBonificacion asignacion = new AsignacionBonificacion(bonificacion, puesto, new java.util.Date());
-		propietario.agregarBonificacion(asignacion);
+
+		AsignacionBonificacion asignacion = new AsignacionBonificacion(bonificacion, puesto, fechaAsignada);
+		synchronized (propietario) {
+			// Se valida antes de registrar en la bitácora, que se escribe antes de aplicar
+			if (propietario.obtenerAsignacion(puesto) != null) {
+				throw new excepciones.PeajeException("Ya tiene una bonificación asignada para ese puesto");
+			}
+			Fachada.getInstancia().getPersistencia().bonificacionAsignada(propietario, asignacion);
+			propietario.agregarBonificacion(asignacion);
+		}
 	}
 
 	/**
@@ -82,15 +107,7 @@ public class ServicioBonificaciones {
 			return null;
 		}
 
-		// Itera sobre las bonificaciones del propietario
-		for (AsignacionBonificacion asignacion : propietario.getBonificaciones()) {
-			// Verifica si el puesto de la asignación coincide con el puesto buscado
-			if (asignacion.getPuesto() != null && asignacion.getPuesto().equals(puesto)) {
-				return asignacion;
-			}
-		}
-
-		return null;
+		return propietario.obtenerAsignacion(puesto);
 	}
 
 	/**
@@ -128,18 +145,22 @@ public class ServicioBonificaciones {
 			throw new excepciones.PeajeException("Debe especificar un puesto");
 		}
 
-		// Validar que el propietario no esté deshabilitado
-		if (!propietario.puedeAsignarBonificacion()) {
-			throw new excepciones.PeajeException("El propietario esta deshabilitado. No se pueden asignar bonificaciones");
-		}
+		// Las validaciones y el alta se hacen con el monitor del propietario tomado:
+		// dos asignaciones simultáneas para el mismo puesto no pueden pasar ambas
+		synchronized (propietario) {
+			// Validar que el propietario no esté deshabilitado
+			if (!propietario.puedeAsignarBonificacion()) {
+				throw new excepciones.PeajeException("El propietario esta deshabilitado. No se pueden asignar bonificaciones");
+			}
 
-		// Validar que el propietario no tenga ya una bonificación para ese puesto
-		if (tieneBonificacionParaPuesto(propietario, puesto)) {
-			throw new excepciones.PeajeException("Ya tiene una bonificación asignada para ese puesto");
-		}
+			// Validar que el propietario no tenga ya una bonificación para ese puesto
+			if (tieneBonificacionParaPuesto(propietario, puesto)) {
+				throw new excepciones.PeajeException("Ya tiene una bonificación asignada para ese puesto");
+			}
 
-		// Asignar la bonificación
-		asignarBonificacion(propietario, puesto, bonificacion);
+			// Asignar la bonificación
+			asignarBonificacion(propietario, puesto, bonificacion);
+		}
 	}
 }
 
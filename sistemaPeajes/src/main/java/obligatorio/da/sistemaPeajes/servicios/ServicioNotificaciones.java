@@ -1,10 +1,11 @@
 package obligatorio.da.sistemaPeajes.servicios;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import excepciones.PeajeException;
+import obligatorio.da.sistemaPeajes.dominio.BufferNotificaciones;
 import obligatorio.da.sistemaPeajes.dominio.Notificacion;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
 import obligatorio.da.sistemaPeajes.dominio.Puesto;
@@ -63,14 +64,36 @@ public class ServicioNotificaciones {
     }
     
     /**
-     * Obtiene todas las notificaciones de un propietario.
+     * Obtiene todas las notificaciones de un propietario, de la más reciente a la
+     * más antigua (se registran en orden, así que no hace falta ordenarlas).
      */
- public List<Notificacion> obtenerNotificaciones(Propietario propietario) {
-    return propietario.getNotificaciones().stream()
-            .sorted(Comparator.comparing(Notificacion::getFechaHora).reversed())
-            .collect(Collectors.toList());
-}
+    public List<Notificacion> obtenerNotificaciones(Propietario propietario) {
+        return new ArrayList<>(propietario.getNotificaciones().reversed());
+    }
+
+    /**
+     * Obtiene una página de notificaciones de un propietario, de la más reciente a
+     * la más antigua.
+     * 
+     * @param propietario El propietario
+     * @param cursor El cursor de la página anterior, o null para las más recientes
+     * @param limite La cantidad máxima de notificaciones
+     * @return La página y el cursor de la siguiente
+     * @throws PeajeException Si el cursor no es válido
+     */
+    public BufferNotificaciones.Pagina obtenerPaginaNotificaciones(Propietario propietario, String cursor,
+            int limite) throws PeajeException {
+        return propietario.getPaginaNotificaciones(cursor, limite);
+    }
     
+    /**
+     * Obtiene las notificaciones de un propietario registradas a partir de una
+     * posición, en orden de registro.
+     */
+    public List<Notificacion> obtenerNotificacionesDesde(Propietario propietario, int desde) {
+        return propietario.getNotificacionesDesde(desde);
+    }
+
     /**
      * Borra todas las notificaciones de un propietario.
      * 
@@ -0,0 +1,622 @@
+package obligatorio.da.sistemaPeajes.servicios;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import excepciones.PeajeException;
+import obligatorio.da.sistemaPeajes.dominio.Administrador;
+import obligatorio.da.sistemaPeajes.dominio.AlmacenTransitos;
+import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.Categoria;
+import obligatorio.da.sistemaPeajes.dominio.Credencial;
+import obligatorio.da.sistemaPeajes.dominio.Dinero;
+import obligatorio.da.sistemaPeajes.dominio.EstadoPropietario;
+import obligatorio.da.sistemaPeajes.dominio.EstrategiaBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.Notificacion;
+import obligatorio.da.sistemaPeajes.dominio.Propietario;
+import obligatorio.da.sistemaPeajes.dominio.Puesto;
+import obligatorio.da.sistemaPeajes.dominio.Tarifa;
+import obligatorio.da.sistemaPeajes.dominio.Transito;
+import obligatorio.da.sistemaPeajes.dominio.Usuario;
+import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
+import obligatorio.da.sistemaPeajes.persistencia.Bitacora;
+import obligatorio.da.sistemaPeajes.persistencia.Instantanea;
+
+/**
+ * Servicio que registra en la bitácora los cambios de estado del sistema y los
+ * reproduce al iniciar la aplicación.
+ *
+ * Los registros describen el resultado de cada operación (por ejemplo, el monto
+ * efectivamente cobrado en un tránsito) y se escriben con el monitor del
+ * propietario tomado, por lo que al reproducirlos no se vuelven a evaluar las
+ * reglas de negocio y el orden por propietario es el mismo que el original.
+ * Cada registro se escribe después de validar la operación y antes de aplicarla
+ * en memoria: si la escritura falla, el cambio no se aplica.
+ *
+ * Periódicamente se guarda una instantánea del estado para que al iniciar solo
+ * haya que reproducir la cola de la bitácora. La instantánea no detiene el
+ * registro de tránsitos: cada propietario se copia con su monitor tomado junto
+ * con la secuencia de su último registro, y al reproducir se omiten los registros
+ * que la copia ya incluía.
+ */
+public class ServicioPersistencia {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioPersistencia.class);
+
+    // Tipos de registro de la bitácora
+    static final byte TRANSITO = 1;
+    static final byte SALDO_AGREGADO = 2;
+    static final byte ESTADO_CAMBIADO = 3;
+    static final byte BONIFICACION_ASIGNADA = 4;
+
+    private static final Notificacion.Plantilla[] PLANTILLAS = Notificacion.Plantilla.values();
+
+    private Bitacora bitacora;
+
+    // Solo se registra una vez terminada la reproducción
+    private volatile boolean activa;
+
+    // Secuencia del último registro escrito para cada propietario
+    private final Map<Propietario, Long> ultimaSecuencia = new ConcurrentHashMap<>();
+
+    // Instantanea cargada al iniciar: posición de la bitácora desde la que se
+    // reproduce y secuencia hasta la que cada propietario ya estaba incluido
+    private Path archivoInstantanea;
+    private Bitacora.Posicion posicionInstantanea;
+    private final Map<Propietario, Long> secuenciaInstantanea = new HashMap<>();
+    private long secuenciaUltimaInstantanea;
+
+    Bitacora getBitacora() {
+        return bitacora;
+    }
+
+    /**
+     * Abre la bitácora, reproduce los cambios registrados y a partir de ese momento
+     * comienza a registrar los nuevos.
+     *
+     * @param archivo El archivo de la bitácora
+     * @param tamanioRegion Tamaño en bytes de cada región mapeada
+     * @param fsyncCadaRegistros Cantidad de registros que dispara un volcado a disco
+     * @param fsyncIntervaloMs Intervalo máximo entre volcados a disco
+     * @throws IOException Si no se puede abrir la bitácora
+     */
+    public synchronized void iniciar(Path archivo, int tamanioRegion, int fsyncCadaRegistros, long fsyncIntervaloMs)
+            throws IOException {
+        if (bitacora != null) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        int[] reproducidos = new int[1];
+        bitacora = Bitacora.abrir(archivo, tamanioRegion, fsyncCadaRegistros, fsyncIntervaloMs, posicionInstantanea,
+                registro -> {
+                    reproducir(registro);
+                    reproducidos[0]++;
+                });
+        secuenciaInstantanea.clear();
+        log.info("Bitácora {}: {} registros reproducidos en {} ms", archivo, reproducidos[0],
+                (System.nanoTime() - inicio) / 1_000_000);
+        if (bitacora.getVersion() < Bitacora.VERSION) {
+            migrarBitacora(archivo, tamanioRegion, fsyncCadaRegistros, fsyncIntervaloMs);
+        }
+        activa = true;
+    }
+
+    /**
+     * Reemplaza una bitácora con un formato anterior, ya reproducida, por una
+     * bitácora nueva con el formato actual. Primero se guarda una instantánea que
+     * apunta al comienzo de la bitácora nueva; si el proceso se interrumpe antes de
+     * reemplazar el archivo, al reiniciar no se reproduce ningún registro de la
+     * anterior (todas sus secuencias son menores) y se vuelve a migrar. La bitácora
+     * anterior se conserva con la versión como sufijo.
+     */
+    private void migrarBitacora(Path archivo, int tamanioRegion, int fsyncCadaRegistros, long fsyncIntervaloMs)
+            throws IOException {
+        int version = bitacora.getVersion();
+        if (archivoInstantanea == null) {
+            throw new IOException("La bitácora " + archivo + " tiene un formato anterior (versión " + version
+                    + ") y no hay una instantánea para migrarla");
+        }
+        Bitacora.Posicion posicion = new Bitacora.Posicion(bitacora.getSiguienteSecuencia(), 0);
+        bitacora.close();
+        bitacora = null;
+
+        EstadoCapturado estado = capturarEstado();
+        Instantanea.guardar(archivoInstantanea, posicion, salida -> escribirEstado(salida, estado));
+        secuenciaUltimaInstantanea = posicion.getSecuencia();
+        Path anterior = archivo.resolveSibling(archivo.getFileName() + ".v" + version);
+        Files.move(archivo, anterior, StandardCopyOption.REPLACE_EXISTING);
+
+        bitacora = Bitacora.abrir(archivo, tamanioRegion, fsyncCadaRegistros, fsyncIntervaloMs, posicion,
+                registro -> {
+                });
+        log.info("Bitácora {} migrada de la versión {} a la {} (la anterior quedó en {})", archivo, version,
+                Bitacora.VERSION, anterior);
+    }
+
+    /**
+     * Carga la instantánea indicada, si existe, y la usa como punto de partida para
+     * reproducir la bitácora. Las instantáneas posteriores se guardan en el mismo archivo.
+     *
+     * @param archivo El archivo de la instantánea
+     * @return true si se cargó una instantánea
+     * @throws IOException Si la instantánea existe pero no se puede leer
+     */
+    public synchronized boolean cargarInstantanea(Path archivo) throws IOException {
+        archivoInstantanea = archivo;
+        long inicio = System.nanoTime();
+        posicionInstantanea = Instantanea.cargar(archivo, this::leerEstado);
+        if (posicionInstantanea == null) {
+            return false;
+        }
+        secuenciaUltimaInstantanea = posicionInstantanea.getSecuencia();
+        log.info("Instantánea {} cargada en {} ms ({} propietarios, bitácora desde la secuencia {})", archivo,
+                (System.nanoTime() - inicio) / 1_000_000, secuenciaInstantanea.size(),
+                posicionInstantanea.getSecuencia());
+        return true;
+    }
+
+    /**
+     * Guarda una instantánea del estado actual si hubo cambios desde la anterior.
+     * Se invoca desde un hilo en segundo plano; el registro de tránsitos continúa
+     * mientras tanto.
+     */
+    public synchronized void guardarInstantanea() {
+        if (bitacora == null || archivoInstantanea == null) {
+            return;
+        }
+        // La posición se toma antes de copiar: todo registro anterior ya está aplicado
+        Bitacora.Posicion posicion = bitacora.getPosicion();
+        if (posicion.getSecuencia() == secuenciaUltimaInstantanea) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        EstadoCapturado estado = capturarEstado();
+        try {
+            Instantanea.guardar(archivoInstantanea, posicion, salida -> escribirEstado(salida, estado));
+            secuenciaUltimaInstantanea = posicion.getSecuencia();
+            log.info("Instantánea guardada hasta la secuencia {} en {} ms", posicion.getSecuencia(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException e) {
+            log.error("No se pudo guardar la instantánea {}", archivoInstantanea, e);
+        }
+    }
+
+    /**
+     * Guarda una última instantánea, vuelca los cambios pendientes y cierra la bitácora.
+     */
+    public synchronized void detener() {
+        if (bitacora == null) {
+            return;
+        }
+        guardarInstantanea();
+        activa = false;
+        try {
+            bitacora.close();
+        } catch (IOException e) {
+            log.error("Error al cerrar la bitácora", e);
+        }
+        bitacora = null;
+    }
+
+    // ==================== Registro de cambios ====================
+
+    public void transitoRegistrado(Transito transito) {
+        if (!activa) {
+            return;
+        }
+        int posPuesto = Fachada.getInstancia().posicionPuesto(transito.getPuesto());
+        long secuencia = bitacora.escribir(TRANSITO, datos -> {
+            datos.putInt(posPuesto);
+            Bitacora.escribirTexto(datos, transito.getVehiculo().getMatricula());
+            datos.put((byte) (transito.getBonificacionAplicada() != null ? 1 : 0));
+            datos.putLong(transito.getMontoPagado());
+            datos.putLong(transito.getMarcaTiempo());
+        });
+        ultimaSecuencia.put(transito.getPropietario(), secuencia);
+    }
+
+    public void saldoAgregado(Propietario propietario, long monto) {
+        if (!activa) {
+            return;
+        }
+        long secuencia = bitacora.escribir(SALDO_AGREGADO, datos -> {
+            Bitacora.escribirTexto(datos, propietario.getCedula());
+            datos.putLong(monto);
+        });
+        ultimaSecuencia.put(propietario, secuencia);
+    }
+
+    public void estadoCambiado(Propietario propietario, EstadoPropietario estado, Date fechaHora) {
+        if (!activa) {
+            return;
+        }
+        long secuencia = bitacora.escribir(ESTADO_CAMBIADO, datos -> {
+            Bitacora.escribirTexto(datos, propietario.getCedula());
+            Bitacora.escribirTexto(datos, estado.getNombre());
+            datos.putLong(fechaHora.getTime());
+        });
+        ultimaSecuencia.put(propietario, secuencia);
+    }
+
+    public void bonificacionAsignada(Propietario propietario, AsignacionBonificacion asignacion) {
+        if (!activa) {
+            return;
+        }
+        int posPuesto = Fachada.getInstancia().posicionPuesto(asignacion.getPuesto());
+        long secuencia = bitacora.escribir(BONIFICACION_ASIGNADA, datos -> {
+            Bitacora.escribirTexto(datos, propietario.getCedula());
+            datos.putInt(posPuesto);
+            Bitacora.escribirTexto(datos, asignacion.getBonificacion().getNombre());
+            datos.putLong(asignacion.getFechaAsignada().getTime());
+        });
+        ultimaSecuencia.put(propietario, secuencia);
+    }
+
+    // ==================== Reproducción ====================
+
+    private void reproducir(Bitacora.Registro registro) {
+        Fachada fachada = Fachada.getInstancia();
+        ByteBuffer datos = registro.getDatos();
+        try {
+            switch (registro.getTipo()) {
+                case TRANSITO -> {
+                    Puesto puesto = fachada.getPuestos().get(datos.getInt());
+                    Vehiculo vehiculo = fachada.buscarVehiculoPorMatricula(Bitacora.leerTexto(datos));
+                    if (incluidoEnInstantanea(registro, vehiculo.getPropietario())) {
+                        return;
+                    }
+                    boolean conBonificacion = datos.get() == 1;
+                    long montoPagado = leerMonto(datos, registro.getVersion());
+                    Date fechaHora = new Date(datos.getLong());
+                    fachada.reproducirTransito(puesto, vehiculo, conBonificacion, montoPagado, fechaHora);
+                }
+                case SALDO_AGREGADO -> {
+                    Propietario propietario = fachada.buscarPropietarioPorCedula(Bitacora.leerTexto(datos));
+                    if (incluidoEnInstantanea(registro, propietario)) {
+                        return;
+                    }
+                    fachada.agregarSaldo(propietario, leerMonto(datos, registro.getVersion()));
+                }
+                case ESTADO_CAMBIADO -> {
+                    Propietario propietario = fachada.buscarPropietarioPorCedula(Bitacora.leerTexto(datos));
+                    if (incluidoEnInstantanea(registro, propietario)) {
+                        return;
+                    }
+                    EstadoPropietario estado = buscarEstado(Bitacora.leerTexto(datos));
+                    propietario.cambiarEstado(estado, new Date(datos.getLong()));
+                }
+                case BONIFICACION_ASIGNADA -> {
+                    Propietario propietario = fachada.buscarPropietarioPorCedula(Bitacora.leerTexto(datos));
+                    if (incluidoEnInstantanea(registro, propietario)) {
+                        return;
+                    }
+                    Puesto puesto = fachada.getPuestos().get(datos.getInt());
+                    EstrategiaBonificacion bonificacion = buscarBonificacion(Bitacora.leerTexto(datos));
+                    fachada.asignarBonificacion(propietario, puesto, bonificacion, new Date(datos.getLong()));
+                }
+                default -> log.warn("Registro de bitácora {} de tipo desconocido {}", registro.getSecuencia(),
+                        registro.getTipo());
+            }
+        } catch (PeajeException | RuntimeException e) {
+            log.warn("No se pudo reproducir el registro {} de la bitácora: {}", registro.getSecuencia(),
+                    e.getMessage());
+        }
+    }
+
+    // Hasta la versión 1 de la bitácora los montos se guardaban como double
+    private static long leerMonto(ByteBuffer datos, int version) {
+        return version < 2 ? Dinero.centesimos(datos.getDouble()) : datos.getLong();
+    }
+
+    private boolean incluidoEnInstantanea(Bitacora.Registro registro, Propietario propietario) {
+        return registro.getSecuencia() <= secuenciaInstantanea.getOrDefault(propietario, 0L);
+    }
+
+    private EstadoPropietario buscarEstado(String nombre) throws PeajeException {
+        for (EstadoPropietario estado : Fachada.getInstancia().getEstadosDisponibles()) {
+            if (estado.getNombre().equals(nombre)) {
+                return estado;
+            }
+        }
+        throw new PeajeException("No existe el estado " + nombre);
+    }
+
+    private EstrategiaBonificacion buscarBonificacion(String nombre) throws PeajeException {
+        List<EstrategiaBonificacion> bonificaciones = Fachada.getInstancia().getBonificaciones();
+        for (EstrategiaBonificacion bonificacion : bonificaciones) {
+            if (bonificacion.getNombre().equals(nombre)) {
+                return bonificacion;
+            }
+        }
+        throw new PeajeException("No existe la bonificación " + nombre);
+    }
+
+    // ==================== Instantáneas ====================
+
+    /**
+     * Copia del estado de un propietario tomada con su monitor.
+     */
+    private static class CapturaPropietario {
+        private Propietario propietario;
+        private long saldo;
+        private EstadoPropietario estado;
+        private List<Vehiculo> vehiculos;
+        private List<AsignacionBonificacion> bonificaciones;
+        private List<Notificacion> notificaciones;
+        private int[] transitos; // Posiciones en el almacén de tránsitos
+        private long ultimaSecuencia;
+    }
+
+    /**
+     * Copia del estado del sistema a serializar.
+     */
+    private static class EstadoCapturado {
+        private final Map<Puesto, List<Tarifa>> tarifasPorPuesto = new LinkedHashMap<>();
+        private List<Administrador> administradores;
+        private final List<CapturaPropietario> propietarios = new ArrayList<>();
+        private AlmacenTransitos almacen;
+    }
+
+    private EstadoCapturado capturarEstado() {
+        Fachada fachada = Fachada.getInstancia();
+        EstadoCapturado estado = new EstadoCapturado();
+        for (Puesto puesto : fachada.getPuestos()) {
+            synchronized (puesto) {
+                estado.tarifasPorPuesto.put(puesto, new ArrayList<>(puesto.getTarifas()));
+            }
+        }
+        estado.administradores = new ArrayList<>(fachada.getAdministradores());
+        estado.almacen = fachada.getAlmacenTransitos();
+        for (Propietario propietario : fachada.getPropietarios()) {
+            CapturaPropietario captura = new CapturaPropietario();
+            synchronized (propietario) {
+                captura.propietario = propietario;
+                captura.saldo = propietario.getSaldoActual();
+                captura.estado = propietario.getEstado();
+                captura.vehiculos = new ArrayList<>(propietario.getVehiculos());
+                captura.bonificaciones = propietario.getBonificaciones();
+                captura.notificaciones = propietario.getNotificaciones();
+                // Solo las posiciones, en orden de registro: los tránsitos se leen de las
+                // columnas del almacén al escribir, sin el monitor tomado (un tránsito
+                // registrado no cambia)
+                captura.transitos = fachada.obtenerPosicionesTransitosPropietario(propietario);
+                captura.ultimaSecuencia = ultimaSecuencia.getOrDefault(propietario, 0L);
+            }
+            estado.propietarios.add(captura);
+        }
+        return estado;
+    }
+
+    private void escribirEstado(DataOutputStream salida, EstadoCapturado estado) throws IOException {
+        // Categorías: se escriben una vez y se referencian por posición
+        Map<Categoria, Integer> categorias = new LinkedHashMap<>();
+        for (List<Tarifa> tarifas : estado.tarifasPorPuesto.values()) {
+            for (Tarifa tarifa : tarifas) {
+                categorias.putIfAbsent(tarifa.getCategoria(), categorias.size());
+            }
+        }
+        for (CapturaPropietario captura : estado.propietarios) {
+            for (Vehiculo vehiculo : captura.vehiculos) {
+                categorias.putIfAbsent(vehiculo.getCategoria(), categorias.size());
+            }
+        }
+        salida.writeInt(categorias.size());
+        for (Categoria categoria : categorias.keySet()) {
+            salida.writeUTF(categoria.getNombre());
+        }
+
+        Map<Puesto, Integer> puestos = new HashMap<>();
+        salida.writeInt(estado.tarifasPorPuesto.size());
+        for (Map.Entry<Puesto, List<Tarifa>> entrada : estado.tarifasPorPuesto.entrySet()) {
+            Puesto puesto = entrada.getKey();
+            puestos.put(puesto, puestos.size());
+            salida.writeUTF(puesto.getNombre());
+            salida.writeUTF(puesto.getDireccion());
+            salida.writeInt(entrada.getValue().size());
+            for (Tarifa tarifa : entrada.getValue()) {
+                salida.writeInt(categorias.get(tarifa.getCategoria()));
+                salida.writeLong(tarifa.getMonto());
+            }
+        }
+
+        salida.writeInt(estado.administradores.size());
+        for (Administrador administrador : estado.administradores) {
+            escribirUsuario(salida, administrador);
+        }
+
+        salida.writeInt(estado.propietarios.size());
+        for (CapturaPropietario captura : estado.propietarios) {
+            Propietario propietario = captura.propietario;
+            escribirUsuario(salida, propietario);
+            salida.writeLong(captura.saldo);
+            salida.writeLong(propietario.getSaldoMinimoAlerta());
+            salida.writeUTF(captura.estado.getNombre());
+            salida.writeLong(captura.ultimaSecuencia);
+
+            Map<Vehiculo, Integer> vehiculos = new HashMap<>();
+            salida.writeInt(captura.vehiculos.size());
+            for (Vehiculo vehiculo : captura.vehiculos) {
+                vehiculos.put(vehiculo, vehiculos.size());
+                salida.writeUTF(vehiculo.getMatricula());
+                salida.writeUTF(vehiculo.getModelo());
+                salida.writeUTF(vehiculo.getColor());
+                salida.writeInt(categorias.get(vehiculo.getCategoria()));
+            }
+
+            salida.writeInt(captura.bonificaciones.size());
+            for (AsignacionBonificacion asignacion : captura.bonificaciones) {
+                salida.writeInt(puestos.get(asignacion.getPuesto()));
+                salida.writeUTF(asignacion.getBonificacion().getNombre());
+                salida.writeLong(asignacion.getFechaAsignada().getTime());
+            }
+
+            salida.writeInt(captura.notificaciones.size());
+            for (Notificacion notificacion : captura.notificaciones) {
+                // Plantilla y argumentos; el texto se arma al mostrarla
+                salida.writeByte(notificacion.getPlantilla().ordinal());
+                salida.writeLong(notificacion.getMarcaTiempo());
+                escribirTextoOpcional(salida, notificacion.getArgumento1());
+                escribirTextoOpcional(salida, notificacion.getArgumento2());
+                salida.writeLong(notificacion.getMonto());
+            }
+
+            AlmacenTransitos almacen = estado.almacen;
+            salida.writeInt(captura.transitos.length);
+            for (int posicion : captura.transitos) {
+                salida.writeInt(puestos.get(almacen.puesto(posicion)));
+                salida.writeInt(vehiculos.get(almacen.vehiculo(posicion)));
+                salida.writeBoolean(almacen.tieneBonificacion(posicion));
+                salida.writeLong(almacen.montoPagado(posicion));
+                salida.writeLong(almacen.marcaTiempo(posicion));
+            }
+        }
+    }
+
+    private void escribirUsuario(DataOutputStream salida, Usuario usuario) throws IOException {
+        salida.writeUTF(usuario.getCedula());
+        // Solo el hash con sal, nunca la contraseña
+        Credencial credencial = usuario.getCredencial();
+        salida.writeInt(credencial.getIteraciones());
+        escribirBytes(salida, credencial.getSal());
+        escribirBytes(salida, credencial.getHash());
+        salida.writeUTF(usuario.getNombreCompleto());
+    }
+
+    private static void escribirBytes(DataOutputStream salida, byte[] bytes) throws IOException {
+        salida.writeShort(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static byte[] leerBytes(DataInputStream entrada) throws IOException {
+        byte[] bytes = new byte[entrada.readUnsignedShort()];
+        entrada.readFully(bytes);
+        return bytes;
+    }
+
+    // Hasta la versión 3 de la instantánea la contraseña se guardaba en claro: se
+    // reemplaza por su hash y la próxima instantánea ya no la contiene
+    private static Credencial leerCredencial(DataInputStream entrada, int version) throws IOException {
+        if (version < 4) {
+            return Credencial.crear(entrada.readUTF());
+        }
+        return Credencial.restaurar(entrada.readInt(), leerBytes(entrada), leerBytes(entrada));
+    }
+
+    private void escribirTextoOpcional(DataOutputStream salida, String texto) throws IOException {
+        salida.writeBoolean(texto != null);
+        if (texto != null) {
+            salida.writeUTF(texto);
+        }
+    }
+
+    private String leerTextoOpcional(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    // Devuelve la instancia ya leída de un texto igual, para que las notificaciones
+    // restauradas compartan los textos (nombres de puesto, matrículas) en lugar de
+    // guardar una copia cada una
+    private static String compartir(Map<String, String> textos, String texto) {
+        return texto == null ? null : textos.computeIfAbsent(texto, t -> t);
+    }
+
+    // Hasta la versión 2 de la instantánea los montos se guardaban como double
+    private static long leerMonto(DataInputStream entrada, int version) throws IOException {
+        return version < 3 ? Dinero.centesimos(entrada.readDouble()) : entrada.readLong();
+    }
+
+    private void leerEstado(DataInputStream entrada, int version) throws IOException {
+        Fachada fachada = Fachada.getInstancia();
+        Map<String, String> textos = new HashMap<>();
+        try {
+            List<Categoria> categorias = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                categorias.add(new Categoria(entrada.readUTF()));
+            }
+
+            List<Puesto> puestos = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                Puesto puesto = new Puesto(compartir(textos, entrada.readUTF()), entrada.readUTF());
+                for (int j = entrada.readInt(); j > 0; j--) {
+                    Categoria categoria = categorias.get(entrada.readInt());
+                    puesto.agregarTarifa(new Tarifa(leerMonto(entrada, version), categoria));
+                }
+                fachada.agregarPuesto(puesto);
+                puestos.add(puesto);
+            }
+
+            for (int i = entrada.readInt(); i > 0; i--) {
+                fachada.agregarAdministrador(new Administrador(entrada.readUTF(),
+                        leerCredencial(entrada, version), entrada.readUTF()));
+            }
+
+            for (int i = entrada.readInt(); i > 0; i--) {
+                Propietario propietario = new Propietario(entrada.readUTF(), leerCredencial(entrada, version),
+                        entrada.readUTF(), leerMonto(entrada, version), leerMonto(entrada, version));
+                EstadoPropietario estado = buscarEstado(entrada.readUTF());
+                secuenciaInstantanea.put(propietario, entrada.readLong());
+                fachada.agregarPropietario(propietario);
+
+                List<Vehiculo> vehiculos = new ArrayList<>();
+                for (int j = entrada.readInt(); j > 0; j--) {
+                    Vehiculo vehiculo = new Vehiculo(compartir(textos, entrada.readUTF()), entrada.readUTF(),
+                            entrada.readUTF(), categorias.get(entrada.readInt()));
+                    fachada.agregarVehiculo(vehiculo, propietario);
+                    vehiculos.add(vehiculo);
+                }
+
+                List<AsignacionBonificacion> bonificaciones = new ArrayList<>();
+                for (int j = entrada.readInt(); j > 0; j--) {
+                    Puesto puesto = puestos.get(entrada.readInt());
+                    EstrategiaBonificacion bonificacion = buscarBonificacion(entrada.readUTF());
+                    bonificaciones.add(new AsignacionBonificacion(bonificacion, puesto, new Date(entrada.readLong())));
+                }
+
+                List<Notificacion> notificaciones = new ArrayList<>();
+                for (int j = entrada.readInt(); j > 0; j--) {
+                    if (version < 2) {
+                        // Hasta la versión 1 se guardaba el texto de la notificación
+                        notificaciones.add(new Notificacion(new Date(entrada.readLong()), entrada.readUTF()));
+                        continue;
+                    }
+                    Notificacion.Plantilla plantilla = PLANTILLAS[entrada.readByte()];
+                    long marcaTiempo = entrada.readLong();
+                    String argumento1 = compartir(textos, leerTextoOpcional(entrada));
+                    String argumento2 = compartir(textos, leerTextoOpcional(entrada));
+                    notificaciones.add(new Notificacion(plantilla, marcaTiempo, argumento1, argumento2,
+                            leerMonto(entrada, version)));
+                }
+                propietario.restaurar(estado, notificaciones, bonificaciones);
+
+                for (int j = entrada.readInt(); j > 0; j--) {
+                    Puesto puesto = puestos.get(entrada.readInt());
+                    Vehiculo vehiculo = vehiculos.get(entrada.readInt());
+                    AsignacionBonificacion bonificacion = entrada.readBoolean()
+                            ? propietario.obtenerAsignacion(puesto)
+                            : null;
+                    long montoPagado = leerMonto(entrada, version);
+                    Date fechaHora = new Date(entrada.readLong());
+                    fachada.agregarTransito(
+                            new Transito(puesto, vehiculo, propietario, bonificacion, montoPagado, fechaHora));
+                }
+            }
+        } catch (PeajeException e) {
+            throw new IOException("La instantánea no es consistente: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,36 +1,104 @@
 package obligatorio.da.sistemaPeajes.servicios;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import excepciones.PeajeException;
+import lombok.Getter;
+import obligatorio.da.sistemaPeajes.dominio.AlmacenTransitos;
 import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.HistorialTransitos;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
 import obligatorio.da.sistemaPeajes.dominio.Puesto;
+import obligatorio.da.sistemaPeajes.dominio.ResumenVehiculo;
 import obligatorio.da.sistemaPeajes.dominio.Tarifa;
 import obligatorio.da.sistemaPeajes.dominio.Transito;
-import obligatorio.da.sistemaPeajes.dominio.Vehiculo;;
+import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
 
+/**
+ * Servicio responsable de registrar y consultar tránsitos.
+ *
+ * Es seguro frente a registros concurrentes: las operaciones sobre un mismo
+ * propietario se serializan con el monitor del propietario, mientras que los
+ * tránsitos de propietarios distintos se procesan en paralelo. Las colecciones
+ * compartidas son concurrentes y no requieren un bloqueo global.
+ */
 public class ServicioTransito {
 
-    private final List<Transito> transitos;
+    // Resumen que se devuelve para los vehículos sin tránsitos. Es compartido y
+    // nunca se le registran tránsitos
+    private static final ResumenVehiculo SIN_TRANSITOS = new ResumenVehiculo();
+
+    // Todos los tránsitos, en columnas primitivas
+    private final AlmacenTransitos transitos;
     private final List<Puesto> puestos;
+    // Posición de cada puesto en la lista de puestos, para no buscarlo linealmente
+    private final Map<Puesto, Integer> posicionesPuestos;
+
+    // Índice secundario: permite consultar el historial de un propietario sin
+    // recorrer la lista global de tránsitos
+    private final Map<Propietario, HistorialTransitos> transitosPorPropietario;
+
+    // Acumulados por vehículo (cantidad de tránsitos, total pagado y descontado)
+    private final Map<Vehiculo, ResumenVehiculo> resumenesPorVehiculo;
 
     public ServicioTransito() {
-        this.transitos = new ArrayList<>();
-        this.puestos = new ArrayList<>();
+        this.transitos = new AlmacenTransitos();
+        this.puestos = new CopyOnWriteArrayList<>();
+        this.posicionesPuestos = new ConcurrentHashMap<>();
+        this.transitosPorPropietario = new ConcurrentHashMap<>();
+        this.resumenesPorVehiculo = new ConcurrentHashMap<>();
     }
 
     public void agregar(Transito transito) {
-        transitos.add(transito);
+        synchronized (transito.getPropietario()) {
+            int posicion = transitos.agregar(transito);
+            indexar(transito, posicion);
+        }
+    }
+
+    /**
+     * Agrega el tránsito al índice por propietario y lo suma al resumen de su vehículo.
+     * Debe invocarse con el monitor del propietario tomado.
+     * 
+     * @param transito El tránsito recién registrado
+     * @param posicion La posición del tránsito en el almacén
+     */
+    private void indexar(Transito transito, int posicion) {
+        historial(transito.getPropietario()).agregar(posicion);
+        resumenesPorVehiculo.computeIfAbsent(transito.getVehiculo(), v -> new ResumenVehiculo())
+                .registrarTransito(transito.getMontoPagado(), transito.obtenerMontoBonificacion());
+    }
+
+    /**
+     * Obtiene el acumulado de tránsitos de un vehículo.
+     * 
+     * @param vehiculo El vehículo
+     * @return El resumen del vehículo (vacío si todavía no realizó tránsitos)
+     */
+    public ResumenVehiculo obtenerResumenVehiculo(Vehiculo vehiculo) {
+        return resumenesPorVehiculo.getOrDefault(vehiculo, SIN_TRANSITOS);
     }
 
-    public void agregarPuesto(Puesto puesto) {
+    public synchronized void agregarPuesto(Puesto puesto) {
+        posicionesPuestos.putIfAbsent(puesto, puestos.size());
         puestos.add(puesto);
     }
 
+    /**
+     * @param puesto Un puesto
+     * @return La posición del puesto en la lista de puestos, o -1 si no está registrado
+     */
+    public int posicionPuesto(Puesto puesto) {
+        return posicionesPuestos.getOrDefault(puesto, -1);
+    }
+
     public List<Puesto> getPuestos() {
         return puestos;
     }
@@ -70,41 +138,140 @@ public class ServicioTransito {
      */
     public Transito registrarTransito(Puesto puesto, Vehiculo vehiculo, Propietario propietario, Date fechaHora)
             throws PeajeException {
+        Transito transito;
+
+        // Todo el registro (validación, cobro, alta e índices) se hace con el monitor
+        // del propietario tomado: evita dobles cobros sobre el mismo saldo sin
+        // bloquear a los tránsitos de otros propietarios
+        synchronized (propietario) {
+            transito = registrarTransitoBloqueado(puesto, vehiculo, propietario, fechaHora);
+        }
+        return transito;
+    }
+
+    /**
+     * Registra un lote de tránsitos, por ejemplo los que un puesto acumuló durante
+     * una pérdida de conectividad.
+     * 
+     * Los tránsitos se agrupan por propietario: cada grupo se procesa con el monitor
+     * del propietario tomado una sola vez y sus eventos se emiten al terminar el grupo,
+     * ya liberado el monitor (un único aviso por tipo de evento y un solo
+     * {@link Propietario.Eventos.TransitosRegistrados} en lugar de uno por tránsito).
+     * 
+     * Los errores de un tránsito (saldo insuficiente, propietario suspendido, o
+     * cualquier error inesperado) no interrumpen el lote: quedan registrados en el
+     * resultado.
+     * 
+     * @param solicitudes Los tránsitos a registrar, en orden de ocurrencia
+     * @return El resultado del lote con los tránsitos registrados y los errores
+     */
+    public ResultadoLote registrarTransitos(List<SolicitudTransito> solicitudes) {
+        ResultadoLote resultado = new ResultadoLote();
+
+        Map<Propietario, List<Integer>> posicionesPorPropietario = new LinkedHashMap<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            Propietario propietario = solicitudes.get(i).getVehiculo().getPropietario();
+            posicionesPorPropietario.computeIfAbsent(propietario, p -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<Propietario, List<Integer>> grupo : posicionesPorPropietario.entrySet()) {
+            Propietario propietario = grupo.getKey();
+            propietario.iniciarLote();
+            try {
+                synchronized (propietario) {
+                    for (int posicion : grupo.getValue()) {
+                        SolicitudTransito solicitud = solicitudes.get(posicion);
+                        try {
+                            resultado.agregarTransito(registrarTransitoBloqueado(solicitud.getPuesto(),
+                                    solicitud.getVehiculo(), propietario, solicitud.getFechaHora()));
+                        } catch (PeajeException e) {
+                            resultado.agregarError(posicion, e.getMessage());
+                        } catch (RuntimeException e) {
+                            // Un error inesperado en un tránsito no debe descartar el resto del lote
+                            resultado.agregarError(posicion, "Error inesperado: " + e.getMessage());
+                        }
+                    }
+                }
+            } finally {
+                propietario.finalizarLote();
+            }
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Valida, cobra y da de alta un tránsito. Debe invocarse con el monitor del
+     * propietario tomado.
+     */
+    private Transito registrarTransitoBloqueado(Puesto puesto, Vehiculo vehiculo, Propietario propietario,
+            Date fechaHora) throws PeajeException {
         // GRASP: Propietario valida su propio estado (Experto)
         propietario.validarPuedeTransitar();
 
         // GRASP: Vehículo obtiene su propia tarifa del puesto (Experto)
         // El Vehículo conoce su categoría y puede obtener la tarifa correspondiente
-        Tarifa tarifaCorrespondiente = vehiculo.obtenerTarifaEn(puesto);
+        long tarifaBase = vehiculo.obtenerMontoTarifaEn(puesto);
 
-        if (tarifaCorrespondiente == null) {
+        if (tarifaBase == Puesto.SIN_TARIFA) {
             throw new PeajeException("No se encontró una tarifa para la categoría del vehículo");
         }
 
-        double tarifaBase = tarifaCorrespondiente.getMonto();
-
-        // GRASP: Propietario procesa el pago completo (calcula bonificaciones, valida saldo y descuenta)
-        // El Propietario es el experto porque conoce sus bonificaciones, su estado y su saldo
-        double montoPagado = propietario.procesarPagoTransito(puesto, tarifaBase);
-
         // GRASP: Propietario conoce la bonificación aplicable para el puesto (Experto)
-        // Esto permite registrar qué bonificación se aplicó en este tránsito específico
+        // Se resuelve una sola vez: se usa para calcular el pago y queda registrada en el tránsito
         AsignacionBonificacion bonificacionAplicada = propietario.obtenerBonificacionAplicable(puesto);
 
+        // GRASP: Propietario calcula el pago (aplica la bonificación y valida el saldo)
+        // El Propietario es el experto porque conoce su estado y su saldo
+        long montoPagado = propietario.calcularPagoTransito(bonificacionAplicada, tarifaBase);
+
         // ServicioTransito coordina la creación del tránsito (Creador)
         Transito transito = new Transito(puesto, vehiculo, propietario, bonificacionAplicada, montoPagado, fechaHora);
-        transitos.add(transito);
+
+        // Primero la bitácora: si no se puede registrar, el tránsito no se aplica
+        Fachada.getInstancia().getPersistencia().transitoRegistrado(transito);
+        if (montoPagado > 0) {
+            propietario.descontarSaldo(montoPagado);
+        }
+        agregar(transito);
+
+        // El evento se avisa solo a los observadores del propietario afectado
+        propietario.avisar(new Propietario.Eventos.TransitoRegistrado(transito));
 
         // Registrar notificaciones a través de la Fachada
         // La Fachada coordina con ServicioNotificaciones para registrar las notificaciones
         registrarNotificacionesTransito(puesto, vehiculo, propietario, fechaHora);
 
-        // Emitir evento fachada para emular tránsito
-        Fachada.getInstancia().avisar(Fachada.Eventos.TRANSITO_REGISTRADO);
-
         return transito;
     }
 
+    /**
+     * Vuelve a aplicar un tránsito leído de la bitácora. No se reevalúan las reglas
+     * de negocio: se descuenta el monto que se cobró originalmente y se registran
+     * el tránsito y sus notificaciones.
+     * 
+     * @param puesto          El puesto de peaje
+     * @param vehiculo        El vehículo que transitó
+     * @param conBonificacion Si al tránsito se le aplicó la bonificación del puesto
+     * @param montoPagado     El monto cobrado, en centésimos
+     * @param fechaHora       La fecha y hora del tránsito
+     * @return El tránsito reconstruido
+     */
+    public Transito reproducirTransito(Puesto puesto, Vehiculo vehiculo, boolean conBonificacion,
+            long montoPagado, Date fechaHora) {
+        Propietario propietario = vehiculo.getPropietario();
+        synchronized (propietario) {
+            AsignacionBonificacion bonificacionAplicada = conBonificacion ? propietario.obtenerAsignacion(puesto) : null;
+            if (montoPagado > 0) {
+                propietario.descontarSaldo(montoPagado);
+            }
+            Transito transito = new Transito(puesto, vehiculo, propietario, bonificacionAplicada, montoPagado, fechaHora);
+            agregar(transito);
+            registrarNotificacionesTransito(puesto, vehiculo, propietario, fechaHora);
+            return transito;
+        }
+    }
+
     /**
      * Registra las notificaciones correspondientes al tránsito a través de la Fachada.
      * 
@@ -131,34 +298,137 @@ public class ServicioTransito {
         }
     }
 
+    private HistorialTransitos historial(Propietario propietario) {
+        return transitosPorPropietario.computeIfAbsent(propietario, p -> new HistorialTransitos(transitos));
+    }
+
+    /**
+     * Obtiene todos los tránsitos de un propietario ordenados por fecha/hora descendente.
+     */
     public List<Transito> obtenerTransitosPropietario(Propietario propietario) {
-        List<Transito> transitosPropietario = new ArrayList<>();
-        for (Transito transito : transitos) {
-            if (transito.getPropietario().equals(propietario)) {
-                transitosPropietario.add(transito);
-            }
+        synchronized (propietario) {
+            return historial(propietario).masRecientesPrimero();
         }
-        transitosPropietario.sort(Comparator.comparing(Transito::getFechaHora).reversed());
-        return transitosPropietario;
     }
 
-    public int contarTransitosDeVehiculo(Propietario propietario, Vehiculo vehiculo) {
-        int contador = 0;
-        for (Transito transito : transitos) {
-            if (transito.getPropietario().equals(propietario) && transito.getVehiculo().equals(vehiculo)) {
-                contador++;
-            }
+    /**
+     * Obtiene las posiciones en el almacén de los tránsitos de un propietario, en
+     * orden de registro. Permite leer los tránsitos directamente de las columnas
+     * del almacén sin construir un objeto por tránsito.
+     */
+    public int[] obtenerPosicionesTransitosPropietario(Propietario propietario) {
+        synchronized (propietario) {
+            return historial(propietario).posiciones();
         }
-        return contador;
     }
 
-    public double totalGastadoPorVehiculo(Propietario propietario, Vehiculo vehiculo) {
-        double total = 0.0;
-        for (Transito transito : transitos) {
-            if (transito.getPropietario().equals(propietario) && transito.getVehiculo().equals(vehiculo)) {
-                total += transito.getMontoPagado();
-            }
+    public AlmacenTransitos getAlmacenTransitos() {
+        return transitos;
+    }
+
+    /**
+     * Obtiene una página de los tránsitos de un propietario ordenados por
+     * fecha/hora descendente.
+     * 
+     * @param propietario El propietario
+     * @param cursor El cursor de la página anterior, o null para los más recientes
+     * @param limite La cantidad máxima de tránsitos
+     * @return La página y el cursor de la siguiente
+     * @throws PeajeException Si el cursor no es válido
+     */
+    public HistorialTransitos.Pagina obtenerPaginaTransitosPropietario(Propietario propietario, String cursor,
+            int limite) throws PeajeException {
+        synchronized (propietario) {
+            return historial(propietario).pagina(cursor, limite);
+        }
+    }
+
+    /**
+     * Obtiene los tránsitos de un propietario registrados a partir de una posición,
+     * en orden de registro. Permite enviar solo los tránsitos nuevos sin copiar
+     * todo el historial.
+     * 
+     * @param propietario El propietario
+     * @param desde Cantidad de tránsitos ya conocidos
+     * @return Los tránsitos registrados después de esa posición
+     */
+    public List<Transito> obtenerTransitosPropietarioDesde(Propietario propietario, int desde) {
+        synchronized (propietario) {
+            return historial(propietario).registradosDesde(desde);
+        }
+    }
+
+    /**
+     * Calcula lo recaudado en cada puesto por los tránsitos de un período.
+     * 
+     * @param desde Fecha/hora inicial (inclusive)
+     * @param hasta Fecha/hora final (exclusive)
+     * @return La recaudación de cada puesto del sistema, en el orden de los puestos
+     */
+    public Map<Puesto, AlmacenTransitos.Recaudacion> obtenerRecaudacionPorPuesto(Date desde, Date hasta) {
+        Map<Puesto, AlmacenTransitos.Recaudacion> calculada = transitos.recaudacionPorPuesto(desde.getTime(),
+                hasta.getTime());
+        Map<Puesto, AlmacenTransitos.Recaudacion> recaudacion = new LinkedHashMap<>();
+        for (Puesto puesto : puestos) {
+            recaudacion.put(puesto, calculada.getOrDefault(puesto, new AlmacenTransitos.Recaudacion(0, 0)));
+        }
+        return recaudacion;
+    }
+
+    /**
+     * Archiva fuera del heap los bloques de tránsitos registrados antes de una
+     * fecha. Los tránsitos archivados se siguen consultando igual que los demás.
+     * 
+     * @param limite La fecha/hora límite
+     * @return La cantidad de bloques archivados
+     */
+    public int archivarTransitosAnterioresA(Date limite) {
+        return transitos.archivarAnterioresA(limite.getTime());
+    }
+
+    public int cantidadTransitosArchivados() {
+        return transitos.cantidadArchivados();
+    }
+
+    public int contarTransitosDeVehiculo(Vehiculo vehiculo) {
+        return obtenerResumenVehiculo(vehiculo).getCantidadTransitos();
+    }
+
+    public long totalGastadoPorVehiculo(Vehiculo vehiculo) {
+        return obtenerResumenVehiculo(vehiculo).getTotalPagado();
+    }
+
+    /**
+     * Clase auxiliar que describe un tránsito a registrar dentro de un lote.
+     */
+    @Getter
+    public static class SolicitudTransito {
+        private final Puesto puesto;
+        private final Vehiculo vehiculo;
+        private final Date fechaHora;
+
+        public SolicitudTransito(Puesto puesto, Vehiculo vehiculo, Date fechaHora) {
+            this.puesto = puesto;
+            this.vehiculo = vehiculo;
+            this.fechaHora = fechaHora;
+        }
+    }
+
+    /**
+     * Clase auxiliar con el resultado de registrar un lote de tránsitos.
+     * Los errores se indexan por la posición del tránsito en el lote.
+     */
+    @Getter
+    public static class ResultadoLote {
+        private final List<Transito> transitos = new ArrayList<>();
+        private final Map<Integer, String> errores = new TreeMap<>();
+
+        public void agregarTransito(Transito transito) {
+            transitos.add(transito);
+        }
+
+        public void agregarError(int posicion, String mensaje) {
+            errores.put(posicion, mensaje);
         }
-        return total;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,12 @@
 package obligatorio.da.sistemaPeajes.servicios;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import excepciones.PeajeException;
 import obligatorio.da.sistemaPeajes.dominio.Administrador;
@@ -15,17 +21,21 @@ import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
 
 
 public class ServicioUsuarios {
-    private final List<Propietario> propietarios;
-    private final List<Administrador> administradores;
-    private final List<Administrador> administradoresLogueados;
+    // Directorios indexados por cédula
+    private final Map<String, Propietario> propietarios;
+    private final Map<String, Administrador> administradores;
+    // Los mismos usuarios en orden de alta, para listarlos sin copiar
+    private final List<Propietario> propietariosEnOrden;
+    private final List<Administrador> administradoresEnOrden;
+    private final Set<Administrador> administradoresLogueados;
     private final List<EstadoPropietario> estadosDisponibles;
 
-    //o coleccion hashmap
-    
     public ServicioUsuarios() {
-        propietarios = new ArrayList<>();
-        administradores = new ArrayList<>();
-        administradoresLogueados = new ArrayList<>();
+        propietarios = new ConcurrentHashMap<>();
+        administradores = new ConcurrentHashMap<>();
+        propietariosEnOrden = new CopyOnWriteArrayList<>();
+        administradoresEnOrden = new CopyOnWriteArrayList<>();
+        administradoresLogueados = ConcurrentHashMap.newKeySet();
         
         // Inicializar estados disponibles en el sistema
         // Se crean instancias prototipo sin propietario asociado (null) solo para obtener los nombres
@@ -37,29 +47,23 @@ public class ServicioUsuarios {
     }
 
     public Administrador loginAdministrador(String cedula, String contrasena) throws PeajeException {
-        List<Usuario> adminsDisponibles = new ArrayList<>(administradores);
-        Usuario usuario = login(cedula, contrasena, adminsDisponibles);
+        Administrador admin = login(cedula, contrasena, administradores);
         // El administrador ya se encuentra logueado. Mensaje. Mensaje “Ud. Ya está logueado”.
-        Administrador admin = (Administrador) usuario;
-        if (administradoresLogueados.contains(admin)) {
+        if (!administradoresLogueados.add(admin)) {
             throw new PeajeException("Ud. ya está logueado");
         }
-        administradoresLogueados.add(admin);
         return admin;
     }
 
     public Administrador logoutAdministrador(Administrador administrador) throws PeajeException {
-        if (!administradoresLogueados.contains(administrador)) {
+        if (!administradoresLogueados.remove(administrador)) {
             throw new PeajeException("El administrador no está logueado");
         }
-        administradoresLogueados.remove(administrador);
         return administrador;
     }
 
     public Propietario loginPropietario(String cedula, String contrasena) throws PeajeException {
-        List<Usuario> propsDisponibles = new ArrayList<>(propietarios);
-        Usuario usuario = login(cedula, contrasena, propsDisponibles);
-        Propietario prop = (Propietario) usuario;
+        Propietario prop = login(cedula, contrasena, propietarios);
         // El usuario está deshabilitado. Mensaje “Usuario deshabilitado, no puede ingresar al sistema”
         if(!prop.puedeIngresar()) {
             throw new PeajeException("Usuario deshabilitado, no puede ingresar al sistema");
@@ -67,38 +71,42 @@ public class ServicioUsuarios {
         return prop;
     }
 
-    //falta validar el estado del usuario, que no este deshabilitado
-    private Usuario login(String cedula, String contrasena, List<Usuario> usuarios) throws PeajeException{
-        for (Usuario usuario : usuarios) {
-            if (usuario.getCedula().equals(cedula) && usuario.esPasswordCorrecto(contrasena)) {
-                return usuario;
-            }
+    private <T extends Usuario> T login(String cedula, String contrasena, Map<String, T> usuarios) throws PeajeException {
+        T usuario = (cedula != null) ? usuarios.get(cedula) : null;
+        if (usuario != null && usuario.esPasswordCorrecto(contrasena)) {
+            return usuario;
         }
         throw new PeajeException("Acceso denegado");
     }
 
     public void agregarPropietario(Propietario propietario) throws PeajeException {
         // Validar que no exista otro propietario con la misma cédula
-        for (Propietario prop : propietarios) {
-            if (prop.getCedula().equals(propietario.getCedula())) {
-                throw new PeajeException("Ya existe un propietario con la misma cédula");
-            }
+        if (propietarios.putIfAbsent(propietario.getCedula(), propietario) != null) {
+            throw new PeajeException("Ya existe un propietario con la misma cédula");
         }
-        propietarios.add(propietario);
+        propietariosEnOrden.add(propietario);
     }
 
     public void agregarAdministrador(Administrador administrador) throws PeajeException {
         // Validar que no exista otro administrador con la misma cédula
-        for (Administrador admin : administradores) {
-            if (admin.getCedula().equals(administrador.getCedula())) {
-                throw new PeajeException("Ya existe un administrador con la misma cédula");
-            }
+        if (administradores.putIfAbsent(administrador.getCedula(), administrador) != null) {
+            throw new PeajeException("Ya existe un administrador con la misma cédula");
         }
-        administradores.add(administrador);
+        administradoresEnOrden.add(administrador);
     }
 
+    /**
+     * @return Los propietarios en orden de alta (vista de solo lectura, sin copia)
+     */
     public List<Propietario> getPropietarios() {
-        return propietarios;
+        return Collections.unmodifiableList(propietariosEnOrden);
+    }
+
+    /**
+     * @return Los administradores en orden de alta (vista de solo lectura, sin copia)
+     */
+    public List<Administrador> getAdministradores() {
+        return Collections.unmodifiableList(administradoresEnOrden);
     }
 
     /**
@@ -148,13 +156,11 @@ public class ServicioUsuarios {
             throw new PeajeException("Cédula inválida");
         }
 
-        for (Propietario propietario : propietarios) {
-            if (propietario.getCedula().equals(cedula.trim())) {
-                return propietario;
-            }
+        Propietario propietario = propietarios.get(cedula.trim());
+        if (propietario == null) {
+            throw new PeajeException("no existe el propietario");
         }
-
-        throw new PeajeException("no existe el propietario");
+        return propietario;
     }
 
     /**
@@ -178,8 +184,34 @@ public class ServicioUsuarios {
         if (nuevoEstado == null) {
             throw new PeajeException("Debe especificar un estado");
         }        
-        // Cambiar el estado del propietario
-        propietario.setEstado(nuevoEstado);
+        // Registrar el cambio en la bitácora y luego aplicarlo: si no se puede
+        // registrar, el estado no cambia
+        synchronized (propietario) {
+            propietario.validarCambioEstado(nuevoEstado);
+            Date fechaHora = new Date();
+            Fachada.getInstancia().getPersistencia().estadoCambiado(propietario, nuevoEstado, fechaHora);
+            propietario.cambiarEstado(nuevoEstado, fechaHora);
+        }
+    }
+
+    /**
+     * Agrega saldo a un propietario y registra la recarga en la bitácora.
+     * 
+     * @param propietario El propietario al que se le agrega saldo
+     * @param monto El monto a agregar en centésimos (debe ser positivo)
+     * @throws PeajeException Si no se especifica un propietario o el monto no es positivo
+     */
+    public void agregarSaldo(Propietario propietario, long monto) throws PeajeException {
+        if (propietario == null) {
+            throw new PeajeException("Debe especificar un propietario");
+        }
+        if (monto <= 0) {
+            throw new PeajeException("El monto debe ser positivo");
+        }
+        synchronized (propietario) {
+            Fachada.getInstancia().getPersistencia().saldoAgregado(propietario, monto);
+            propietario.agregarSaldo(monto);
+        }
     }
 
     /**
@@ -2,6 +2,9 @@ package obligatorio.da.sistemaPeajes.servicios;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import excepciones.PeajeException;
 import obligatorio.da.sistemaPeajes.dominio.Propietario;
@@ -9,28 +12,24 @@ import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
 
 public class ServicioVehiculos {
 
-    private final List<Vehiculo> vehiculos;
+    // Vehículos indexados por matrícula normalizada (en mayúsculas)
+    private final Map<String, Vehiculo> vehiculos;
 
     public ServicioVehiculos() {
-        this.vehiculos = new ArrayList<>();
+        this.vehiculos = new ConcurrentHashMap<>();
     }
 
     /**
      * Registra un vehículo en el sistema y asegura que conozca a su propietario.
      */
     public void agregarVehiculo(Vehiculo vehiculo, Propietario propietario) throws PeajeException {
-        
-        for (Vehiculo v : vehiculos) {
-            if (v.getMatricula().equalsIgnoreCase(vehiculo.getMatricula())) {
-                throw new PeajeException("Ya existe un vehículo con esa matrícula");
-            }
+
+        if (vehiculos.putIfAbsent(normalizar(vehiculo.getMatricula()), vehiculo) != null) {
+            throw new PeajeException("Ya existe un vehículo con esa matrícula");
         }
 
         // Delegar la bidireccionalidad al propietario
         propietario.agregarVehiculo(vehiculo);
-
-        //Agregar al registro global del sistema
-        vehiculos.add(vehiculo);
     }
 
     /**
@@ -39,19 +38,24 @@ public class ServicioVehiculos {
      */
     public Vehiculo buscarVehiculoPorMatricula(String matricula) throws PeajeException {
 
-        for (Vehiculo v : vehiculos) {
-            if (v.getMatricula().equalsIgnoreCase(matricula)) {
-                return v;
-            }
+        Vehiculo vehiculo = (matricula != null) ? vehiculos.get(normalizar(matricula)) : null;
+        if (vehiculo == null) {
+            throw new PeajeException("No existe el vehículo");
         }
-
-        throw new PeajeException("No existe el vehículo");
+        return vehiculo;
     }
 
     /**
      * Devuelve todos los vehículos del sistema.
      */
     public List<Vehiculo> getVehiculos() {
-        return vehiculos;
+        return new ArrayList<>(vehiculos.values());
+    }
+
+    /**
+     * Normaliza la matrícula para que la búsqueda no distinga mayúsculas de minúsculas.
+     */
+    private static String normalizar(String matricula) {
+        return matricula.toUpperCase(Locale.ROOT);
     }
 }
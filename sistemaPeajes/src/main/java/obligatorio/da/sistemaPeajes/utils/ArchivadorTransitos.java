@@ -0,0 +1,39 @@
+package obligatorio.da.sistemaPeajes.utils;
+
+import java.util.Date;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import obligatorio.da.sistemaPeajes.servicios.Fachada;
+
+/**
+ * Archiva periódicamente fuera del heap los tránsitos con más antigüedad que la
+ * configurada, que se consultan poco y solo agregarían trabajo al recolector de
+ * basura.
+ */
+@Component
+public class ArchivadorTransitos {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivadorTransitos.class);
+
+    private final long antiguedadMs;
+
+    public ArchivadorTransitos(@Value("${peajes.transitos.antiguedad-archivo-dias:30}") long antiguedadDias) {
+        this.antiguedadMs = antiguedadDias * 24 * 60 * 60 * 1000;
+    }
+
+    @Scheduled(initialDelayString = "${peajes.transitos.intervalo-archivo-ms:600000}",
+            fixedDelayString = "${peajes.transitos.intervalo-archivo-ms:600000}")
+    public void archivar() {
+        Fachada fachada = Fachada.getInstancia();
+        int bloques = fachada.archivarTransitosAnterioresA(new Date(System.currentTimeMillis() - antiguedadMs));
+        if (bloques > 0) {
+            log.info("Se archivaron fuera del heap {} bloques de tránsitos ({} tránsitos archivados en total)",
+                    bloques, fachada.cantidadTransitosArchivados());
+        }
+    }
+}
@@ -1,19 +1,65 @@
 
 package obligatorio.da.sistemaPeajes.utils;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
 
 
+/**
+ * Conexión SSE con el navegador de una sesión.
+ *
+ * Los envíos no se hacen en el hilo que los solicita: se encolan y se procesan en
+ * orden, de a uno, en el {@link DespachadorSSE}. La cola es acotada; si el
+ * navegador no consume lo suficientemente rápido los mensajes nuevos se descartan
+ * (la vista detecta el salto en la secuencia y vuelve a pedir el estado completo).
+ * Los descartes se cuentan y se informan en el log como mucho una vez cada 10
+ * segundos, sumando los de todas las conexiones.
+ */
 @Component
 @Scope("session")
 public class ConexionNavegador  {
 
-    private SseEmitter conexionSSE;
+    private static final Logger log = LoggerFactory.getLogger(ConexionNavegador.class);
+
+    private static final long INTERVALO_AVISO_DESCARTES_NS = TimeUnit.SECONDS.toNanos(10);
+    // Mensajes descartados por todas las conexiones desde el último aviso en el log
+    private static final AtomicLong descartadosSinAvisar = new AtomicLong();
+    private static final AtomicLong ultimoAvisoDescartes = new AtomicLong(
+            System.nanoTime() - INTERVALO_AVISO_DESCARTES_NS);
+
+    private volatile SseEmitter conexionSSE;
+
+    @Autowired
+    private SerializadorJSON serializador;
+
+    @Autowired
+    private DespachadorSSE despachador;
+
+    @Value("${peajes.sse.capacidad-cola:256}")
+    private int capacidadCola;
+
+    // Tareas pendientes de esta conexión, procesadas en orden por un único hilo a la vez
+    private final Queue<Runnable> tareas = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicBoolean procesando = new AtomicBoolean();
+    private final AtomicLong descartados = new AtomicLong();
 
     public void conectarSSE() {
         if (conexionSSE != null) { //si hay hay una conexion la cierro
@@ -23,11 +69,21 @@ public class ConexionNavegador  {
         conexionSSE = new SseEmitter(timeOut);
         
     }
+    /**
+     * Cierra la conexión cuando termina la sesión, aunque el navegador no lo haya hecho.
+     */
+    @PreDestroy
+    public void sesionTerminada() {
+        cerrarConexion();
+        tareas.clear();
+    }
+
     public void cerrarConexion(){
         try{
-            if(conexionSSE!=null){
-                conexionSSE.complete();
+            SseEmitter conexion = conexionSSE;
+            if(conexion!=null){
                 conexionSSE = null;
+                conexion.complete();
             }
         }catch(Exception e){}
     }
@@ -35,30 +91,110 @@ public class ConexionNavegador  {
     public SseEmitter getConexionSSE() {
         return conexionSSE;
     }
-     
+
+    /**
+     * Encola una tarea para ejecutarla fuera del hilo actual, después de las tareas
+     * y envíos ya encolados para esta conexión.
+     *
+     * @param tarea La tarea a ejecutar
+     * @return false si la cola está llena y la tarea se descartó
+     */
+    public boolean ejecutar(Runnable tarea) {
+        if (pendientes.incrementAndGet() > capacidadCola) {
+            pendientes.decrementAndGet();
+            registrarDescarte();
+            return false;
+        }
+        tareas.offer(tarea);
+        programarProcesamiento();
+        return true;
+    }
+
+    /**
+     * @return La cantidad de mensajes descartados por esta conexión con la cola llena
+     */
+    public long getMensajesDescartados() {
+        return descartados.get();
+    }
+
+    private void registrarDescarte() {
+        descartados.incrementAndGet();
+        descartadosSinAvisar.incrementAndGet();
+        long ahora = System.nanoTime();
+        long anterior = ultimoAvisoDescartes.get();
+        // Un solo hilo por intervalo gana el compareAndSet y escribe el aviso
+        if (ahora - anterior >= INTERVALO_AVISO_DESCARTES_NS
+                && ultimoAvisoDescartes.compareAndSet(anterior, ahora)) {
+            log.warn("Colas SSE llenas: {} mensajes descartados en los últimos {} s",
+                    descartadosSinAvisar.getAndSet(0), TimeUnit.NANOSECONDS.toSeconds(ahora - anterior));
+        }
+    }
+
+    private void programarProcesamiento() {
+        if (procesando.compareAndSet(false, true) && !despachador.ejecutar(this::procesarTareas)) {
+            procesando.set(false);
+        }
+    }
+
+    private void procesarTareas() {
+        Runnable tarea;
+        while ((tarea = tareas.poll()) != null) {
+            pendientes.decrementAndGet();
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                log.warn("Error al procesar un mensaje SSE", e);
+            }
+        }
+        procesando.set(false);
+        // Una tarea pudo encolarse entre el último poll y la liberación
+        if (!tareas.isEmpty()) {
+            programarProcesamiento();
+        }
+    }
+
+    /**
+     * Envía un objeto como JSON. El envío es asíncrono y respeta el orden de llamada.
+     *
+     * @param informacion El objeto a enviar; no debe modificarse después de la llamada
+     */
     public void enviarJSON(Object informacion) {
+        if (conexionSSE == null) return;
+        ejecutar(() -> escribirJSON(informacion));
+    }
+
+    private void escribirJSON(Object informacion) {
+        SseEmitter conexion = conexionSSE;
+        if (conexion == null) return;
         try {
-            String json = new ObjectMapper().writeValueAsString(informacion);
-            enviarMensaje(json);
-   
+            // El JSON se envía como bytes: no se arma un String intermedio por mensaje
+            byte[] json = serializador.serializar(informacion);
+            conexion.send(SseEmitter.event().data(json, MediaType.APPLICATION_JSON));
+
         } catch (JsonProcessingException e) {
-            System.out.println("Error al convertir a JSON:" + e.getMessage());
-           
+            log.warn("Error al convertir a JSON: {}", e.getMessage());
+
+        } catch (Throwable e) {
+            // Normalmente el navegador cerró la conexión: no es un error del servidor
+            log.debug("Error al enviar mensaje: {}", e.getMessage());
+            cerrarConexion();
         }
-   
     }
+
     public void enviarMensaje(String mensaje) {
-       
-	if(conexionSSE==null) return;
-        try {	
-	     	conexionSSE.send(mensaje);
-						
-	} catch (Throwable e) {
-            System.out.println("Error al enviar mensaje:" + e.getMessage());
-            cerrarConexion();
-	}
+        if (conexionSSE == null) return;
+        ejecutar(() -> escribirMensaje(mensaje));
     }
-    
-  
 
+    private void escribirMensaje(String mensaje) {
+        SseEmitter conexion = conexionSSE;
+        if (conexion == null) return;
+        try {
+            conexion.send(mensaje);
+
+        } catch (Throwable e) {
+            log.debug("Error al enviar mensaje: {}", e.getMessage());
+            cerrarConexion();
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package obligatorio.da.sistemaPeajes.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecutor compartido donde se procesan los avisos a las vistas y se escriben los
+ * mensajes SSE, fuera del hilo que registró el cambio (por ejemplo, el de la
+ * cabina que registró un tránsito).
+ *
+ * Por defecto usa hilos virtuales: un navegador lento solo bloquea su propio hilo.
+ * Con {@code peajes.sse.hilos-virtuales=false} se usa un pool fijo de
+ * {@code peajes.sse.hilos} hilos.
+ */
+@Component
+public class DespachadorSSE {
+
+    private final ExecutorService ejecutor;
+
+    // Solo dispara las tareas programadas; deben ser breves (por ejemplo, encolar un envío)
+    private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "sse-programador");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public DespachadorSSE(@Value("${peajes.sse.hilos-virtuales:true}") boolean hilosVirtuales,
+            @Value("${peajes.sse.hilos:4}") int hilos) {
+        if (hilosVirtuales) {
+            ejecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-", 0).factory());
+        } else {
+            AtomicInteger numero = new AtomicInteger();
+            ejecutor = Executors.newFixedThreadPool(hilos, r -> {
+                Thread hilo = new Thread(r, "sse-" + numero.getAndIncrement());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    /**
+     * Ejecuta una tarea en segundo plano.
+     *
+     * @param tarea La tarea a ejecutar
+     * @return false si el despachador ya se detuvo y la tarea no se ejecutará
+     */
+    public boolean ejecutar(Runnable tarea) {
+        try {
+            ejecutor.execute(tarea);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Programa una tarea breve para dentro de cierta cantidad de milisegundos.
+     *
+     * @param tarea La tarea a ejecutar; no debe bloquear
+     * @param demoraMs La demora en milisegundos
+     */
+    public void programar(Runnable tarea, long demoraMs) {
+        try {
+            programador.schedule(tarea, demoraMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // El despachador se está deteniendo
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        programador.shutdownNow();
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package obligatorio.da.sistemaPeajes.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import obligatorio.da.sistemaPeajes.dominio.Propietario;
+
+/**
+ * Quita periódicamente las suscripciones a eventos de los propietarios cuyos
+ * dueños (controladores de sesión) se liberaron sin desuscribirse, e informa
+ * cuántas encontró: si aparecen, alguna vista no se está desuscribiendo al
+ * cerrarse o al terminar la sesión.
+ */
+@Component
+public class LimpiadorSuscripciones {
+
+    private static final Logger log = LoggerFactory.getLogger(LimpiadorSuscripciones.class);
+
+    @Scheduled(initialDelayString = "${peajes.suscripciones.intervalo-limpieza-ms:60000}",
+            fixedDelayString = "${peajes.suscripciones.intervalo-limpieza-ms:60000}")
+    public void limpiar() {
+        int purgadas = 0;
+        int activas = 0;
+        // Solo los propietarios con suscripciones: los demás no tienen nada que limpiar
+        for (Propietario propietario : Propietario.getPropietariosConSuscripciones()) {
+            purgadas += propietario.purgarSuscripciones();
+            activas += propietario.cantidadSuscripciones();
+        }
+        if (purgadas > 0) {
+            log.warn("Se quitaron {} suscripciones de sesiones liberadas sin desuscribirse ({} activas)",
+                    purgadas, activas);
+        } else {
+            log.debug("Suscripciones activas: {}", activas);
+        }
+    }
+}
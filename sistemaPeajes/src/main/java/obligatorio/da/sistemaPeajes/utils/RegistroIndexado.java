@@ -0,0 +1,72 @@
+package obligatorio.da.sistemaPeajes.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asigna a cada objeto un identificador entero denso (0, 1, 2, ...) y permite
+ * recuperar el objeto a partir de su identificador.
+ *
+ * Sirve para guardar referencias a objetos del dominio como enteros dentro de
+ * arreglos primitivos. Los objetos se comparan por identidad (las clases del
+ * dominio no redefinen equals) y quedan registrados mientras exista el registro.
+ *
+ * Es seguro para uso concurrente: las altas se serializan y las consultas no
+ * toman bloqueos.
+ *
+ * @param <T> El tipo de objeto registrado
+ */
+public class RegistroIndexado<T> {
+
+    // Identificador que representa la ausencia de objeto (null)
+    public static final int SIN_ID = -1;
+
+    private final Map<T, Integer> identificadores = new ConcurrentHashMap<>();
+    private volatile Object[] objetos = new Object[16];
+    private int cantidad;
+
+    /**
+     * Obtiene el identificador de un objeto, registrándolo si es la primera vez.
+     *
+     * @param objeto El objeto, o null
+     * @return Su identificador, o SIN_ID si el objeto es null
+     */
+    public int identificador(T objeto) {
+        if (objeto == null) {
+            return SIN_ID;
+        }
+        Integer id = identificadores.get(objeto);
+        return id != null ? id : registrar(objeto);
+    }
+
+    private synchronized int registrar(T objeto) {
+        Integer existente = identificadores.get(objeto);
+        if (existente != null) {
+            return existente;
+        }
+        Object[] actuales = objetos;
+        if (cantidad == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        actuales[cantidad] = objeto;
+        // Se publica el arreglo antes que el identificador: quien obtenga el
+        // identificador del mapa ya ve el objeto en el arreglo
+        objetos = actuales;
+        identificadores.put(objeto, cantidad);
+        return cantidad++;
+    }
+
+    /**
+     * @param id Un identificador devuelto por este registro, o SIN_ID
+     * @return El objeto con ese identificador, o null si es SIN_ID
+     */
+    @SuppressWarnings("unchecked")
+    public T obtener(int id) {
+        return id == SIN_ID ? null : (T) objetos[id];
+    }
+
+    public synchronized int cantidad() {
+        return cantidad;
+    }
+}
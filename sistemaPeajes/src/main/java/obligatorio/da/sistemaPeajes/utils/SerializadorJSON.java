@@ -0,0 +1,87 @@
+package obligatorio.da.sistemaPeajes.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Serializador JSON compartido por todas las conexiones SSE.
+ *
+ * Usa el ObjectMapper configurado por Spring (el mismo que serializa las
+ * respuestas de los controladores), reutiliza un ObjectWriter por tipo de dato y
+ * escribe sobre buffers reutilizables, de modo que cada envío solo reserva el
+ * arreglo final con el JSON.
+ */
+@Component
+public class SerializadorJSON {
+
+    // Cantidad máxima de buffers guardados para reutilizar y tamaño máximo de cada uno
+    private static final int MAXIMO_BUFFERS = 32;
+    private static final int TAMANIO_INICIAL = 4 * 1024;
+    private static final int TAMANIO_MAXIMO_REUTILIZABLE = 256 * 1024;
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public SerializadorJSON(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Serializa un objeto a JSON (UTF-8).
+     *
+     * @param informacion El objeto a serializar
+     * @return Los bytes del JSON
+     * @throws JsonProcessingException Si el objeto no se puede serializar
+     */
+    public byte[] serializar(Object informacion) throws JsonProcessingException {
+        ObjectWriter writer = writers.computeIfAbsent(informacion.getClass(), mapper::writerFor);
+        Buffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
+        try {
+            writer.writeValue(buffer, informacion);
+            return buffer.toByteArray();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // No ocurre al escribir en memoria
+            throw new IllegalStateException(e);
+        } finally {
+            devolver(buffer);
+        }
+    }
+
+    private void devolver(Buffer buffer) {
+        // Los buffers que crecieron demasiado se descartan para no retener memoria
+        if (buffer.capacidad() <= TAMANIO_MAXIMO_REUTILIZABLE && buffers.size() < MAXIMO_BUFFERS) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Buffer en memoria que se puede reutilizar entre serializaciones.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(TAMANIO_INICIAL);
+        }
+
+        int capacidad() {
+            return buf.length;
+        }
+    }
+}
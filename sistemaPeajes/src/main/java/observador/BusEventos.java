@@ -0,0 +1,212 @@
+package observador;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bus de eventos tipado.
+ *
+ * Cada suscriptor se registra para una clase de evento y recibe solo los eventos
+ * de esa clase (o de sus subclases), ya con su tipo. Para cada clase de evento
+ * publicada se arma una tabla de despacho con los suscriptores que le
+ * corresponden; la tabla se recalcula al suscribir o cancelar, de modo que
+ * publicar es una búsqueda en un mapa y el recorrido de un arreglo, sin
+ * comparaciones ni reservas de memoria.
+ *
+ * Las suscripciones se agrupan por dueño (normalmente el objeto que se suscribe)
+ * para poder cancelarlas todas juntas. El bus guarda a los dueños con referencias
+ * débiles: si un dueño se libera sin desuscribirse deja de recibir eventos, y
+ * {@link #purgar()} quita sus suscripciones.
+ */
+public final class BusEventos {
+
+    private static final Suscripcion[] VACIO = new Suscripcion[0];
+
+    // Suscripciones por tipo de evento y por dueño; se accede con el monitor del bus
+    private final Map<Class<?>, Set<Suscripcion>> porTipo = new LinkedHashMap<>();
+    private final Map<ReferenciaDuenio, List<Suscripcion>> porDuenio = new HashMap<>();
+
+    // Dueños liberados por el recolector de basura que todavía tienen suscripciones
+    private final ReferenceQueue<Object> duenosLiberados = new ReferenceQueue<>();
+
+    // Tabla de despacho por clase concreta de evento
+    private final Map<Class<?>, Suscripcion[]> tablaDespacho = new ConcurrentHashMap<>();
+
+    /**
+     * Suscribe a los eventos de un tipo.
+     *
+     * El suscriptor recibe al dueño como parámetro; no debe retenerlo (por ejemplo
+     * capturándolo en una lambda) para que el dueño se pueda liberar.
+     *
+     * @param duenio Quien se suscribe; permite cancelar todas sus suscripciones juntas
+     * @param tipo La clase de los eventos a recibir
+     * @param suscriptor Recibe los eventos
+     * @return La suscripción, para cancelarla
+     */
+    @SuppressWarnings("unchecked")
+    public <D, E> Suscripcion suscribir(D duenio, Class<E> tipo, Suscriptor<? super D, ? super E> suscriptor) {
+        synchronized (this) {
+            List<Suscripcion> delDuenio = porDuenio.get(new ReferenciaDuenio(duenio, null));
+            ReferenciaDuenio referencia;
+            if (delDuenio == null) {
+                referencia = new ReferenciaDuenio(duenio, duenosLiberados);
+                delDuenio = new ArrayList<>();
+                porDuenio.put(referencia, delDuenio);
+            } else {
+                referencia = delDuenio.get(0).getReferencia();
+            }
+            Suscripcion suscripcion = new Suscripcion(this, referencia, tipo,
+                    (Suscriptor<Object, Object>) suscriptor);
+            delDuenio.add(suscripcion);
+            porTipo.computeIfAbsent(tipo, t -> new LinkedHashSet<>()).add(suscripcion);
+            recalcularTablas(tipo);
+            return suscripcion;
+        }
+    }
+
+    /**
+     * Cancela todas las suscripciones de un dueño.
+     *
+     * @param duenio El dueño de las suscripciones
+     */
+    public synchronized void desuscribir(Object duenio) {
+        List<Suscripcion> suscripciones = porDuenio.remove(new ReferenciaDuenio(duenio, null));
+        if (suscripciones == null) {
+            return;
+        }
+        for (Suscripcion suscripcion : suscripciones) {
+            quitar(suscripcion);
+        }
+    }
+
+    /**
+     * @return La cantidad de suscripciones registradas
+     */
+    public synchronized int cantidadSuscripciones() {
+        int cantidad = 0;
+        for (List<Suscripcion> suscripciones : porDuenio.values()) {
+            cantidad += suscripciones.size();
+        }
+        return cantidad;
+    }
+
+    /**
+     * Quita las suscripciones de los dueños que se liberaron sin desuscribirse.
+     *
+     * @return La cantidad de suscripciones quitadas
+     */
+    public synchronized int purgar() {
+        int purgadas = 0;
+        Reference<?> liberado;
+        while ((liberado = duenosLiberados.poll()) != null) {
+            List<Suscripcion> suscripciones = porDuenio.remove(liberado);
+            if (suscripciones != null) {
+                for (Suscripcion suscripcion : suscripciones) {
+                    quitar(suscripcion);
+                }
+                purgadas += suscripciones.size();
+            }
+        }
+        return purgadas;
+    }
+
+    /**
+     * Entrega el evento a los suscriptores de su clase.
+     *
+     * @param evento El evento
+     */
+    public void publicar(Object evento) {
+        Suscripcion[] destinos = tablaDespacho.get(evento.getClass());
+        if (destinos == null) {
+            destinos = tablaPara(evento.getClass());
+        }
+        for (Suscripcion suscripcion : destinos) {
+            suscripcion.entregar(evento);
+        }
+    }
+
+    synchronized void cancelar(Suscripcion suscripcion) {
+        List<Suscripcion> delDuenio = porDuenio.get(suscripcion.getReferencia());
+        if (delDuenio == null || !delDuenio.remove(suscripcion)) {
+            return;
+        }
+        if (delDuenio.isEmpty()) {
+            porDuenio.remove(suscripcion.getReferencia());
+        }
+        quitar(suscripcion);
+    }
+
+    private void quitar(Suscripcion suscripcion) {
+        suscripcion.desactivar();
+        Set<Suscripcion> delTipo = porTipo.get(suscripcion.getTipo());
+        delTipo.remove(suscripcion);
+        if (delTipo.isEmpty()) {
+            porTipo.remove(suscripcion.getTipo());
+        }
+        recalcularTablas(suscripcion.getTipo());
+    }
+
+    private synchronized Suscripcion[] tablaPara(Class<?> claseEvento) {
+        return tablaDespacho.computeIfAbsent(claseEvento, this::armarTabla);
+    }
+
+    // Recalcula las tablas de las clases de evento afectadas por un cambio en las
+    // suscripciones a un tipo
+    private void recalcularTablas(Class<?> tipo) {
+        for (Class<?> claseEvento : tablaDespacho.keySet()) {
+            if (tipo.isAssignableFrom(claseEvento)) {
+                tablaDespacho.put(claseEvento, armarTabla(claseEvento));
+            }
+        }
+    }
+
+    private Suscripcion[] armarTabla(Class<?> claseEvento) {
+        List<Suscripcion> destinos = new ArrayList<>();
+        for (Map.Entry<Class<?>, Set<Suscripcion>> entrada : porTipo.entrySet()) {
+            if (entrada.getKey().isAssignableFrom(claseEvento)) {
+                destinos.addAll(entrada.getValue());
+            }
+        }
+        return destinos.isEmpty() ? VACIO : destinos.toArray(VACIO);
+    }
+
+    /**
+     * Referencia débil a un dueño, que se compara por identidad del dueño. Una vez
+     * liberado el dueño solo es igual a sí misma.
+     */
+    static final class ReferenciaDuenio extends WeakReference<Object> {
+
+        private final int hash;
+
+        ReferenciaDuenio(Object duenio, ReferenceQueue<Object> cola) {
+            super(duenio, cola);
+            this.hash = System.identityHashCode(duenio);
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            if (this == otro) {
+                return true;
+            }
+            if (!(otro instanceof ReferenciaDuenio otra)) {
+                return false;
+            }
+            Object duenio = get();
+            return duenio != null && duenio == otra.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,28 +1,21 @@
 package observador;
 
-import java.util.ArrayList;
-
 public class Observable implements ObservableImpl {
-    private final ArrayList<Observador> observadores = new ArrayList<>();
+    private final RegistroObservadores observadores = new RegistroObservadores();
     
     @Override
      public void agregarObservador(Observador obs){
-        if(!observadores.contains(obs)){
-            observadores.add(obs);
-        }
+        observadores.agregar(obs);
     }
 
     @Override
     public void quitarObservador(Observador obs){
-        observadores.remove(obs);
+        observadores.quitar(obs);
     }
 
     @Override
     public void avisar(Object evento){
-        ArrayList<Observador> copia = new ArrayList<>(observadores);
-        for(Observador obs:copia){
-            obs.actualizar(evento, this);
-        }
+        observadores.avisar(evento, this);
     }
 
 }
@@ -0,0 +1,74 @@
+package observador;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Registro de observadores seguro para uso concurrente.
+ *
+ * Agregar y quitar son O(1) sobre un conjunto (sin recorrer la lista para evitar
+ * duplicados). Para avisar se recorre un arreglo inmutable que se reconstruye solo
+ * cuando el conjunto cambió desde el último aviso, por lo que avisar no reserva
+ * memoria y no necesita bloqueo mientras no haya altas ni bajas.
+ */
+public final class RegistroObservadores {
+
+    private static final Observador[] VACIO = new Observador[0];
+
+    // Conjunto en orden de suscripción; se accede con el monitor del registro
+    private final Set<Observador> observadores = new LinkedHashSet<>();
+
+    // Copia para recorrer al avisar; se descarta cuando cambia el conjunto
+    private volatile Observador[] instantanea = VACIO;
+    private volatile boolean modificado;
+
+    /**
+     * @return true si el observador no estaba registrado
+     */
+    public synchronized boolean agregar(Observador obs) {
+        boolean agregado = observadores.add(obs);
+        if (agregado) {
+            modificado = true;
+        }
+        return agregado;
+    }
+
+    /**
+     * @return true si el observador estaba registrado
+     */
+    public synchronized boolean quitar(Observador obs) {
+        boolean quitado = observadores.remove(obs);
+        if (quitado) {
+            modificado = true;
+        }
+        return quitado;
+    }
+
+    public synchronized int cantidad() {
+        return observadores.size();
+    }
+
+    /**
+     * Avisa el evento a los observadores registrados en este momento.
+     *
+     * @param evento El evento
+     * @param origen El observable que lo generó
+     */
+    public void avisar(Object evento, Observable origen) {
+        for (Observador obs : instantanea()) {
+            obs.actualizar(evento, origen);
+        }
+    }
+
+    private Observador[] instantanea() {
+        if (modificado) {
+            synchronized (this) {
+                if (modificado) {
+                    modificado = false;
+                    instantanea = observadores.toArray(VACIO);
+                }
+            }
+        }
+        return instantanea;
+    }
+}
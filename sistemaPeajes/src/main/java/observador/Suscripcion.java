@@ -0,0 +1,61 @@
+package observador;
+
+/**
+ * Suscripción a un tipo de evento de un {@link BusEventos}.
+ */
+public final class Suscripcion {
+
+    private final BusEventos bus;
+    private final BusEventos.ReferenciaDuenio duenio;
+    private final Class<?> tipo;
+    private final Suscriptor<Object, Object> suscriptor;
+    private volatile boolean activa = true;
+
+    Suscripcion(BusEventos bus, BusEventos.ReferenciaDuenio duenio, Class<?> tipo,
+            Suscriptor<Object, Object> suscriptor) {
+        this.bus = bus;
+        this.duenio = duenio;
+        this.tipo = tipo;
+        this.suscriptor = suscriptor;
+    }
+
+    /**
+     * @return El dueño de la suscripción, o null si ya fue liberado
+     */
+    public Object getDuenio() {
+        return duenio.get();
+    }
+
+    public Class<?> getTipo() {
+        return tipo;
+    }
+
+    public boolean isActiva() {
+        return activa && duenio.get() != null;
+    }
+
+    /**
+     * Cancela la suscripción. A partir de este momento el suscriptor no recibe
+     * más eventos.
+     */
+    public void cancelar() {
+        bus.cancelar(this);
+    }
+
+    BusEventos.ReferenciaDuenio getReferencia() {
+        return duenio;
+    }
+
+    void desactivar() {
+        activa = false;
+    }
+
+    void entregar(Object evento) {
+        // Un aviso que empezó antes de cancelar no se entrega, ni tampoco uno cuyo
+        // dueño ya fue liberado
+        Object actual = duenio.get();
+        if (activa && actual != null) {
+            suscriptor.recibir(actual, evento);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package observador;
+
+/**
+ * Recibe los eventos de un tipo al que se suscribió en un {@link BusEventos}.
+ *
+ * El bus guarda al dueño de la suscripción con una referencia débil y se lo pasa
+ * al suscriptor en cada evento; así el suscriptor no necesita retenerlo y una
+ * sesión abandonada puede liberarse aunque no se haya desuscripto.
+ *
+ * @param <D> El tipo del dueño de la suscripción
+ * @param <E> El tipo de evento
+ */
+@FunctionalInterface
+public interface Suscriptor<D, E> {
+    void recibir(D duenio, E evento);
+}
@@ -21,6 +21,44 @@ urlIniciarVista = "/usuarios/propietarios/tablero/vistaConectada";
 urlRegistroSSE = "/usuarios/propietarios/tablero/registrarSSE"; // Al cargarse el menu admin se registra el SSE
 console.log("Panel");
 
+// Número del último mensaje procesado. El tablero completo llega con secuencia 0 y
+// los cambios enviados por SSE se numeran desde 1; si falta alguno se vuelve a
+// pedir el tablero completo.
+let ultimaSecuencia = 0;
+let resincronizando = false;
+
+// Historiales paginados: llega la primera página con el tablero y las anteriores
+// se piden al llegar al final de la tabla o lista.
+const historialTransitos = crearHistorial("/usuarios/propietarios/tablero/transitos", "transitsScroll", "transitsLoading");
+const historialNotificaciones = crearHistorial("/usuarios/propietarios/tablero/notificaciones", "notificationsList", "notificationsLoading");
+
+// ==========================================================
+// SECUENCIA DE CAMBIOS
+// ==========================================================
+
+/**
+ * Controla la secuencia de los mensajes recibidos.
+ * Llega primero en cada mensaje, antes de los cambios que numera.
+ */
+function mostrar_secuencia(numero) {
+  if (numero === 0) {
+    // Tablero completo
+    ultimaSecuencia = 0;
+    resincronizando = false;
+    return;
+  }
+  if (resincronizando) {
+    return;
+  }
+  if (numero !== ultimaSecuencia + 1) {
+    console.warn("Se perdieron cambios (esperado " + (ultimaSecuencia + 1) + ", recibido " + numero + "). Recargando tablero");
+    resincronizando = true;
+    submit(urlIniciarVista, parametrosInicioVista, "GET");
+    return;
+  }
+  ultimaSecuencia = numero;
+}
+
 // ==========================================================
 // FUNCIONES PARA MOSTRAR DATOS DEL PROPIETARIO
 // ==========================================================
@@ -77,7 +115,7 @@ function mostrar_bonificacionesAsignadas(bonificaciones) {
   if (!bonificaciones || bonificaciones.length === 0) {
     bonificationsTable.innerHTML = `
       <tr>
-        <td colspan="3" class="text-center text-muted">No hay bonificaciones asignadas</td>
+        <td colspan="3" class="text-center text-muted fila-vacia">No hay bonificaciones asignadas</td>
       </tr>
     `;
     return;
@@ -85,16 +123,31 @@ function mostrar_bonificacionesAsignadas(bonificaciones) {
   
   // Agregar cada bonificación
   bonificaciones.forEach(bonificacion => {
-    const fila = document.createElement("tr");
-    fila.innerHTML = `
-      <td>${bonificacion.nombreBonificacion || ""}</td>
-      <td>${bonificacion.nombrePuesto || ""}</td>
-      <td>${bonificacion.fechaAsignada || ""}</td>
-    `;
-    bonificationsTable.appendChild(fila);
+    bonificationsTable.appendChild(crearFilaBonificacion(bonificacion));
   });
 }
 
+/**
+ * Agrega una bonificación recién asignada a la tabla.
+ */
+function mostrar_bonificacionAgregada(bonificacion) {
+  if (resincronizando) return;
+  const bonificationsTable = document.getElementById("bonificationsTable");
+  if (!bonificationsTable) return;
+  quitarFilaVacia(bonificationsTable);
+  bonificationsTable.appendChild(crearFilaBonificacion(bonificacion));
+}
+
+function crearFilaBonificacion(bonificacion) {
+  const fila = document.createElement("tr");
+  fila.innerHTML = `
+    <td>${bonificacion.nombreBonificacion || ""}</td>
+    <td>${bonificacion.nombrePuesto || ""}</td>
+    <td>${bonificacion.fechaAsignada || ""}</td>
+  `;
+  return fila;
+}
+
 /**
  * Muestra los vehículos registrados del propietario.
  * PASO 1 del CU: Tabla de vehículos registrados
@@ -112,7 +165,7 @@ function mostrar_vehiculosRegistrados(vehiculos) {
   if (!vehiculos || vehiculos.length === 0) {
     vehiclesTable.innerHTML = `
       <tr>
-        <td colspan="5" class="text-center text-muted">No hay vehículos registrados</td>
+        <td colspan="5" class="text-center text-muted fila-vacia">No hay vehículos registrados</td>
       </tr>
     `;
     return;
@@ -120,37 +173,62 @@ function mostrar_vehiculosRegistrados(vehiculos) {
   
   // Agregar cada vehículo
   vehiculos.forEach(vehiculo => {
-    const fila = document.createElement("tr");
-    fila.innerHTML = `
-      <td><strong>${vehiculo.matricula || ""}</strong></td>
-      <td>${vehiculo.modelo || ""}</td>
-      <td>${vehiculo.color || ""}</td>
-      <td><span class="badge bg-secondary">${vehiculo.cantidadTransitos || 0}</span></td>
-      <td class="text-end">$ ${(vehiculo.totalGastado || 0).toFixed(2)}</td>
-    `;
-    vehiclesTable.appendChild(fila);
+    vehiclesTable.appendChild(crearFilaVehiculo(vehiculo));
   });
 }
 
+/**
+ * Actualiza la fila de un vehículo (cantidad de tránsitos y monto total).
+ */
+function mostrar_vehiculoActualizado(vehiculo) {
+  if (resincronizando) return;
+  const vehiclesTable = document.getElementById("vehiclesTable");
+  if (!vehiclesTable) return;
+  const nueva = crearFilaVehiculo(vehiculo);
+  const actual = Array.from(vehiclesTable.rows).find(fila => fila.dataset.matricula === vehiculo.matricula);
+  if (actual) {
+    actual.replaceWith(nueva);
+  } else {
+    quitarFilaVacia(vehiclesTable);
+    vehiclesTable.appendChild(nueva);
+  }
+}
+
+function crearFilaVehiculo(vehiculo) {
+  const fila = document.createElement("tr");
+  fila.dataset.matricula = vehiculo.matricula || "";
+  fila.innerHTML = `
+    <td><strong>${vehiculo.matricula || ""}</strong></td>
+    <td>${vehiculo.modelo || ""}</td>
+    <td>${vehiculo.color || ""}</td>
+    <td><span class="badge bg-secondary">${vehiculo.cantidadTransitos || 0}</span></td>
+    <td class="text-end">$ ${(vehiculo.totalGastado || 0).toFixed(2)}</td>
+  `;
+  return fila;
+}
+
 /**
  * Muestra los tránsitos realizados por el propietario.
  * PASO 1 del CU: Tabla de tránsitos realizados ordenados por fecha/hora descendente
  * Información: Puesto, matrícula, categoría, monto tarifa, bonificación, 
  *              monto bonificación, monto pagado, fecha y hora
  */
-function mostrar_transitosRealizados(transitos) {
-  console.log("Tránsitos realizados:", transitos);
+function mostrar_transitosRealizados(pagina) {
+  console.log("Tránsitos realizados:", pagina);
   
   const transitsTable = document.getElementById("transitsTable");
   if (!transitsTable) return;
   
+  reiniciarHistorial(historialTransitos, pagina.cursorSiguiente);
+  const transitos = pagina.transitos;
+
   // Limpiar tabla
   transitsTable.innerHTML = "";
   
   if (!transitos || transitos.length === 0) {
     transitsTable.innerHTML = `
       <tr>
-        <td colspan="9" class="text-center text-muted">No hay tránsitos registrados</td>
+        <td colspan="9" class="text-center text-muted fila-vacia">No hay tránsitos registrados</td>
       </tr>
     `;
     return;
@@ -158,20 +236,55 @@ function mostrar_transitosRealizados(transitos) {
   
   // Agregar cada tránsito
   transitos.forEach(transito => {
-    const fila = document.createElement("tr");
-    fila.innerHTML = `
-      <td>${transito.puesto || ""}</td>
-      <td><strong>${transito.matricula || ""}</strong></td>
-      <td>${transito.categoria || ""}</td>
-      <td class="text-end" style="padding-right: 15px;">$ ${(transito.montoTarifa || 0).toFixed(2)}</td>
-      <td style="padding-left: 15px;">${transito.bonificacion || "Sin bonificación"}</td>
-      <td class="text-end text-success">-$ ${(transito.montoBonificacion || 0).toFixed(2)}</td>
-      <td class="text-end fw-bold">$ ${(transito.montoPagado || 0).toFixed(2)}</td>
-      <td>${transito.fecha || ""}</td>
-      <td>${transito.hora || ""}</td>
-    `;
-    transitsTable.appendChild(fila);
+    transitsTable.appendChild(crearFilaTransito(transito));
   });
+  cargarSiNoHayScroll(historialTransitos);
+}
+
+/**
+ * Agrega al final de la tabla una página de tránsitos más antiguos.
+ */
+function mostrar_transitosAnteriores(pagina) {
+  const transitsTable = document.getElementById("transitsTable");
+  if (!recibirPagina(historialTransitos, pagina) || !transitsTable) return;
+  pagina.transitos.forEach(transito => {
+    transitsTable.appendChild(crearFilaTransito(transito));
+  });
+  cargarSiNoHayScroll(historialTransitos);
+}
+
+/**
+ * Agrega un tránsito nuevo a la tabla respetando el orden por fecha/hora
+ * descendente (un tránsito informado tarde puede ser anterior a otros ya mostrados).
+ */
+function mostrar_transitoAgregado(transito) {
+  if (resincronizando) return;
+  const transitsTable = document.getElementById("transitsTable");
+  if (!transitsTable) return;
+  // Si es más antiguo que todo lo mostrado y quedan páginas, llegará con ellas
+  const ultima = transitsTable.lastElementChild;
+  if (historialTransitos.cursor && ultima && Number(ultima.dataset.marcaTiempo) > (transito.marcaTiempo || 0)) {
+    return;
+  }
+  quitarFilaVacia(transitsTable);
+  insertarPorMarcaTiempo(transitsTable, crearFilaTransito(transito));
+}
+
+function crearFilaTransito(transito) {
+  const fila = document.createElement("tr");
+  fila.dataset.marcaTiempo = transito.marcaTiempo || 0;
+  fila.innerHTML = `
+    <td>${transito.puesto || ""}</td>
+    <td><strong>${transito.matricula || ""}</strong></td>
+    <td>${transito.categoria || ""}</td>
+    <td class="text-end" style="padding-right: 15px;">$ ${(transito.montoTarifa || 0).toFixed(2)}</td>
+    <td style="padding-left: 15px;">${transito.bonificacion || "Sin bonificación"}</td>
+    <td class="text-end text-success">-$ ${(transito.montoBonificacion || 0).toFixed(2)}</td>
+    <td class="text-end fw-bold">$ ${(transito.montoPagado || 0).toFixed(2)}</td>
+    <td>${transito.fecha || ""}</td>
+    <td>${transito.hora || ""}</td>
+  `;
+  return fila;
 }
 
 /**
@@ -179,18 +292,21 @@ function mostrar_transitosRealizados(transitos) {
  * PASO 1 del CU: Tabla de notificaciones del sistema ordenados por fecha/hora descendente
  * Información: Fecha y hora, mensaje
  */
-function mostrar_notificaciones(notificaciones) {
-  console.log("Notificaciones:", notificaciones);
+function mostrar_notificaciones(pagina) {
+  console.log("Notificaciones:", pagina);
   
   const notificationsList = document.getElementById("notificationsList");
   if (!notificationsList) return;
   
+  reiniciarHistorial(historialNotificaciones, pagina.cursorSiguiente);
+  const notificaciones = pagina.notificaciones;
+  
   // Limpiar lista
   notificationsList.innerHTML = "";
   
   if (!notificaciones || notificaciones.length === 0) {
     notificationsList.innerHTML = `
-      <div class="alert alert-secondary" role="alert">
+      <div class="alert alert-secondary fila-vacia" role="alert">
         <i class="bi bi-info-circle me-2"></i>
         No hay notificaciones
       </div>
@@ -200,15 +316,141 @@ function mostrar_notificaciones(notificaciones) {
   
   // Agregar cada notificación
   notificaciones.forEach(notificacion => {
-    const alerta = document.createElement("div");
-    alerta.className = "alert alert-info alert-dismissible fade show mb-2";
-    alerta.setAttribute("role", "alert");
-    alerta.innerHTML = `
-      <i class="bi bi-info-circle me-2"></i>
-      <strong>${notificacion.fechaHora || ""}</strong> ${notificacion.mensaje || ""}
-    `;
-    notificationsList.appendChild(alerta);
+    notificationsList.appendChild(crearAlertaNotificacion(notificacion));
+  });
+  cargarSiNoHayScroll(historialNotificaciones);
+}
+
+/**
+ * Agrega al final de la lista una página de notificaciones más antiguas.
+ */
+function mostrar_notificacionesAnteriores(pagina) {
+  const notificationsList = document.getElementById("notificationsList");
+  if (!recibirPagina(historialNotificaciones, pagina) || !notificationsList) return;
+  pagina.notificaciones.forEach(notificacion => {
+    notificationsList.appendChild(crearAlertaNotificacion(notificacion));
   });
+  cargarSiNoHayScroll(historialNotificaciones);
+}
+
+/**
+ * Agrega una notificación nueva a la lista respetando el orden por fecha/hora descendente.
+ */
+function mostrar_notificacionAgregada(notificacion) {
+  if (resincronizando) return;
+  const notificationsList = document.getElementById("notificationsList");
+  if (!notificationsList) return;
+  quitarFilaVacia(notificationsList);
+  insertarPorMarcaTiempo(notificationsList, crearAlertaNotificacion(notificacion));
+}
+
+function crearAlertaNotificacion(notificacion) {
+  const alerta = document.createElement("div");
+  alerta.className = "alert alert-info alert-dismissible fade show mb-2";
+  alerta.setAttribute("role", "alert");
+  alerta.dataset.marcaTiempo = notificacion.marcaTiempo || 0;
+  alerta.innerHTML = `
+    <i class="bi bi-info-circle me-2"></i>
+    <strong>${notificacion.fechaHora || ""}</strong> ${notificacion.mensaje || ""}
+  `;
+  return alerta;
+}
+
+// ==========================================================
+// HISTORIALES PAGINADOS
+// ==========================================================
+
+function crearHistorial(url, idContenedor, idCargando) {
+  return {
+    url: url,
+    idContenedor: idContenedor,
+    idCargando: idCargando,
+    cursor: null,            // Cursor de la página siguiente (null si no hay más)
+    cargando: false,
+    descartarPendiente: false
+  };
+}
+
+/**
+ * Se mostró la primera página de nuevo (tablero completo o borrado). Si había una
+ * página pedida, corresponde al contenido anterior y se descarta al llegar.
+ */
+function reiniciarHistorial(historial, cursor) {
+  if (historial.cargando) {
+    historial.descartarPendiente = true;
+  }
+  historial.cursor = cursor;
+}
+
+/**
+ * Registra la llegada de una página pedida.
+ * @returns true si hay que mostrarla
+ */
+function recibirPagina(historial, pagina) {
+  historial.cargando = false;
+  document.getElementById(historial.idCargando)?.classList.add("d-none");
+  if (historial.descartarPendiente) {
+    historial.descartarPendiente = false;
+    cargarSiNoHayScroll(historial);
+    return false;
+  }
+  historial.cursor = pagina.cursorSiguiente;
+  return true;
+}
+
+/**
+ * Pide la página siguiente del historial, si hay y no se está pidiendo ya.
+ */
+function cargarPaginaAnterior(historial) {
+  if (historial.cargando || !historial.cursor) return;
+  historial.cargando = true;
+  document.getElementById(historial.idCargando)?.classList.remove("d-none");
+  submit(historial.url, "cursor=" + encodeURIComponent(historial.cursor), "GET");
+}
+
+/**
+ * Si el contenido no alcanza a llenar el contenedor no hay scroll que dispare la
+ * carga, así que se pide la página siguiente directamente.
+ */
+function cargarSiNoHayScroll(historial) {
+  const contenedor = document.getElementById(historial.idContenedor);
+  if (contenedor && contenedor.scrollHeight <= contenedor.clientHeight) {
+    cargarPaginaAnterior(historial);
+  }
+}
+
+/**
+ * Al llegar al final del contenedor se carga la página siguiente.
+ */
+function cargarAlLlegarAlFinal(historial) {
+  document.getElementById(historial.idContenedor)?.addEventListener("scroll", function() {
+    if (this.scrollTop + this.clientHeight >= this.scrollHeight - 40) {
+      cargarPaginaAnterior(historial);
+    }
+  });
+}
+
+// ==========================================================
+// UTILIDADES PARA APLICAR CAMBIOS
+// ==========================================================
+
+/**
+ * Quita el mensaje "No hay ..." de una tabla o lista antes de agregarle elementos.
+ */
+function quitarFilaVacia(contenedor) {
+  const vacia = contenedor.querySelector(".fila-vacia");
+  if (vacia) {
+    (vacia.closest("tr") || vacia).remove();
+  }
+}
+
+/**
+ * Inserta un elemento antes del primero que sea más antiguo (orden descendente).
+ */
+function insertarPorMarcaTiempo(contenedor, elemento) {
+  const marca = Number(elemento.dataset.marcaTiempo);
+  const siguiente = Array.from(contenedor.children).find(hijo => Number(hijo.dataset.marcaTiempo) < marca);
+  contenedor.insertBefore(elemento, siguiente || null);
 }
 
 // ==========================================================
@@ -260,6 +502,10 @@ function borrarNotificaciones() {
 // EVENT LISTENERS
 // ==========================================================
 
+// Al llegar al final de los historiales se cargan las páginas anteriores
+cargarAlLlegarAlFinal(historialTransitos);
+cargarAlLlegarAlFinal(historialNotificaciones);
+
 // Botón para borrar notificaciones
 document.getElementById("clearNotifications")?.addEventListener("click", function() {
   submit("/usuarios/propietarios/tablero/borrarNotificaciones", "");
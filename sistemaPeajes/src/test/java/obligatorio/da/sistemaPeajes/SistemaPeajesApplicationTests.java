@@ -3,7 +3,8 @@ package obligatorio.da.sistemaPeajes;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Sin bitácora ni archivo de notificaciones: la prueba no deja archivos en datos/
+@SpringBootTest(properties = { "peajes.bitacora.habilitada=false", "peajes.notificaciones.archivo=" })
 class SistemaPeajesApplicationTests {
 
 	@Test
@@ -0,0 +1,304 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AlmacenTransitosTest {
+
+	// Debe coincidir con el tamaño de bloque del almacén
+	private static final int TAMANIO_BLOQUE = 16384;
+
+	private AlmacenTransitos almacen;
+	private Puesto[] puestos;
+	private Vehiculo vehiculo;
+	private Propietario propietario;
+	private AsignacionBonificacion bonificacion;
+
+	@BeforeEach
+	void crear() {
+		almacen = new AlmacenTransitos();
+		puestos = new Puesto[] { new Puesto("Norte", "Ruta 1"), new Puesto("Sur", "Ruta 2"),
+				new Puesto("Este", "Ruta 3") };
+		vehiculo = new Vehiculo("ABC1234", "Modelo", "Color", new Categoria("Auto"));
+		propietario = new Propietario("11111111", "clave", "Propietario", 0, 0);
+		bonificacion = new AsignacionBonificacion(new Frecuente(), puestos[0], new Date(0));
+	}
+
+	@Test
+	void leeTransitosAmbosLadosDelLimiteDeBloque() {
+		int total = 2 * TAMANIO_BLOQUE + 10;
+		for (int i = 0; i < total; i++) {
+			assertEquals(i, almacen.agregar(transito(i)));
+		}
+
+		assertEquals(total, almacen.cantidad());
+		for (int posicion : new int[] { 0, TAMANIO_BLOQUE - 1, TAMANIO_BLOQUE, TAMANIO_BLOQUE + 1,
+				2 * TAMANIO_BLOQUE - 1, 2 * TAMANIO_BLOQUE, total - 1 }) {
+			comprobarFila(posicion);
+		}
+	}
+
+	@Test
+	void rechazaPosicionesNoRegistradas() {
+		almacen.agregar(transito(0));
+
+		assertThrows(IndexOutOfBoundsException.class, () -> almacen.obtener(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> almacen.marcaTiempo(-1));
+	}
+
+	@Test
+	void unAltaFallidaNoBloqueaLasSiguientes() {
+		almacen.agregar(transito(0));
+		Transito invalido = new Transito(puestos[1], vehiculo, propietario, null, 1, new Date(1)) {
+			@Override
+			public long getMontoPagado() {
+				throw new IllegalStateException("Tránsito inválido");
+			}
+		};
+
+		assertThrows(IllegalStateException.class, () -> almacen.agregar(invalido));
+
+		// La siguiente alta ocupa la posición que la fallida no llegó a reservar
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertEquals(1, almacen.agregar(transito(1))));
+		assertEquals(2, almacen.cantidad());
+		comprobarFila(1);
+	}
+
+	@Test
+	void altasConcurrentesPublicanTodasLasFilas() throws Exception {
+		int hilos = 8;
+		int porHilo = 5000;
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<int[]>> resultados = new ArrayList<>();
+		try {
+			for (int h = 0; h < hilos; h++) {
+				int primero = h * porHilo;
+				resultados.add(ejecutor.submit(() -> {
+					largada.await();
+					int[] posiciones = new int[porHilo];
+					for (int i = 0; i < porHilo; i++) {
+						int posicion = almacen.agregar(transito(primero + i));
+						// Al retornar, la fila ya es visible para las consultas
+						assertTrue(posicion < almacen.cantidad());
+						posiciones[i] = posicion;
+					}
+					return posiciones;
+				}));
+			}
+			largada.countDown();
+
+			int total = hilos * porHilo;
+			boolean[] ocupadas = new boolean[total];
+			for (int h = 0; h < hilos; h++) {
+				int[] posiciones = resultados.get(h).get();
+				for (int i = 0; i < porHilo; i++) {
+					int posicion = posiciones[i];
+					assertFalse(ocupadas[posicion], "Posición asignada dos veces: " + posicion);
+					ocupadas[posicion] = true;
+					// Cada fila conserva lo que escribió su alta
+					assertEquals(h * porHilo + i, almacen.montoPagado(posicion));
+				}
+			}
+			assertEquals(total, almacen.cantidad());
+		} finally {
+			ejecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	void recaudacionPorPuestoCoincideConUnRecorridoSimple() {
+		// Fechas casi crecientes con algunos tránsitos atrasados, para que los
+		// bloques sellados tengan rangos que se superponen
+		int total = 3 * TAMANIO_BLOQUE + 500;
+		for (int i = 0; i < total; i++) {
+			almacen.agregar(transito(i, marcaDesordenada(i)));
+		}
+		long minimo = marcaDesordenada(0) - 100_000;
+		long maximo = marcaDesordenada(total) + 100_000;
+
+		long[][] rangos = {
+				{ minimo, maximo },                               // Todo
+				{ marcaDesordenada(100), marcaDesordenada(200) }, // Parte del primer bloque
+				{ marcaDesordenada(TAMANIO_BLOQUE - 5), marcaDesordenada(2 * TAMANIO_BLOQUE + 5) },
+				{ marcaDesordenada(3 * TAMANIO_BLOQUE), maximo }, // Bloque sin sellar
+				{ marcaDesordenada(500), marcaDesordenada(500) }, // Rango vacío
+				{ maximo, maximo + 1 },                           // Después de todo
+		};
+		for (long[] rango : rangos) {
+			comprobarRecaudacion(rango[0], rango[1], total);
+		}
+	}
+
+	@Test
+	void recaudacionIncluyeElInicioYExcluyeElFin() {
+		almacen.agregar(transito(0, 1000));
+		almacen.agregar(transito(1, 2000));
+		almacen.agregar(transito(2, 3000));
+
+		Map<Puesto, AlmacenTransitos.Recaudacion> recaudacion = almacen.recaudacionPorPuesto(1000, 3000);
+
+		assertEquals(List.of(puestos[0], puestos[1]), new ArrayList<>(recaudacion.keySet()));
+		assertEquals(1, recaudacion.get(puestos[0]).getCantidadTransitos());
+		assertEquals(0, recaudacion.get(puestos[0]).getMonto());
+		assertEquals(1, recaudacion.get(puestos[1]).getCantidadTransitos());
+		assertEquals(1, recaudacion.get(puestos[1]).getMonto());
+	}
+
+	@Test
+	void recaudacionSinTransitosEnElRango() {
+		for (int i = 0; i < TAMANIO_BLOQUE + 1; i++) {
+			almacen.agregar(transito(i));
+		}
+
+		assertTrue(almacen.recaudacionPorPuesto(0, 1_000_000L).isEmpty());
+		assertTrue(new AlmacenTransitos().recaudacionPorPuesto(0, Long.MAX_VALUE).isEmpty());
+	}
+
+	@Test
+	void archivaSoloBloquesSelladosAnterioresAlLimite() {
+		int total = 3 * TAMANIO_BLOQUE + 10;
+		for (int i = 0; i < total; i++) {
+			almacen.agregar(transito(i));
+		}
+
+		// El límite cae dentro del segundo bloque: solo se archiva el primero
+		assertEquals(1, almacen.archivarAnterioresA(1_000_000L + TAMANIO_BLOQUE + 5));
+		assertEquals(TAMANIO_BLOQUE, almacen.cantidadArchivados());
+		assertEquals(0, almacen.archivarAnterioresA(1_000_000L + TAMANIO_BLOQUE + 5));
+
+		// El bloque sin sellar no se archiva aunque todos sus tránsitos sean anteriores
+		assertEquals(2, almacen.archivarAnterioresA(Long.MAX_VALUE));
+		assertEquals(3 * TAMANIO_BLOQUE, almacen.cantidadArchivados());
+	}
+
+	@Test
+	void archivaEnOrdenHastaElPrimerBloqueConTransitosPosteriores() {
+		for (int i = 0; i < 2 * TAMANIO_BLOQUE + 1; i++) {
+			// Un tránsito reciente en el primer bloque impide archivar el segundo
+			almacen.agregar(i == 10 ? transito(i, Long.MAX_VALUE - 1) : transito(i));
+		}
+
+		assertEquals(0, almacen.archivarAnterioresA(1_000_000L + 2 * TAMANIO_BLOQUE));
+		assertEquals(0, almacen.cantidadArchivados());
+	}
+
+	@Test
+	void losTransitosArchivadosSeLeenIgual() {
+		int total = 2 * TAMANIO_BLOQUE + 10;
+		for (int i = 0; i < total; i++) {
+			almacen.agregar(transito(i));
+		}
+		Map<Puesto, AlmacenTransitos.Recaudacion> antes = almacen.recaudacionPorPuesto(0, Long.MAX_VALUE);
+		Map<Puesto, AlmacenTransitos.Recaudacion> parcialAntes = almacen.recaudacionPorPuesto(1_000_100L,
+				1_000_000L + TAMANIO_BLOQUE + 100);
+
+		assertEquals(2, almacen.archivarAnterioresA(Long.MAX_VALUE));
+
+		for (int posicion : new int[] { 0, 1, 2, TAMANIO_BLOQUE - 1, TAMANIO_BLOQUE, 2 * TAMANIO_BLOQUE - 1,
+				2 * TAMANIO_BLOQUE, total - 1 }) {
+			comprobarFila(posicion);
+		}
+		comprobarIguales(antes, almacen.recaudacionPorPuesto(0, Long.MAX_VALUE));
+		comprobarIguales(parcialAntes,
+				almacen.recaudacionPorPuesto(1_000_100L, 1_000_000L + TAMANIO_BLOQUE + 100));
+
+		// Se sigue agregando después de archivar
+		almacen.agregar(transito(total));
+		comprobarFila(total);
+	}
+
+	// ==================== Auxiliares ====================
+
+	/**
+	 * Tránsito de prueba: todos sus campos se derivan del número, para poder
+	 * comprobarlos al leerlo.
+	 */
+	private Transito transito(int numero) {
+		return new Transito(puestos[numero % puestos.length], vehiculo, propietario,
+				numero % 2 == 0 ? bonificacion : null, numero, new Date(1_000_000L + numero));
+	}
+
+	private Transito transito(int numero, long marcaTiempo) {
+		return new Transito(puestos[numero % puestos.length], vehiculo, propietario, null, numero,
+				new Date(marcaTiempo));
+	}
+
+	private static long marcaDesordenada(int numero) {
+		long marca = 1_000_000L + numero * 10L;
+		return numero % 97 == 0 ? marca - 200_000 : marca;
+	}
+
+	/**
+	 * Compara la recaudación del almacén con la suma de los tránsitos uno por uno.
+	 */
+	private void comprobarRecaudacion(long desde, long hasta, int total) {
+		Map<Puesto, long[]> esperada = new LinkedHashMap<>();
+		for (int posicion = 0; posicion < total; posicion++) {
+			long marca = almacen.marcaTiempo(posicion);
+			if (marca >= desde && marca < hasta) {
+				long[] acumulado = esperada.computeIfAbsent(almacen.puesto(posicion), p -> new long[2]);
+				acumulado[0]++;
+				acumulado[1] += almacen.montoPagado(posicion);
+			}
+		}
+
+		Map<Puesto, AlmacenTransitos.Recaudacion> recaudacion = almacen.recaudacionPorPuesto(desde, hasta);
+
+		assertEquals(esperada.keySet(), recaudacion.keySet(), "Rango " + desde + " - " + hasta);
+		for (Map.Entry<Puesto, long[]> entrada : esperada.entrySet()) {
+			AlmacenTransitos.Recaudacion calculada = recaudacion.get(entrada.getKey());
+			assertEquals(entrada.getValue()[0], calculada.getCantidadTransitos());
+			assertEquals(entrada.getValue()[1], calculada.getMonto());
+		}
+	}
+
+	private static void comprobarIguales(Map<Puesto, AlmacenTransitos.Recaudacion> esperada,
+			Map<Puesto, AlmacenTransitos.Recaudacion> obtenida) {
+		assertEquals(new ArrayList<>(esperada.keySet()), new ArrayList<>(obtenida.keySet()));
+		for (Map.Entry<Puesto, AlmacenTransitos.Recaudacion> entrada : esperada.entrySet()) {
+			assertEquals(entrada.getValue().getCantidadTransitos(),
+					obtenida.get(entrada.getKey()).getCantidadTransitos());
+			assertEquals(entrada.getValue().getMonto(), obtenida.get(entrada.getKey()).getMonto());
+		}
+	}
+
+	private void comprobarFila(int posicion) {
+		Transito transito = almacen.obtener(posicion);
+		assertSame(puestos[posicion % puestos.length], transito.getPuesto());
+		assertSame(vehiculo, transito.getVehiculo());
+		assertSame(propietario, transito.getPropietario());
+		assertEquals(posicion, transito.getMontoPagado());
+		assertEquals(1_000_000L + posicion, transito.getMarcaTiempo());
+		if (posicion % 2 == 0) {
+			assertSame(bonificacion, transito.getBonificacionAplicada());
+		} else {
+			assertNull(transito.getBonificacionAplicada());
+		}
+
+		assertSame(transito.getPuesto(), almacen.puesto(posicion));
+		assertSame(vehiculo, almacen.vehiculo(posicion));
+		assertEquals(posicion % 2 == 0, almacen.tieneBonificacion(posicion));
+		assertEquals(posicion, almacen.montoPagado(posicion));
+		assertEquals(1_000_000L + posicion, almacen.marcaTiempo(posicion));
+	}
+}
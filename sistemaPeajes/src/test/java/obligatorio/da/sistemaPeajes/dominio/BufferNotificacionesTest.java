@@ -0,0 +1,156 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import excepciones.PeajeException;
+
+class BufferNotificacionesTest {
+
+	@Test
+	void descartaLaMasAntiguaAlLlenarse() {
+		BufferNotificaciones buffer = new BufferNotificaciones(3);
+		Notificacion primera = notificacion(1);
+		assertNull(buffer.agregar(primera));
+		assertNull(buffer.agregar(notificacion(2)));
+		assertNull(buffer.agregar(notificacion(3)));
+
+		assertSame(primera, buffer.agregar(notificacion(4)));
+		assertEquals(List.of("n2", "n3", "n4"), textos(buffer.enOrdenDeRegistro()));
+		assertEquals(4, buffer.getTotal());
+	}
+
+	@Test
+	void registradasDesdeDespuesDeDarLaVuelta() {
+		BufferNotificaciones buffer = conNotificaciones(4, 10);
+
+		// Se conservan las posiciones 6 a 9 (n7 a n10)
+		assertEquals(List.of("n9", "n10"), textos(buffer.registradasDesde(8)));
+		// Las ya descartadas no se devuelven
+		assertEquals(List.of("n7", "n8", "n9", "n10"), textos(buffer.registradasDesde(2)));
+		assertEquals(List.of(), textos(buffer.registradasDesde(10)));
+	}
+
+	@Test
+	void paginaDespuesDeDarLaVuelta() throws PeajeException {
+		BufferNotificaciones buffer = conNotificaciones(5, 13);
+
+		// Se conservan n9 a n13: las páginas terminan en la más antigua conservada
+		assertEquals(List.of("n13", "n12", "n11", "n10", "n9"), recorrer(buffer, 2));
+	}
+
+	@Test
+	void elCursorSigueValidoAunqueSeAgreguenNotificaciones() throws PeajeException {
+		BufferNotificaciones buffer = conNotificaciones(10, 6);
+		BufferNotificaciones.Pagina primera = buffer.pagina(null, 2);
+		assertEquals(List.of("n6", "n5"), textos(primera.getNotificaciones()));
+
+		buffer.agregar(notificacion(7));
+		buffer.agregar(notificacion(8));
+		BufferNotificaciones.Pagina segunda = buffer.pagina(primera.getCursorSiguiente(), 2);
+
+		assertEquals(List.of("n4", "n3"), textos(segunda.getNotificaciones()));
+		assertEquals(8, segunda.getTotalRegistradas());
+	}
+
+	@Test
+	void elCursorDeNotificacionesYaDescartadasTerminaElRecorrido() throws PeajeException {
+		BufferNotificaciones buffer = conNotificaciones(3, 3);
+		BufferNotificaciones.Pagina primera = buffer.pagina(null, 1);
+
+		// Se descartan todas las notificaciones anteriores al cursor
+		for (int i = 4; i <= 8; i++) {
+			buffer.agregar(notificacion(i));
+		}
+		BufferNotificaciones.Pagina segunda = buffer.pagina(primera.getCursorSiguiente(), 10);
+
+		assertEquals(List.of(), segunda.getNotificaciones());
+		assertNull(segunda.getCursorSiguiente());
+	}
+
+	@Test
+	void vaciarConservaLasPosiciones() throws PeajeException {
+		BufferNotificaciones buffer = conNotificaciones(3, 5);
+		buffer.vaciar();
+
+		assertTrue(buffer.isEmpty());
+		assertEquals(5, buffer.getTotal());
+		assertEquals(List.of(), textos(buffer.registradasDesde(0)));
+		assertEquals(List.of(), textos(buffer.pagina(null, 10).getNotificaciones()));
+
+		buffer.agregar(notificacion(6));
+		buffer.agregar(notificacion(7));
+
+		// Las nuevas notificaciones siguen la numeración anterior al vaciado
+		assertEquals(List.of("n7"), textos(buffer.registradasDesde(6)));
+		assertEquals(List.of("n6", "n7"), textos(buffer.registradasDesde(3)));
+		assertEquals(List.of("n7", "n6"), recorrer(buffer, 1));
+	}
+
+	@Test
+	void vaciarYVolverALlenar() {
+		BufferNotificaciones buffer = conNotificaciones(3, 4);
+		buffer.vaciar();
+		for (int i = 5; i <= 7; i++) {
+			assertNull(buffer.agregar(notificacion(i)));
+		}
+
+		assertEquals("n5", buffer.agregar(notificacion(8)).getArgumento1());
+		assertEquals(List.of("n6", "n7", "n8"), textos(buffer.enOrdenDeRegistro()));
+	}
+
+	@Test
+	void rechazaCursoresInvalidos() {
+		BufferNotificaciones buffer = conNotificaciones(3, 2);
+
+		PeajeException error = assertThrows(PeajeException.class, () -> buffer.pagina("x", 10));
+		assertEquals("Cursor de notificaciones inválido", error.getMessage());
+	}
+
+	@Test
+	void rechazaCapacidadesNoPositivas() {
+		assertThrows(IllegalArgumentException.class, () -> new BufferNotificaciones(0));
+	}
+
+	// ==================== Auxiliares ====================
+
+	private static Notificacion notificacion(int numero) {
+		return new Notificacion(new Date(numero * 1000L), "n" + numero);
+	}
+
+	private static BufferNotificaciones conNotificaciones(int capacidad, int cantidad) {
+		BufferNotificaciones buffer = new BufferNotificaciones(capacidad);
+		for (int i = 1; i <= cantidad; i++) {
+			buffer.agregar(notificacion(i));
+		}
+		return buffer;
+	}
+
+	private static List<String> recorrer(BufferNotificaciones buffer, int limite) throws PeajeException {
+		List<String> recorridas = new ArrayList<>();
+		String cursor = null;
+		do {
+			BufferNotificaciones.Pagina pagina = buffer.pagina(cursor, limite);
+			recorridas.addAll(textos(pagina.getNotificaciones()));
+			cursor = pagina.getCursorSiguiente();
+		} while (cursor != null);
+		return recorridas;
+	}
+
+	private static List<String> textos(List<Notificacion> notificaciones) {
+		List<String> textos = new ArrayList<>();
+		for (Notificacion notificacion : notificaciones) {
+			textos.add(notificacion.getArgumento1());
+		}
+		return textos;
+	}
+}
@@ -0,0 +1,67 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class DineroTest {
+
+	@Test
+	void convierteUnidadesACentesimosRedondeando() {
+		assertEquals(12050, Dinero.centesimos(120.5));
+		assertEquals(30, Dinero.centesimos(0.1 + 0.2));
+		assertEquals(101, Dinero.centesimos(1.005 + 1e-9));
+		assertEquals(-250, Dinero.centesimos(-2.5));
+		assertEquals(0, Dinero.centesimos(0));
+	}
+
+	@Test
+	void convierteCentesimosAUnidades() {
+		assertEquals(120.5, Dinero.aDouble(12050));
+		assertEquals(-0.05, Dinero.aDouble(-5));
+		assertEquals(0.0, Dinero.aDouble(0));
+	}
+
+	@Test
+	void calculaPorcentajesRedondeandoAlCentesimo() {
+		assertEquals(9000, Dinero.porcentaje(18000, 50));
+		assertEquals(400, Dinero.porcentaje(1999, 20));  // 399.8
+		assertEquals(399, Dinero.porcentaje(1996, 20));  // 399.2
+		assertEquals(0, Dinero.porcentaje(18000, 0));
+		assertEquals(18000, Dinero.porcentaje(18000, 100));
+		assertEquals(0, Dinero.porcentaje(0, 50));
+	}
+
+	@Test
+	void redondeaLosMediosCentesimosHaciaArriba() {
+		assertEquals(3, Dinero.porcentaje(5, 50));   // 2.5
+		assertEquals(1, Dinero.porcentaje(1, 50));   // 0.5
+		assertEquals(-2, Dinero.porcentaje(-5, 50)); // -2.5
+		assertEquals(0, Dinero.porcentaje(-1, 50));  // -0.5
+	}
+
+	@Test
+	void calculaPorcentajesDeMontosNegativos() {
+		assertEquals(-9000, Dinero.porcentaje(-18000, 50));
+		assertEquals(-1, Dinero.porcentaje(-9, 10));      // -0.9
+		assertEquals(0, Dinero.porcentaje(-1, 20));       // -0.2
+		assertEquals(-400, Dinero.porcentaje(-1999, 20)); // -399.8
+	}
+
+	@Test
+	void formateaConDosDecimales() {
+		assertEquals("0.00", Dinero.formatear(0));
+		assertEquals("0.05", Dinero.formatear(5));
+		assertEquals("0.50", Dinero.formatear(50));
+		assertEquals("1.00", Dinero.formatear(100));
+		assertEquals("1234.50", Dinero.formatear(123450));
+		assertEquals("1234.56", Dinero.formatear(123456));
+	}
+
+	@Test
+	void formateaMontosNegativos() {
+		assertEquals("-0.05", Dinero.formatear(-5));
+		assertEquals("-0.50", Dinero.formatear(-50));
+		assertEquals("-1234.56", Dinero.formatear(-123456));
+	}
+}
@@ -0,0 +1,148 @@
+package obligatorio.da.sistemaPeajes.dominio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import excepciones.PeajeException;
+
+class HistorialTransitosTest {
+
+	private AlmacenTransitos almacen;
+	private HistorialTransitos historial;
+	private Puesto puesto;
+	private Vehiculo vehiculo;
+	private Propietario propietario;
+
+	@BeforeEach
+	void crear() {
+		almacen = new AlmacenTransitos();
+		historial = new HistorialTransitos(almacen);
+		puesto = new Puesto("Puesto", "Dirección");
+		vehiculo = new Vehiculo("ABC1234", "Modelo", "Color", new Categoria("Auto"));
+		propietario = new Propietario("11111111", "clave", "Propietario", 0, 0);
+	}
+
+	@Test
+	void ordenaPorFechaAunqueSeRegistrenDesordenados() {
+		// El monto identifica a cada tránsito en las comprobaciones
+		registrar(300, 1);
+		registrar(100, 2);
+		registrar(200, 3);
+		registrar(400, 4);
+
+		assertEquals(List.of(4L, 1L, 3L, 2L), montos(historial.masRecientesPrimero()));
+		assertEquals(List.of(3L, 4L), montos(historial.registradosDesde(2)));
+	}
+
+	@Test
+	void recorrePaginasDeTransitosDesordenados() throws PeajeException {
+		long[] marcas = { 500, 100, 700, 300, 200, 600, 400 };
+		for (int i = 0; i < marcas.length; i++) {
+			registrar(marcas[i], marcas[i]);
+		}
+
+		List<Long> recorridos = recorrer(3);
+
+		assertEquals(List.of(700L, 600L, 500L, 400L, 300L, 200L, 100L), recorridos);
+	}
+
+	@Test
+	void desempataFechasIgualesPorOrdenDeRegistro() throws PeajeException {
+		for (int i = 1; i <= 5; i++) {
+			registrar(1000, i);
+		}
+		registrar(2000, 6);
+		registrar(500, 7);
+
+		// A igual fecha/hora, el registrado después se considera más reciente
+		assertEquals(List.of(6L, 5L, 4L, 3L, 2L, 1L, 7L), recorrer(2));
+	}
+
+	@Test
+	void elCursorSigueValidoSiSeRegistranTransitosNuevos() throws PeajeException {
+		for (long marca = 100; marca <= 500; marca += 100) {
+			registrar(marca, marca);
+		}
+		HistorialTransitos.Pagina primera = historial.pagina(null, 2);
+		assertEquals(List.of(500L, 400L), montos(primera.getTransitos()));
+
+		// Después de la primera página se registran tránsitos más nuevos, más viejos,
+		// intermedios y con la misma fecha/hora que el último tránsito mostrado
+		registrar(600, 600);
+		registrar(50, 50);
+		registrar(450, 450);
+		registrar(350, 350);
+		registrar(400, 401);
+
+		HistorialTransitos.Pagina segunda = historial.pagina(primera.getCursorSiguiente(), 10);
+
+		// Continúa después del último tránsito mostrado, sin repetir ni saltear
+		assertEquals(List.of(350L, 300L, 200L, 100L, 50L), montos(segunda.getTransitos()));
+		assertNull(segunda.getCursorSiguiente());
+		assertEquals(10, segunda.getTotalRegistrados());
+	}
+
+	@Test
+	void laPrimeraPaginaAceptaCursorVacio() throws PeajeException {
+		registrar(100, 1);
+		registrar(200, 2);
+
+		HistorialTransitos.Pagina pagina = historial.pagina("", 1);
+
+		assertEquals(List.of(2L), montos(pagina.getTransitos()));
+		assertNotNull(pagina.getCursorSiguiente());
+	}
+
+	@Test
+	void historialVacio() throws PeajeException {
+		HistorialTransitos.Pagina pagina = historial.pagina(null, 10);
+
+		assertEquals(List.of(), pagina.getTransitos());
+		assertNull(pagina.getCursorSiguiente());
+	}
+
+	@Test
+	void rechazaCursoresInvalidos() {
+		registrar(100, 1);
+
+		for (String cursor : new String[] { "abc", "100", "100.x", ".1", "x.1" }) {
+			PeajeException error = assertThrows(PeajeException.class, () -> historial.pagina(cursor, 10));
+			assertEquals("Cursor de tránsitos inválido", error.getMessage());
+		}
+	}
+
+	// ==================== Auxiliares ====================
+
+	private void registrar(long marcaTiempo, long monto) {
+		Transito transito = new Transito(puesto, vehiculo, propietario, null, monto, new Date(marcaTiempo));
+		historial.agregar(almacen.agregar(transito));
+	}
+
+	private List<Long> recorrer(int limite) throws PeajeException {
+		List<Long> recorridos = new ArrayList<>();
+		String cursor = null;
+		do {
+			HistorialTransitos.Pagina pagina = historial.pagina(cursor, limite);
+			recorridos.addAll(montos(pagina.getTransitos()));
+			cursor = pagina.getCursorSiguiente();
+		} while (cursor != null);
+		return recorridos;
+	}
+
+	private static List<Long> montos(List<Transito> transitos) {
+		List<Long> montos = new ArrayList<>();
+		for (Transito transito : transitos) {
+			montos.add(transito.getMontoPagado());
+		}
+		return montos;
+	}
+}
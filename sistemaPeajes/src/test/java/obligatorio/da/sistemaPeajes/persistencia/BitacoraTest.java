@@ -0,0 +1,287 @@
+package obligatorio.da.sistemaPeajes.persistencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BitacoraTest {
+
+	// Regiones chicas para que pocos registros crucen de región
+	private static final int TAMANIO_REGION = 128;
+	private static final byte TIPO = 7;
+	// [int largo][long secuencia][byte tipo][int valor][long valor * 10][int crc32]
+	private static final int LARGO_REGISTRO = 4 + 8 + 1 + 4 + 8 + 4;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void reproduceTodosLosRegistrosAlReabrir() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		escribir(archivo, 1, 10);
+
+		List<Long> leidos = new ArrayList<>();
+		try (Bitacora bitacora = abrir(archivo, null, leidos)) {
+			assertEquals(11, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(secuencias(1, 10), leidos);
+	}
+
+	@Test
+	void cruzaLimitesDeRegion() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		// Con 29 bytes por registro entran 4 registros por región: 10 registros
+		// ocupan tres regiones
+		escribir(archivo, 1, 10);
+		assertEquals(3L * TAMANIO_REGION, Files.size(archivo));
+
+		List<Long> leidos = new ArrayList<>();
+		try (Bitacora bitacora = abrir(archivo, null, leidos)) {
+			bitacora.escribir(TIPO, datos -> datos.putInt(11).putLong(110));
+		}
+		leidos.clear();
+		try (Bitacora bitacora = abrir(archivo, null, leidos)) {
+			assertEquals(12, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(secuencias(1, 11), leidos);
+	}
+
+	@Test
+	void descartaUnRegistroFinalCorrupto() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		escribir(archivo, 1, 3);
+
+		// Se altera un byte de los datos del tercer registro, el último escrito
+		long inicioTercero = 8 + 2L * LARGO_REGISTRO;
+		alterarByte(archivo, inicioTercero + 4 + 8 + 1);
+
+		List<Long> leidos = new ArrayList<>();
+		try (Bitacora bitacora = abrir(archivo, null, leidos)) {
+			assertEquals(3, bitacora.getSiguienteSecuencia());
+			bitacora.escribir(TIPO, datos -> datos.putInt(3).putLong(30));
+		}
+		assertEquals(secuencias(1, 2), leidos);
+
+		leidos.clear();
+		try (Bitacora bitacora = abrir(archivo, null, leidos)) {
+			assertEquals(4, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(secuencias(1, 3), leidos);
+	}
+
+	@Test
+	void descartaUnRegistroFinalTruncado() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		escribir(archivo, 1, 2);
+
+		// Se simula una escritura interrumpida: el largo quedó escrito pero no el resto
+		long inicioTercero = 8 + 2L * LARGO_REGISTRO;
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(4).putInt(0, LARGO_REGISTRO - 8), inicioTercero);
+		}
+
+		List<Long> leidos = new ArrayList<>();
+		try (Bitacora bitacora = abrir(archivo, null, leidos)) {
+			assertEquals(3, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(secuencias(1, 2), leidos);
+	}
+
+	@Test
+	void reproduceDesdeUnaPosicion() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		Bitacora.Posicion posicion;
+		try (Bitacora bitacora = abrir(archivo, null, new ArrayList<>())) {
+			for (int i = 1; i <= 5; i++) {
+				escribirRegistro(bitacora, i);
+			}
+			posicion = bitacora.getPosicion();
+			for (int i = 6; i <= 12; i++) {
+				escribirRegistro(bitacora, i);
+			}
+		}
+		assertEquals(6, posicion.getSecuencia());
+
+		List<Long> leidos = new ArrayList<>();
+		try (Bitacora bitacora = abrir(archivo, posicion, leidos)) {
+			assertEquals(13, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(secuencias(6, 12), leidos);
+	}
+
+	@Test
+	void noReutilizaSecuenciasCubiertasPorLaPosicion() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		List<Long> leidos = new ArrayList<>();
+		try (Bitacora bitacora = abrir(archivo, new Bitacora.Posicion(40, 0), leidos)) {
+			assertEquals(40, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(List.of(), leidos);
+	}
+
+	@Test
+	void creaLasBitacorasNuevasConLaVersionActual() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		escribir(archivo, 1, 2);
+
+		List<Integer> versiones = new ArrayList<>();
+		try (Bitacora bitacora = Bitacora.abrir(archivo, TAMANIO_REGION, 1, 60_000, null,
+				registro -> versiones.add(registro.getVersion()))) {
+			assertEquals(Bitacora.VERSION, bitacora.getVersion());
+		}
+		assertEquals(List.of(Bitacora.VERSION, Bitacora.VERSION), versiones);
+	}
+
+	@Test
+	void informaLaVersionDeUnaBitacoraAnterior() throws IOException {
+		Path archivo = directorio.resolve("bitacora.dat");
+		escribir(archivo, 1, 6);
+		escribirMagico(archivo, 0x50454A31); // "PEJ1"
+
+		List<Integer> versiones = new ArrayList<>();
+		try (Bitacora bitacora = Bitacora.abrir(archivo, TAMANIO_REGION, 1, 60_000, null,
+				registro -> versiones.add(registro.getVersion()))) {
+			assertEquals(1, bitacora.getVersion());
+		}
+		// También los registros de las regiones siguientes, que no tienen encabezado
+		assertEquals(List.of(1, 1, 1, 1, 1, 1), versiones);
+	}
+
+	@Test
+	void rechazaArchivosQueNoSonBitacoras() throws IOException {
+		for (int magico : new int[] { 0x50454A39, 0x12345678 }) {
+			Path archivo = directorio.resolve("bitacora-" + Integer.toHexString(magico) + ".dat");
+			escribir(archivo, 1, 1);
+			escribirMagico(archivo, magico);
+
+			assertThrows(IOException.class, () -> abrir(archivo, null, new ArrayList<>()));
+		}
+	}
+
+	@Test
+	void escriturasConcurrentesQuedanEnOrdenDeSecuencia() throws Exception {
+		Path archivo = directorio.resolve("bitacora.dat");
+		int hilos = 8;
+		int porHilo = 500;
+		byte tipoHilo = 9;
+
+		List<Future<List<Long>>> asignadas = new ArrayList<>();
+		try (Bitacora bitacora = Bitacora.abrir(archivo, TAMANIO_REGION, 64, 60_000, null, registro -> {
+		})) {
+			CyclicBarrier largada = new CyclicBarrier(hilos);
+			ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+			for (int i = 0; i < hilos; i++) {
+				int hilo = i;
+				asignadas.add(ejecutor.submit(() -> {
+					largada.await();
+					List<Long> secuencias = new ArrayList<>();
+					for (int n = 0; n < porHilo; n++) {
+						int numero = n;
+						secuencias.add(bitacora.escribir(tipoHilo, datos -> datos.putInt(hilo).putInt(numero)));
+					}
+					return secuencias;
+				}));
+			}
+			ejecutor.shutdown();
+			assertTrue(ejecutor.awaitTermination(60, TimeUnit.SECONDS));
+			assertEquals(hilos * porHilo + 1, bitacora.getSiguienteSecuencia());
+		}
+
+		// Cada registro se reproduce una vez, en orden de secuencia, y los de cada
+		// hilo en el orden en que los escribió
+		List<Long> leidas = new ArrayList<>();
+		int[] siguientePorHilo = new int[hilos];
+		try (Bitacora bitacora = Bitacora.abrir(archivo, TAMANIO_REGION, 1, 60_000, null, registro -> {
+			ByteBuffer datos = registro.getDatos();
+			int hilo = datos.getInt();
+			assertEquals(siguientePorHilo[hilo]++, datos.getInt());
+			leidas.add(registro.getSecuencia());
+		})) {
+			assertEquals(hilos * porHilo + 1, bitacora.getSiguienteSecuencia());
+		}
+		assertEquals(secuencias(1, hilos * porHilo), leidas);
+		for (int hilo = 0; hilo < hilos; hilo++) {
+			assertEquals(porHilo, siguientePorHilo[hilo]);
+			List<Long> propias = asignadas.get(hilo).get();
+			for (int n = 1; n < propias.size(); n++) {
+				assertTrue(propias.get(n - 1) < propias.get(n));
+			}
+		}
+	}
+
+	@Test
+	void noAdmiteEscriturasDespuesDeCerrar() throws IOException {
+		Bitacora bitacora = abrir(directorio.resolve("bitacora.dat"), null, new ArrayList<>());
+		escribirRegistro(bitacora, 1);
+		bitacora.close();
+
+		assertThrows(UncheckedIOException.class, () -> escribirRegistro(bitacora, 2));
+	}
+
+	// ==================== Auxiliares ====================
+
+	private static Bitacora abrir(Path archivo, Bitacora.Posicion desde, List<Long> leidos) throws IOException {
+		return Bitacora.abrir(archivo, TAMANIO_REGION, 1, 60_000, desde, registro -> {
+			assertEquals(TIPO, registro.getTipo());
+			ByteBuffer datos = registro.getDatos();
+			int valor = datos.getInt();
+			assertEquals(valor * 10L, datos.getLong());
+			assertEquals(registro.getSecuencia(), valor);
+			leidos.add(registro.getSecuencia());
+		});
+	}
+
+	private static void escribir(Path archivo, int desde, int hasta) throws IOException {
+		try (Bitacora bitacora = abrir(archivo, null, new ArrayList<>())) {
+			for (int i = desde; i <= hasta; i++) {
+				escribirRegistro(bitacora, i);
+			}
+		}
+	}
+
+	private static void escribirRegistro(Bitacora bitacora, int valor) {
+		long secuencia = bitacora.escribir(TIPO, datos -> datos.putInt(valor).putLong(valor * 10L));
+		assertEquals(valor, secuencia);
+	}
+
+	private static void escribirMagico(Path archivo, int magico) throws IOException {
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(4).putInt(0, magico), 0);
+		}
+	}
+
+	private static void alterarByte(Path archivo, long posicion) throws IOException {
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer unByte = ByteBuffer.allocate(1);
+			canal.read(unByte, posicion);
+			unByte.put(0, (byte) (unByte.get(0) ^ 0xFF)).rewind();
+			canal.write(unByte, posicion);
+		}
+	}
+
+	private static List<Long> secuencias(long desde, long hasta) {
+		List<Long> secuencias = new ArrayList<>();
+		for (long s = desde; s <= hasta; s++) {
+			secuencias.add(s);
+		}
+		return secuencias;
+	}
+}
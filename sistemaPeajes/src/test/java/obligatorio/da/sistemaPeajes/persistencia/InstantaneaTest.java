@@ -0,0 +1,125 @@
+package obligatorio.da.sistemaPeajes.persistencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InstantaneaTest {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void guardaYCargaElEstado() throws IOException {
+		Path archivo = directorio.resolve("instantanea.dat");
+		Instantanea.guardar(archivo, new Bitacora.Posicion(42, 1024), salida -> {
+			salida.writeUTF("estado");
+			salida.writeLong(12345);
+		});
+
+		int[] version = new int[1];
+		String[] texto = new String[1];
+		long[] numero = new long[1];
+		Bitacora.Posicion posicion = Instantanea.cargar(archivo, (entrada, v) -> {
+			version[0] = v;
+			texto[0] = entrada.readUTF();
+			numero[0] = entrada.readLong();
+		});
+
+		assertEquals(42, posicion.getSecuencia());
+		assertEquals(1024, posicion.getRegion());
+		assertEquals(4, version[0]);
+		assertEquals("estado", texto[0]);
+		assertEquals(12345, numero[0]);
+		assertFalse(Files.exists(archivo.resolveSibling("instantanea.dat.tmp")));
+	}
+
+	@Test
+	void reemplazaLaInstantaneaAnterior() throws IOException {
+		Path archivo = directorio.resolve("instantanea.dat");
+		Instantanea.guardar(archivo, new Bitacora.Posicion(1, 0), salida -> salida.writeInt(1));
+		Instantanea.guardar(archivo, new Bitacora.Posicion(2, 0), salida -> salida.writeInt(2));
+
+		int[] leido = new int[1];
+		Bitacora.Posicion posicion = Instantanea.cargar(archivo, (entrada, v) -> leido[0] = entrada.readInt());
+		assertEquals(2, posicion.getSecuencia());
+		assertEquals(2, leido[0]);
+	}
+
+	@Test
+	void informaLaVersionDeInstantaneasAnteriores() throws IOException {
+		for (int version = 1; version <= 2; version++) {
+			Path archivo = directorio.resolve("instantanea-v" + version + ".dat");
+			// Hasta la versión 2 los montos se guardaban como double
+			double monto = 120.5;
+			Files.write(archivo, escribirArchivo(version, 7, 0, monto, false));
+
+			int[] versionLeida = new int[1];
+			double[] montoLeido = new double[1];
+			Bitacora.Posicion posicion = Instantanea.cargar(archivo, (entrada, v) -> {
+				versionLeida[0] = v;
+				montoLeido[0] = entrada.readDouble();
+			});
+
+			assertEquals(7, posicion.getSecuencia());
+			assertEquals(version, versionLeida[0]);
+			assertEquals(monto, montoLeido[0]);
+		}
+	}
+
+	@Test
+	void rechazaUnaInstantaneaDaniada() throws IOException {
+		Path archivo = directorio.resolve("instantanea.dat");
+		Files.write(archivo, escribirArchivo(2, 7, 0, 120.5, true));
+
+		IOException error = assertThrows(IOException.class,
+				() -> Instantanea.cargar(archivo, (entrada, v) -> entrada.readDouble()));
+		assertEquals("La instantánea " + archivo + " está dañada", error.getMessage());
+	}
+
+	@Test
+	void rechazaVersionesDesconocidas() throws IOException {
+		Path archivo = directorio.resolve("instantanea.dat");
+		Files.write(archivo, escribirArchivo(9, 7, 0, 120.5, false));
+
+		assertThrows(IOException.class, () -> Instantanea.cargar(archivo, (entrada, v) -> entrada.readDouble()));
+	}
+
+	@Test
+	void sinArchivoNoHayInstantanea() throws IOException {
+		assertNull(Instantanea.cargar(directorio.resolve("no-existe.dat"), (entrada, v) -> {
+			throw new AssertionError("No debería leerse nada");
+		}));
+	}
+
+	/**
+	 * Arma un archivo de instantánea con el formato de una versión dada y un único
+	 * monto como contenido.
+	 */
+	private static byte[] escribirArchivo(int version, long secuencia, long region, double monto,
+			boolean daniado) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CRC32 crc = new CRC32();
+		DataOutputStream salida = new DataOutputStream(new CheckedOutputStream(bytes, crc));
+		salida.writeInt(0x50455300 | ('0' + version));
+		salida.writeLong(secuencia);
+		salida.writeLong(region);
+		salida.writeDouble(monto);
+		salida.flush();
+		long suma = daniado ? ~crc.getValue() : crc.getValue();
+		new DataOutputStream(bytes).writeLong(suma);
+		return bytes.toByteArray();
+	}
+}
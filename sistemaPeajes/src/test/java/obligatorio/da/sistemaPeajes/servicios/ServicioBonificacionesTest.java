@@ -0,0 +1,85 @@
+package obligatorio.da.sistemaPeajes.servicios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import excepciones.PeajeException;
+import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.EstrategiaBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.Propietario;
+import obligatorio.da.sistemaPeajes.dominio.Puesto;
+
+class ServicioBonificacionesTest {
+
+	private ServicioBonificaciones servicio;
+	private Propietario propietario;
+	private Puesto puesto;
+
+	@BeforeEach
+	void crear() {
+		servicio = new ServicioBonificaciones();
+		propietario = new Propietario("11111111", "clave", "Propietario", 0, 0);
+		puesto = new Puesto("Puesto", "Dirección");
+	}
+
+	@Test
+	void noReemplazaLaBonificacionDeUnPuesto() throws PeajeException {
+		List<EstrategiaBonificacion> bonificaciones = servicio.getBonificaciones();
+		servicio.asignarBonificacionConValidaciones(propietario, bonificaciones.get(0), puesto);
+
+		PeajeException error = assertThrows(PeajeException.class,
+				() -> servicio.asignarBonificacionConValidaciones(propietario, bonificaciones.get(1), puesto));
+		assertEquals("Ya tiene una bonificación asignada para ese puesto", error.getMessage());
+		// Tampoco sin las validaciones del caso de uso
+		assertThrows(PeajeException.class, () -> servicio.asignarBonificacion(propietario, puesto, bonificaciones.get(2)));
+
+		assertEquals(1, propietario.getBonificaciones().size());
+		assertSame(bonificaciones.get(0), propietario.obtenerAsignacion(puesto).getBonificacion());
+	}
+
+	@Test
+	void soloUnaDeVariasAsignacionesSimultaneasParaElMismoPuesto() throws Exception {
+		int hilos = 8;
+		CyclicBarrier largada = new CyclicBarrier(hilos);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<Future<EstrategiaBonificacion>> resultados = new ArrayList<>();
+		for (int i = 0; i < hilos; i++) {
+			EstrategiaBonificacion bonificacion = servicio.getBonificaciones().get(i % 3);
+			resultados.add(ejecutor.submit(() -> {
+				largada.await();
+				try {
+					servicio.asignarBonificacionConValidaciones(propietario, bonificacion, puesto);
+					return bonificacion;
+				} catch (PeajeException e) {
+					return null;
+				}
+			}));
+		}
+		ejecutor.shutdown();
+		assertTrue(ejecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+		List<EstrategiaBonificacion> asignadas = new ArrayList<>();
+		for (Future<EstrategiaBonificacion> resultado : resultados) {
+			if (resultado.get() != null) {
+				asignadas.add(resultado.get());
+			}
+		}
+		assertEquals(1, asignadas.size());
+		List<AsignacionBonificacion> bonificaciones = propietario.getBonificaciones();
+		assertEquals(1, bonificaciones.size());
+		assertSame(asignadas.get(0), bonificaciones.get(0).getBonificacion());
+	}
+}
@@ -0,0 +1,319 @@
+package obligatorio.da.sistemaPeajes.servicios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import excepciones.PeajeException;
+import obligatorio.da.sistemaPeajes.dominio.Administrador;
+import obligatorio.da.sistemaPeajes.dominio.AsignacionBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.Categoria;
+import obligatorio.da.sistemaPeajes.dominio.EstrategiaBonificacion;
+import obligatorio.da.sistemaPeajes.dominio.Propietario;
+import obligatorio.da.sistemaPeajes.dominio.Puesto;
+import obligatorio.da.sistemaPeajes.dominio.Tarifa;
+import obligatorio.da.sistemaPeajes.dominio.Transito;
+import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
+import obligatorio.da.sistemaPeajes.persistencia.Bitacora;
+
+class ServicioPersistenciaTest {
+
+	private static final int PROPIETARIOS = 4;
+	private static final long TARIFA_NORTE = 10_000; // $100,00
+	private static final long TARIFA_SUR = 12_000;
+	private static final long SALDO_INICIAL = 1_000 * TARIFA_SUR;
+	private static final long INICIO = 1_700_000_000_000L;
+
+	@TempDir
+	Path directorio;
+
+	@AfterEach
+	void detener() {
+		Fachada.getInstancia().detenerPersistencia();
+	}
+
+	@Test
+	void laInstantaneaGuardaLasContrasenasSoloComoHash() throws Exception {
+		Fachada fachada = Fachada.reiniciar();
+		fachada.agregarAdministrador(new Administrador("10000001", "admin.secreta", "Administrador"));
+		Propietario propietario = new Propietario("10000002", "prop.secreta", "Propietario", 0, 0);
+		fachada.agregarPropietario(propietario);
+		iniciar(fachada);
+		fachada.agregarSaldo(propietario, 100);
+		fachada.detenerPersistencia();
+
+		String contenido = new String(Files.readAllBytes(instantanea()), StandardCharsets.ISO_8859_1);
+		assertFalse(contenido.contains("admin.secreta"));
+		assertFalse(contenido.contains("prop.secreta"));
+
+		Fachada restaurada = Fachada.reiniciar();
+		assertTrue(iniciar(restaurada));
+		assertEquals("Propietario", restaurada.loginPropietario("10000002", "prop.secreta").getNombreCompleto());
+		assertEquals("Administrador", restaurada.loginAdministrador("10000001", "admin.secreta").getNombreCompleto());
+		assertThrows(PeajeException.class, () -> restaurada.loginPropietario("10000002", "admin.secreta"));
+	}
+
+	@Test
+	void restauraLoRegistradoMientrasSeGuardabanInstantaneas() throws Exception {
+		Fachada fachada = Fachada.reiniciar();
+		cargarBase(fachada);
+		iniciar(fachada);
+		Puesto norte = fachada.getPuestos().get(0);
+		Puesto sur = fachada.getPuestos().get(1);
+		// La mitad de los propietarios tiene bonificación en el puesto norte
+		for (int i = 0; i < PROPIETARIOS; i += 2) {
+			fachada.asignarBonificacion(propietario(fachada, i), norte, frecuente(fachada));
+		}
+
+		ExecutorService ejecutor = Executors.newFixedThreadPool(PROPIETARIOS);
+		CountDownLatch largada = new CountDownLatch(PROPIETARIOS);
+		for (int i = 0; i < PROPIETARIOS; i++) {
+			Propietario propietario = propietario(fachada, i);
+			Vehiculo vehiculo = fachada.buscarVehiculoPorMatricula(matricula(i));
+			ejecutor.submit(() -> {
+				largada.countDown();
+				for (int n = 0; n < 300; n++) {
+					fachada.registrarTransito(n % 2 == 0 ? norte : sur, vehiculo, propietario,
+							new Date(INICIO + n * 1000L));
+					if (n % 50 == 0) {
+						fachada.agregarSaldo(propietario, TARIFA_SUR);
+					}
+				}
+				return null;
+			});
+		}
+		ejecutor.shutdown();
+		largada.await();
+		// Instantáneas mientras los tránsitos se siguen registrando
+		do {
+			fachada.guardarInstantanea();
+		} while (!ejecutor.awaitTermination(1, TimeUnit.MILLISECONDS));
+		// Y una cola de registros posterior a la última instantánea
+		fachada.registrarTransito(sur, fachada.buscarVehiculoPorMatricula(matricula(0)), propietario(fachada, 0),
+				new Date(INICIO + 301_000L));
+		fachada.agregarSaldo(propietario(fachada, 1), 1);
+
+		Map<String, List<String>> esperado = resumen(fachada);
+		fachada.getPersistencia().getBitacora().close();
+
+		Fachada restaurada = Fachada.reiniciar();
+		assertTrue(iniciar(restaurada));
+		assertEquals(esperado, resumen(restaurada));
+	}
+
+	@Test
+	void omiteLosRegistrosQueLaInstantaneaYaIncluia() throws Exception {
+		Fachada fachada = Fachada.reiniciar();
+		cargarBase(fachada);
+		iniciar(fachada);
+		Propietario primero = propietario(fachada, 0);
+		Propietario segundo = propietario(fachada, 1);
+
+		Thread instantanea = new Thread(fachada::guardarInstantanea);
+		synchronized (primero) {
+			instantanea.start();
+			// La instantánea ya tomó la posición de la bitácora y espera el monitor del
+			// primer propietario: lo que se registra ahora queda después de esa posición
+			// pero también dentro de la copia
+			esperarBloqueado(instantanea);
+			fachada.agregarSaldo(primero, 100);
+			fachada.agregarSaldo(segundo, 200);
+		}
+		instantanea.join();
+		fachada.agregarSaldo(primero, 7);
+
+		Map<String, List<String>> esperado = resumen(fachada);
+		fachada.getPersistencia().getBitacora().close();
+
+		Fachada restaurada = Fachada.reiniciar();
+		assertTrue(iniciar(restaurada));
+		assertEquals(SALDO_INICIAL + 107, propietario(restaurada, 0).getSaldoActual());
+		assertEquals(SALDO_INICIAL + 200, propietario(restaurada, 1).getSaldoActual());
+		assertEquals(esperado, resumen(restaurada));
+	}
+
+	@Test
+	void migraUnaBitacoraConMontosEnDouble() throws Exception {
+		// Bitácora de la versión 1: montos como double
+		try (Bitacora anterior = Bitacora.abrir(bitacora(), 64 * 1024, 1, 60_000, null, registro -> {
+		})) {
+			anterior.escribir(ServicioPersistencia.SALDO_AGREGADO, datos -> {
+				Bitacora.escribirTexto(datos, cedula(0));
+				datos.putDouble(12.34);
+			});
+			anterior.escribir(ServicioPersistencia.TRANSITO, datos -> {
+				datos.putInt(1);
+				Bitacora.escribirTexto(datos, matricula(0));
+				datos.put((byte) 0);
+				datos.putDouble(120.0);
+				datos.putLong(INICIO);
+			});
+		}
+		try (FileChannel canal = FileChannel.open(bitacora(), StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(4).putInt(0, 0x50454A31), 0); // "PEJ1"
+		}
+
+		Fachada fachada = Fachada.reiniciar();
+		cargarBase(fachada);
+		assertFalse(iniciar(fachada));
+		Propietario propietario = propietario(fachada, 0);
+		assertEquals(SALDO_INICIAL + 1_234 - TARIFA_SUR, propietario.getSaldoActual());
+		assertEquals(Bitacora.VERSION, fachada.getPersistencia().getBitacora().getVersion());
+		assertTrue(Files.exists(directorio.resolve("bitacora.dat.v1")));
+		// Los registros nuevos ya se escriben con el formato actual
+		fachada.agregarSaldo(propietario, 1);
+
+		Map<String, List<String>> esperado = resumen(fachada);
+		fachada.getPersistencia().getBitacora().close();
+
+		// La migración guardó una instantánea: la bitácora anterior no se vuelve a reproducir
+		Fachada restaurada = Fachada.reiniciar();
+		assertTrue(iniciar(restaurada));
+		assertEquals(esperado, resumen(restaurada));
+	}
+
+	@Test
+	void resuelveLaBonificacionDeCadaTransitoAlReproducir() throws Exception {
+		Fachada fachada = Fachada.reiniciar();
+		cargarBase(fachada);
+		iniciar(fachada);
+		Propietario propietario = propietario(fachada, 0);
+		Vehiculo vehiculo = fachada.buscarVehiculoPorMatricula(matricula(0));
+		Puesto norte = fachada.getPuestos().get(0);
+		fachada.asignarBonificacion(propietario, norte, frecuente(fachada));
+		fachada.registrarTransito(norte, vehiculo, propietario, new Date(INICIO));
+		fachada.registrarTransito(fachada.getPuestos().get(1), vehiculo, propietario, new Date(INICIO + 1000));
+
+		Map<String, List<String>> esperado = resumen(fachada);
+		fachada.getPersistencia().getBitacora().close();
+
+		// Sin instantánea: la asignación y los tránsitos se reproducen desde la bitácora
+		Fachada restaurada = Fachada.reiniciar();
+		cargarBase(restaurada);
+		assertFalse(iniciar(restaurada));
+		assertEquals(esperado, resumen(restaurada));
+
+		Propietario restaurado = propietario(restaurada, 0);
+		Puesto norteRestaurado = restaurada.getPuestos().get(0);
+		AsignacionBonificacion asignacion = restaurado.obtenerAsignacion(norteRestaurado);
+		for (Transito transito : restaurada.obtenerTransitosPropietario(restaurado)) {
+			if (transito.getPuesto() == norteRestaurado) {
+				assertSame(asignacion, transito.getBonificacionAplicada());
+			} else {
+				assertEquals(null, transito.getBonificacionAplicada());
+			}
+		}
+	}
+
+	// ==================== Auxiliares ====================
+
+	/**
+	 * Estado inicial, equivalente a los datos de prueba de la aplicación: se carga
+	 * antes de iniciar la persistencia y no se registra en la bitácora.
+	 */
+	private static void cargarBase(Fachada fachada) throws PeajeException {
+		Categoria categoria = new Categoria("Auto");
+		Puesto norte = new Puesto("Norte", "Ruta Norte");
+		norte.agregarTarifa(new Tarifa(TARIFA_NORTE, categoria));
+		fachada.agregarPuesto(norte);
+		Puesto sur = new Puesto("Sur", "Ruta Sur");
+		sur.agregarTarifa(new Tarifa(TARIFA_SUR, categoria));
+		fachada.agregarPuesto(sur);
+		for (int i = 0; i < PROPIETARIOS; i++) {
+			Propietario propietario = new Propietario(cedula(i), "clave", "Propietario " + i, SALDO_INICIAL, 0);
+			fachada.agregarPropietario(propietario);
+			fachada.agregarVehiculo(new Vehiculo(matricula(i), "Modelo", "Color", categoria), propietario);
+		}
+	}
+
+	/**
+	 * Lo que una restauración debe conservar de cada propietario.
+	 */
+	private static Map<String, List<String>> resumen(Fachada fachada) {
+		Map<String, List<String>> resumen = new TreeMap<>();
+		for (Propietario propietario : fachada.getPropietarios()) {
+			List<String> datos = new ArrayList<>();
+			datos.add("saldo " + propietario.getSaldoActual());
+			datos.add("estado " + propietario.getNombreEstado());
+			for (AsignacionBonificacion asignacion : propietario.getBonificaciones()) {
+				datos.add("bonificación " + asignacion.getPuesto().getNombre() + " "
+						+ asignacion.getBonificacion().getNombre());
+			}
+			for (Transito transito : fachada.obtenerTransitosPropietario(propietario)) {
+				datos.add("tránsito " + transito.obtenerNombrePuesto() + " " + transito.obtenerMatriculaVehiculo()
+						+ " " + transito.getMontoPagado() + " " + transito.getMarcaTiempo() + " "
+						+ transito.obtenerNombreBonificacion());
+			}
+			datos.add("notificaciones " + fachada.obtenerNotificacionesDePropietario(propietario).size());
+			resumen.put(propietario.getCedula(), datos);
+		}
+		return resumen;
+	}
+
+	private static void esperarBloqueado(Thread hilo) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (hilo.getState() != Thread.State.BLOCKED) {
+			assertTrue(System.nanoTime() < limite, "El hilo no llegó a bloquearse");
+			Thread.sleep(1);
+		}
+	}
+
+	private static Propietario propietario(Fachada fachada, int i) throws PeajeException {
+		return fachada.buscarPropietarioPorCedula(cedula(i));
+	}
+
+	private static EstrategiaBonificacion frecuente(Fachada fachada) {
+		return fachada.getBonificaciones().stream()
+				.filter(bonificacion -> bonificacion.getNombre().equals("Frecuente"))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private static String cedula(int i) {
+		return "5000000" + i;
+	}
+
+	private static String matricula(int i) {
+		return "EEE000" + i;
+	}
+
+	private Path bitacora() {
+		return directorio.resolve("bitacora.dat");
+	}
+
+	/**
+	 * Carga la instantánea (si existe) y reproduce la bitácora, como al iniciar la aplicación.
+	 */
+	private boolean iniciar(Fachada fachada) throws IOException {
+		boolean cargada = fachada.cargarInstantanea(instantanea());
+		fachada.iniciarPersistencia(bitacora(), 64 * 1024, 256, 50);
+		return cargada;
+	}
+
+	private Path instantanea() {
+		return directorio.resolve("instantanea.dat");
+	}
+}
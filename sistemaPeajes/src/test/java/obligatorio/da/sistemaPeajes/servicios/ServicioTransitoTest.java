@@ -0,0 +1,221 @@
+package obligatorio.da.sistemaPeajes.servicios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import excepciones.PeajeException;
+import obligatorio.da.sistemaPeajes.dominio.Categoria;
+import obligatorio.da.sistemaPeajes.dominio.Propietario;
+import obligatorio.da.sistemaPeajes.dominio.Puesto;
+import obligatorio.da.sistemaPeajes.dominio.Suspendido;
+import obligatorio.da.sistemaPeajes.dominio.Tarifa;
+import obligatorio.da.sistemaPeajes.dominio.Transito;
+import obligatorio.da.sistemaPeajes.dominio.Vehiculo;
+
+class ServicioTransitoTest {
+
+	private static final long TARIFA = 10_000; // $100,00
+	private static final int HILOS = 8;
+
+	@TempDir
+	Path directorio;
+
+	private Fachada fachada;
+	private Categoria categoria;
+	private Puesto puesto;
+
+	@BeforeEach
+	void crear() throws IOException {
+		fachada = Fachada.reiniciar();
+		categoria = new Categoria("Auto");
+		puesto = new Puesto("Puesto", "Dirección");
+		puesto.agregarTarifa(new Tarifa(TARIFA, categoria));
+		fachada.agregarPuesto(puesto);
+		// Con la bitácora activa cada tránsito también se registra en ella
+		fachada.iniciarPersistencia(directorio.resolve("bitacora.dat"), 64 * 1024, 256, 50);
+	}
+
+	@AfterEach
+	void detener() {
+		fachada.detenerPersistencia();
+	}
+
+	@Test
+	void elSaldoNoSeGastaDosVecesConTransitosSimultaneos() throws Exception {
+		int alcanzan = 50;
+		Propietario propietario = propietario("11111111", alcanzan * TARIFA);
+		Vehiculo vehiculo = vehiculo("AAA1111", propietario);
+
+		List<Integer> registrados = enParalelo(HILOS, hilo -> {
+			int exitosos = 0;
+			for (int i = 0; i < 20; i++) {
+				try {
+					fachada.registrarTransito(puesto, vehiculo, propietario, new Date());
+					exitosos++;
+				} catch (PeajeException e) {
+					// Saldo insuficiente
+				}
+			}
+			return exitosos;
+		});
+
+		assertEquals(alcanzan, registrados.stream().mapToInt(Integer::intValue).sum());
+		assertEquals(0, propietario.getSaldoActual());
+		assertEquals(alcanzan, fachada.obtenerTransitosPropietario(propietario).size());
+		assertEquals(alcanzan, fachada.contarTransitosDeVehiculo(vehiculo));
+		assertEquals(alcanzan * TARIFA, fachada.totalGastadoPorVehiculo(vehiculo));
+	}
+
+	@Test
+	void registraEnParaleloLosTransitosDePropietariosDistintos() throws Exception {
+		int porPropietario = 500;
+		List<Propietario> propietarios = new ArrayList<>();
+		List<Vehiculo> vehiculos = new ArrayList<>();
+		for (int i = 0; i < HILOS; i++) {
+			Propietario propietario = propietario("2000000" + i, porPropietario * TARIFA);
+			propietarios.add(propietario);
+			vehiculos.add(vehiculo("BBB000" + i, propietario));
+		}
+
+		List<Integer> registrados = enParalelo(HILOS, hilo -> {
+			for (int i = 0; i < porPropietario; i++) {
+				fachada.registrarTransito(puesto, vehiculos.get(hilo), propietarios.get(hilo), new Date());
+			}
+			return porPropietario;
+		});
+
+		assertEquals(HILOS * porPropietario, registrados.stream().mapToInt(Integer::intValue).sum());
+		assertEquals(HILOS * porPropietario, fachada.getAlmacenTransitos().cantidad());
+		for (int i = 0; i < HILOS; i++) {
+			assertEquals(0, propietarios.get(i).getSaldoActual());
+			assertEquals(porPropietario, fachada.obtenerTransitosPropietario(propietarios.get(i)).size());
+		}
+	}
+
+	@Test
+	void unLoteAvisaUnSoloEventoConLosTransitosDeCadaPropietario() throws PeajeException {
+		Propietario primero = propietario("30000001", 10 * TARIFA);
+		Propietario segundo = propietario("30000002", 10 * TARIFA);
+		Vehiculo dePrimero = vehiculo("CCC0001", primero);
+		Vehiculo deSegundo = vehiculo("CCC0002", segundo);
+
+		List<Propietario.Eventos.TransitosRegistrados> lotes = new ArrayList<>();
+		List<Propietario.Eventos.TransitoRegistrado> sueltos = new ArrayList<>();
+		for (Propietario propietario : List.of(primero, segundo)) {
+			propietario.suscribir(this, Propietario.Eventos.TransitosRegistrados.class, (prueba, evento) -> {
+				// Se avisa ya liberado el monitor del propietario
+				assertFalse(Thread.holdsLock(evento.getPropietario()));
+				lotes.add(evento);
+			});
+			propietario.suscribir(this, Propietario.Eventos.TransitoRegistrado.class,
+					(prueba, evento) -> sueltos.add(evento));
+		}
+
+		List<ServicioTransito.SolicitudTransito> solicitudes = new ArrayList<>();
+		for (Vehiculo vehiculo : List.of(dePrimero, deSegundo, dePrimero, dePrimero, deSegundo)) {
+			solicitudes.add(new ServicioTransito.SolicitudTransito(puesto, vehiculo, new Date()));
+		}
+		ServicioTransito.ResultadoLote resultado = fachada.registrarTransitos(solicitudes);
+
+		List<Transito> registrados = resultado.getTransitos();
+		assertEquals(5, registrados.size());
+		assertEquals(List.of(), sueltos);
+		assertEquals(2, lotes.size());
+		assertEquals(primero, lotes.get(0).getPropietario());
+		assertEquals(List.of(registrados.get(0), registrados.get(1), registrados.get(2)), lotes.get(0).getTransitos());
+		assertEquals(segundo, lotes.get(1).getPropietario());
+		assertEquals(List.of(registrados.get(3), registrados.get(4)), lotes.get(1).getTransitos());
+
+		// Fuera de un lote cada tránsito se sigue avisando por separado
+		fachada.registrarTransito(puesto, dePrimero, primero, new Date());
+		assertEquals(1, sueltos.size());
+		assertEquals(2, lotes.size());
+	}
+
+	@Test
+	void noAplicaLosCambiosQueNoSePudieronRegistrarEnLaBitacora() throws Exception {
+		Propietario propietario = propietario("40000001", 10 * TARIFA);
+		Vehiculo vehiculo = vehiculo("DDD0001", propietario);
+		String estado = propietario.getNombreEstado();
+
+		// A partir de aquí toda escritura en la bitácora falla
+		fachada.getPersistencia().getBitacora().close();
+
+		assertThrows(UncheckedIOException.class,
+				() -> fachada.registrarTransito(puesto, vehiculo, propietario, new Date()));
+		ServicioTransito.ResultadoLote lote = fachada.registrarTransitos(
+				List.of(new ServicioTransito.SolicitudTransito(puesto, vehiculo, new Date())));
+		assertEquals(List.of(), lote.getTransitos());
+		assertTrue(lote.getErrores().get(0).startsWith("Error inesperado"));
+		assertThrows(UncheckedIOException.class, () -> fachada.agregarSaldo(propietario, TARIFA));
+		assertThrows(UncheckedIOException.class, () -> fachada.cambiarEstadoPropietario(propietario, new Suspendido()));
+		assertThrows(UncheckedIOException.class,
+				() -> fachada.asignarBonificacion(propietario, puesto, fachada.getBonificaciones().get(0)));
+
+		assertEquals(10 * TARIFA, propietario.getSaldoActual());
+		assertEquals(estado, propietario.getNombreEstado());
+		assertEquals(List.of(), propietario.getBonificaciones());
+		assertEquals(List.of(), fachada.obtenerTransitosPropietario(propietario));
+		assertEquals(List.of(), fachada.obtenerNotificacionesDePropietario(propietario));
+		assertEquals(0, fachada.contarTransitosDeVehiculo(vehiculo));
+	}
+
+	// ==================== Auxiliares ====================
+
+	private interface Tarea<T> {
+		T ejecutar(int hilo) throws Exception;
+	}
+
+	private static <T> List<T> enParalelo(int hilos, Tarea<T> tarea) throws Exception {
+		CyclicBarrier largada = new CyclicBarrier(hilos);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<Future<T>> futuros = new ArrayList<>();
+		for (int i = 0; i < hilos; i++) {
+			int hilo = i;
+			Callable<T> llamada = () -> {
+				largada.await();
+				return tarea.ejecutar(hilo);
+			};
+			futuros.add(ejecutor.submit(llamada));
+		}
+		ejecutor.shutdown();
+		assertTrue(ejecutor.awaitTermination(60, TimeUnit.SECONDS));
+		List<T> resultados = new ArrayList<>();
+		for (Future<T> futuro : futuros) {
+			resultados.add(futuro.get());
+		}
+		return resultados;
+	}
+
+	private Propietario propietario(String cedula, long saldo) throws PeajeException {
+		Propietario propietario = new Propietario(cedula, "clave", "Propietario " + cedula, saldo, 0);
+		fachada.agregarPropietario(propietario);
+		return propietario;
+	}
+
+	private Vehiculo vehiculo(String matricula, Propietario propietario) throws PeajeException {
+		Vehiculo vehiculo = new Vehiculo(matricula, "Modelo", "Color", categoria);
+		fachada.agregarVehiculo(vehiculo, propietario);
+		return vehiculo;
+	}
+}